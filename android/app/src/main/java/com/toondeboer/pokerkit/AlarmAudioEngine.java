@@ -0,0 +1,274 @@
+package com.toondeboer.pokerkit;
+
+import android.content.Context;
+import android.media.AudioAttributes;
+import android.media.AudioFormat;
+import android.media.AudioTimestamp;
+import android.media.AudioTrack;
+import android.media.MediaPlayer;
+import android.media.RingtoneManager;
+import android.net.Uri;
+import android.os.Build;
+import android.os.Handler;
+import android.os.HandlerThread;
+import android.os.SystemClock;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Plays the looping alarm for both the service and the in-app alert.
+ *
+ * R.raw.alarm is decoded once, off the main thread, into a static AudioTrack
+ * whose loop points cover the whole clip, so play() only starts an already
+ * filled buffer and the loop has no gap. The time from the alarm's due time
+ * to its first rendered frame is recorded in LatenessStats.ALARM_AUDIO.
+ * When the clip can't be loaded, play() falls back to the default alarm
+ * ringtone through MediaPlayer.
+ */
+public class AlarmAudioEngine {
+    private static final int MEASURE_INTERVAL_MS = 5;
+    private static final int MEASURE_TIMEOUT_MS = 1000;
+
+    private static AlarmAudioEngine instance;
+
+    private final Context context;
+    private final Handler audioHandler;
+    private AudioTrack track;
+    private int frameCount;
+    private int sampleRate;
+    private boolean preparing = false;
+    private boolean prepareFailed = false;
+    private boolean playing = false;
+    private boolean playWhenPrepared = false;
+    private long pendingDueTime;
+    private MediaPlayer fallbackPlayer;
+
+    private AlarmAudioEngine(Context context) {
+        this.context = context;
+        HandlerThread thread = new HandlerThread("AlarmAudio");
+        thread.start();
+        this.audioHandler = new Handler(thread.getLooper());
+    }
+
+    public static synchronized AlarmAudioEngine getInstance(Context context) {
+        if (instance == null) {
+            instance = new AlarmAudioEngine(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    // Decodes the clip in the background, a no-op once prepared
+    public synchronized void prepare() {
+        if (track != null || preparing || prepareFailed) return;
+
+        preparing = true;
+        audioHandler.post(new Runnable() {
+            @Override
+            public void run() {
+                AudioTrack newTrack = null;
+                try {
+                    newTrack = createTrack();
+                } catch (IOException | RuntimeException e) {
+                    e.printStackTrace();
+                }
+                onPrepared(newTrack);
+            }
+        });
+    }
+
+    private synchronized void onPrepared(AudioTrack newTrack) {
+        preparing = false;
+        prepareFailed = newTrack == null;
+        track = newTrack;
+        if (playWhenPrepared) {
+            playWhenPrepared = false;
+            playing = false;
+            play(pendingDueTime);
+        }
+    }
+
+    /**
+     * Starts the looping alarm. dueTime is the elapsedRealtime() at which the
+     * alarm was meant to sound, used for the latency measurement.
+     */
+    public synchronized void play(long dueTime) {
+        if (playing) return;
+        playing = true;
+
+        if (track == null) {
+            if (prepareFailed) {
+                playFallback();
+            } else {
+                // Not decoded yet, start as soon as it is
+                playWhenPrepared = true;
+                pendingDueTime = dueTime;
+                prepare();
+            }
+            return;
+        }
+
+        long playNanos = System.nanoTime();
+        long dueNanos = playNanos - (SystemClock.elapsedRealtime() - dueTime) * 1_000_000L;
+        track.play();
+        measureStartLatency(track, dueNanos, playNanos);
+    }
+
+    public synchronized void stop() {
+        playWhenPrepared = false;
+        if (!playing) return;
+        playing = false;
+
+        if (track != null) {
+            track.stop();
+            // Rewinds the static buffer for the next play()
+            track.reloadStaticData();
+            track.setLoopPoints(0, frameCount, -1);
+        }
+        if (fallbackPlayer != null) {
+            if (fallbackPlayer.isPlaying()) {
+                fallbackPlayer.stop();
+            }
+            fallbackPlayer.release();
+            fallbackPlayer = null;
+        }
+    }
+
+    public synchronized boolean isPlaying() {
+        return playing;
+    }
+
+    // Frees the decoded buffer, prepare() loads it again when needed
+    public synchronized void release() {
+        stop();
+        if (track != null) {
+            track.release();
+            track = null;
+        }
+    }
+
+    private AudioTrack createTrack() throws IOException {
+        ByteBuffer wav = ByteBuffer.wrap(readRawAlarm()).order(ByteOrder.LITTLE_ENDIAN);
+        if (wav.getInt(0) != 0x46464952 || wav.getInt(8) != 0x45564157) { // "RIFF", "WAVE"
+            throw new IOException("alarm is not a WAV file");
+        }
+
+        int channels = 0;
+        int bitsPerSample = 0;
+        int dataOffset = -1;
+        int dataLength = 0;
+        int position = 12;
+        while (position + 8 <= wav.limit()) {
+            int chunkId = wav.getInt(position);
+            int chunkSize = wav.getInt(position + 4);
+            if (chunkId == 0x20746d66) { // "fmt "
+                if (wav.getShort(position + 8) != 1) {
+                    throw new IOException("alarm is not PCM");
+                }
+                channels = wav.getShort(position + 10);
+                sampleRate = wav.getInt(position + 12);
+                bitsPerSample = wav.getShort(position + 22);
+            } else if (chunkId == 0x61746164) { // "data"
+                dataOffset = position + 8;
+                dataLength = Math.min(chunkSize, wav.limit() - dataOffset);
+                break;
+            }
+            position += 8 + chunkSize + (chunkSize & 1);
+        }
+        if (dataOffset < 0 || bitsPerSample != 16 || channels < 1 || channels > 2) {
+            throw new IOException("Unsupported alarm format");
+        }
+
+        int frameSize = channels * 2;
+        frameCount = dataLength / frameSize;
+        dataLength = frameCount * frameSize;
+
+        AudioTrack.Builder builder = new AudioTrack.Builder()
+                .setAudioAttributes(new AudioAttributes.Builder()
+                        .setUsage(AudioAttributes.USAGE_ALARM)
+                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                        .build())
+                .setAudioFormat(new AudioFormat.Builder()
+                        .setEncoding(AudioFormat.ENCODING_PCM_16BIT)
+                        .setSampleRate(sampleRate)
+                        .setChannelMask(channels == 2
+                                ? AudioFormat.CHANNEL_OUT_STEREO
+                                : AudioFormat.CHANNEL_OUT_MONO)
+                        .build())
+                .setTransferMode(AudioTrack.MODE_STATIC)
+                .setBufferSizeInBytes(dataLength);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            builder.setPerformanceMode(AudioTrack.PERFORMANCE_MODE_LOW_LATENCY);
+        }
+
+        AudioTrack newTrack = builder.build();
+        newTrack.write(wav.array(), dataOffset, dataLength);
+        newTrack.setLoopPoints(0, frameCount, -1);
+        return newTrack;
+    }
+
+    private byte[] readRawAlarm() throws IOException {
+        InputStream in = context.getResources().openRawResource(R.raw.alarm);
+        try {
+            ByteArrayOutputStream out = new ByteArrayOutputStream(in.available());
+            byte[] buffer = new byte[64 * 1024];
+            int read;
+            while ((read = in.read(buffer)) != -1) {
+                out.write(buffer, 0, read);
+            }
+            return out.toByteArray();
+        } finally {
+            in.close();
+        }
+    }
+
+    // Polls the track's timestamp until the first frame has been rendered
+    private void measureStartLatency(final AudioTrack playingTrack, final long dueNanos,
+                                     final long playNanos) {
+        audioHandler.post(new Runnable() {
+            private final AudioTimestamp timestamp = new AudioTimestamp();
+
+            @Override
+            public void run() {
+                synchronized (AlarmAudioEngine.this) {
+                    if (!playing || track != playingTrack) return;
+
+                    if (playingTrack.getTimestamp(timestamp) && timestamp.framePosition > 0) {
+                        long firstFrameNanos = timestamp.nanoTime
+                                - timestamp.framePosition * 1_000_000_000L / sampleRate;
+                        LatenessStats.ALARM_AUDIO.record(
+                                Math.max(0, (firstFrameNanos - dueNanos) / 1_000_000L));
+                        return;
+                    }
+                }
+                if (System.nanoTime() - playNanos < MEASURE_TIMEOUT_MS * 1_000_000L) {
+                    audioHandler.postDelayed(this, MEASURE_INTERVAL_MS);
+                }
+            }
+        });
+    }
+
+    private void playFallback() {
+        try {
+            Uri defaultSound = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
+            if (defaultSound == null) {
+                defaultSound = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
+            }
+
+            fallbackPlayer = new MediaPlayer();
+            fallbackPlayer.setDataSource(context, defaultSound);
+            fallbackPlayer.setAudioAttributes(new AudioAttributes.Builder()
+                    .setUsage(AudioAttributes.USAGE_ALARM)
+                    .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
+                    .build());
+            fallbackPlayer.setLooping(true);
+            fallbackPlayer.prepare();
+            fallbackPlayer.start();
+
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package com.toondeboer.pokerkit;
+
+import android.app.AlarmManager;
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.os.Build;
+
+/**
+ * Wakes PokerTimerService at the timer's deadline with an exact alarm, which
+ * Doze and app standby don't defer the way they defer Handler messages. The
+ * deadline is on the elapsedRealtime() timeline, so setting the wall clock
+ * doesn't move the alarm.
+ * The alarm starts the service with ACTION_EXPIRY_ALARM; the Handler
+ * wakeups stay as the fallback when exact alarms aren't allowed.
+ * TournamentClocks arms a second one, with its own action and request code,
+ * for the earliest transition of its clocks.
+ */
+public class ExpiryAlarmScheduler {
+    public static final int TIMER_REQUEST_CODE = 2001;
+    public static final int CLOCKS_REQUEST_CODE = 2002;
+
+    private final Context context;
+    private final AlarmManager alarmManager;
+    private final PendingIntent pendingIntent;
+    private long armedTime = 0;
+
+    public ExpiryAlarmScheduler(Context context) {
+        this(context, PokerTimerService.ACTION_EXPIRY_ALARM, TIMER_REQUEST_CODE);
+    }
+
+    public ExpiryAlarmScheduler(Context context, String action, int requestCode) {
+        this.context = context;
+        this.alarmManager = (AlarmManager) context.getSystemService(Context.ALARM_SERVICE);
+
+        Intent intent = TimerServiceCommands.createIntent(context, action);
+        this.pendingIntent = PendingIntent.getService(context, requestCode, intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    // Re-arming for the same time is a no-op, so this can run on every update
+    public void arm(long triggerAtElapsed) {
+        if (triggerAtElapsed == armedTime) return;
+        armedTime = triggerAtElapsed;
+
+        if (canScheduleExactAlarms()) {
+            alarmManager.setExactAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP,
+                    triggerAtElapsed, pendingIntent);
+        } else {
+            // Without the permission the system may batch it, the Handler usually wins
+            alarmManager.setAndAllowWhileIdle(AlarmManager.ELAPSED_REALTIME_WAKEUP,
+                    triggerAtElapsed, pendingIntent);
+        }
+    }
+
+    public void cancel() {
+        if (armedTime == 0) return;
+        armedTime = 0;
+        alarmManager.cancel(pendingIntent);
+    }
+
+    // How late the armed alarm was delivered, -1 for one armed by an earlier process
+    public long onFired(long now) {
+        long lateness = armedTime > 0 ? Math.max(0, now - armedTime) : -1;
+        armedTime = 0;
+        return lateness;
+    }
+
+    private boolean canScheduleExactAlarms() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+            return alarmManager.canScheduleExactAlarms();
+        }
+        return true;
+    }
+}
@@ -0,0 +1,139 @@
+package com.toondeboer.pokerkit;
+
+import android.app.Activity;
+import android.content.BroadcastReceiver;
+import android.content.Context;
+import android.content.Intent;
+import android.content.IntentFilter;
+import android.os.Build;
+import android.os.Bundle;
+import android.os.SystemClock;
+import android.view.View;
+import android.view.ViewTreeObserver;
+import android.view.WindowManager;
+import android.widget.Button;
+import android.widget.TextView;
+import androidx.core.content.ContextCompat;
+
+/**
+ * Full-screen intent target of the expiry alert. A plain Activity with one
+ * inflated layout, so on a locked device it is drawn within a few frames
+ * instead of waiting for MainActivity to start React Native.
+ *
+ * Both buttons go straight to PokerTimerService. The service broadcasts
+ * ACTION_ALERT_DISMISSED when the alert ends some other way, which closes
+ * this screen too.
+ */
+public class ExpiryAlertActivity extends Activity {
+    public static final String EXTRA_TITLE = "alertTitle";
+    public static final String EXTRA_LEVEL = "alertLevel";
+    public static final String EXTRA_CURRENT_BLINDS = "alertCurrentBlinds";
+    public static final String EXTRA_NEXT_BLINDS = "alertNextBlinds";
+    public static final String EXTRA_LEVEL_ADVANCED = "alertLevelAdvanced";
+    // Whether the schedule has a level to start, see PokerTimerService.startNextLevel()
+    public static final String EXTRA_HAS_NEXT_LEVEL = "alertHasNextLevel";
+    // SystemClock.elapsedRealtimeNanos() when the alert was posted, see TimerMetrics
+    public static final String EXTRA_POSTED_AT = "alertPostedAt";
+
+    public static final String ACTION_ALERT_DISMISSED = "com.toondeboer.pokerkit.ALERT_DISMISSED";
+
+    private TextView titleView;
+    private TextView levelView;
+    private TextView blindsView;
+    private TextView nextBlindsView;
+    private Button startNextLevelButton;
+
+    private final BroadcastReceiver dismissedReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            finish();
+        }
+    };
+
+    @Override
+    protected void onCreate(Bundle savedInstanceState) {
+        super.onCreate(savedInstanceState);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O_MR1) {
+            setShowWhenLocked(true);
+            setTurnScreenOn(true);
+        } else {
+            getWindow().addFlags(WindowManager.LayoutParams.FLAG_SHOW_WHEN_LOCKED
+                    | WindowManager.LayoutParams.FLAG_TURN_SCREEN_ON);
+        }
+        getWindow().addFlags(WindowManager.LayoutParams.FLAG_KEEP_SCREEN_ON);
+
+        setContentView(R.layout.activity_expiry_alert);
+        titleView = findViewById(R.id.alert_title);
+        levelView = findViewById(R.id.alert_level);
+        blindsView = findViewById(R.id.alert_blinds);
+        nextBlindsView = findViewById(R.id.alert_next_blinds);
+        startNextLevelButton = findViewById(R.id.alert_start_next_level);
+
+        findViewById(R.id.alert_dismiss).setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                sendCommand(PokerTimerService.ACTION_DISMISS_ALERT);
+            }
+        });
+        startNextLevelButton.setOnClickListener(new View.OnClickListener() {
+            @Override
+            public void onClick(View view) {
+                sendCommand(PokerTimerService.ACTION_START_NEXT_LEVEL);
+            }
+        });
+
+        ContextCompat.registerReceiver(this, dismissedReceiver,
+                new IntentFilter(ACTION_ALERT_DISMISSED), ContextCompat.RECEIVER_NOT_EXPORTED);
+
+        bind(getIntent());
+        recordTimeToVisible(getIntent().getLongExtra(EXTRA_POSTED_AT, 0));
+    }
+
+    // A later alert while this one is still showing, e.g. another level advanced
+    @Override
+    protected void onNewIntent(Intent intent) {
+        super.onNewIntent(intent);
+        setIntent(intent);
+        bind(intent);
+    }
+
+    @Override
+    protected void onDestroy() {
+        unregisterReceiver(dismissedReceiver);
+        super.onDestroy();
+    }
+
+    private void bind(Intent intent) {
+        boolean levelAdvanced = intent.getBooleanExtra(EXTRA_LEVEL_ADVANCED, false);
+        boolean hasNextLevel = intent.getBooleanExtra(EXTRA_HAS_NEXT_LEVEL, false);
+        titleView.setText(intent.getStringExtra(EXTRA_TITLE));
+        levelView.setText("Level " + intent.getIntExtra(EXTRA_LEVEL, 1));
+        blindsView.setText(intent.getStringExtra(EXTRA_CURRENT_BLINDS));
+        nextBlindsView.setText("Next: " + intent.getStringExtra(EXTRA_NEXT_BLINDS));
+        // After an automatic advance the next level is already running, and
+        // without a scheduled next level there is nothing to start: dismiss only
+        startNextLevelButton.setVisibility(!levelAdvanced && hasNextLevel ? View.VISIBLE : View.GONE);
+    }
+
+    // Until the first frame is about to be drawn, the screen is what the user waits for
+    private void recordTimeToVisible(final long postedAt) {
+        if (postedAt <= 0) return;
+
+        final ViewTreeObserver observer = getWindow().getDecorView().getViewTreeObserver();
+        observer.addOnPreDrawListener(new ViewTreeObserver.OnPreDrawListener() {
+            @Override
+            public boolean onPreDraw() {
+                if (observer.isAlive()) {
+                    observer.removeOnPreDrawListener(this);
+                }
+                TimerMetrics.ALERT_VISIBLE.recordNanos(SystemClock.elapsedRealtimeNanos() - postedAt);
+                return true;
+            }
+        });
+    }
+
+    private void sendCommand(String action) {
+        startService(TimerServiceCommands.stamp(TimerServiceCommands.createIntent(this, action)));
+        finish();
+    }
+}
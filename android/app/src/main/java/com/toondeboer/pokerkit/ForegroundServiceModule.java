@@ -4,21 +4,32 @@ import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.Promise;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.bridge.Arguments;
 import android.content.Intent;
-import android.content.pm.PackageManager;
-import android.os.Build;
-import androidx.core.content.ContextCompat;
-import android.Manifest;
+import java.util.HashMap;
+import java.util.Map;
 
+/**
+ * Legacy bridge module. Kept as the fallback when the New Architecture
+ * TurboModule (ForegroundServiceTurboModule) is not available.
+ */
 public class ForegroundServiceModule extends ReactContextBaseJavaModule {
     private static final String MODULE_NAME = "RNForegroundService";
     private ReactApplicationContext reactContext;
-    private boolean isServiceRunning = false;
+    private final TimerServiceConnection connection;
+    private final TimerEventEmitter eventEmitter;
+    // Issued per module instance, so a reloaded JS runtime gets a newer one
+    private final long session = TimerServiceCommands.newSession();
 
     public ForegroundServiceModule(ReactApplicationContext reactContext) {
         super(reactContext);
         this.reactContext = reactContext;
+        this.connection = new TimerServiceConnection(reactContext);
+        this.eventEmitter = new TimerEventEmitter(reactContext);
     }
 
     @Override
@@ -26,65 +37,31 @@ public class ForegroundServiceModule extends ReactContextBaseJavaModule {
         return MODULE_NAME;
     }
 
-    @ReactMethod
-    public void startService(ReadableMap data, Promise promise) {
-        try {
-            // Check permission for Android 13+
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-                if (ContextCompat.checkSelfPermission(reactContext,
-                        Manifest.permission.POST_NOTIFICATIONS) != PackageManager.PERMISSION_GRANTED) {
-                    promise.reject("PERMISSION_DENIED", "Notification permission required");
-                    return;
-                }
-            }
+    @Override
+    public Map<String, Object> getConstants() {
+        Map<String, Object> constants = new HashMap<>();
+        constants.put("session", (double) session);
+        return constants;
+    }
 
-            Intent serviceIntent = new Intent(reactContext, PokerTimerService.class);
-            serviceIntent.setAction(PokerTimerService.ACTION_START);
+    @Override
+    public void initialize() {
+        super.initialize();
+        connection.bind();
+    }
 
-            // Add data to intent
-            if (data.hasKey("tournamentName")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_TOURNAMENT_NAME,
-                        data.getString("tournamentName"));
-            }
-            if (data.hasKey("currentBlindLevel")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_BLIND_LEVEL,
-                        data.getInt("currentBlindLevel"));
-            }
-            if (data.hasKey("currentSmallBlind")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_SMALL_BLIND,
-                        data.getInt("currentSmallBlind"));
-            }
-            if (data.hasKey("currentBigBlind")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_BIG_BLIND,
-                        data.getInt("currentBigBlind"));
-            }
-            if (data.hasKey("nextSmallBlind")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_NEXT_SMALL_BLIND,
-                        data.getInt("nextSmallBlind"));
-            }
-            if (data.hasKey("nextBigBlind")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_NEXT_BIG_BLIND,
-                        data.getInt("nextBigBlind"));
-            }
-            if (data.hasKey("endTime")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_END_TIME,
-                        (long) data.getDouble("endTime"));
-            }
-            if (data.hasKey("timeLeft")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_TIME_LEFT,
-                        data.getInt("timeLeft"));
-            }
-            if (data.hasKey("paused")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_PAUSED,
-                        data.getBoolean("paused"));
-            }
-            if (data.hasKey("shouldAlertOnExpiry")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_SHOULD_ALERT_ON_EXPIRY,
-                        data.getBoolean("shouldAlertOnExpiry"));
-            }
+    @Override
+    public void invalidate() {
+        connection.unbind();
+        super.invalidate();
+    }
 
-            reactContext.startForegroundService(serviceIntent);
-            isServiceRunning = true;
+    @ReactMethod
+    public void startService(ReadableMap data, Promise promise) {
+        try {
+            // The service owns the timer, so it runs even without notification
+            // permission; Android 13+ then only lists it in the task manager
+            connection.start(buildServiceIntent(data, PokerTimerService.ACTION_START));
             promise.resolve("Service started successfully");
 
         } catch (Exception e) {
@@ -95,58 +72,13 @@ public class ForegroundServiceModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void updateService(ReadableMap data, Promise promise) {
         try {
-            if (!isServiceRunning) {
+            if (!connection.isServiceRunning()) {
                 // If service isn't running, start it instead
                 startService(data, promise);
                 return;
             }
 
-            Intent serviceIntent = new Intent(reactContext, PokerTimerService.class);
-            serviceIntent.setAction(PokerTimerService.ACTION_UPDATE);
-
-            // Add data to intent (same as startService)
-            if (data.hasKey("tournamentName")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_TOURNAMENT_NAME,
-                        data.getString("tournamentName"));
-            }
-            if (data.hasKey("currentBlindLevel")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_BLIND_LEVEL,
-                        data.getInt("currentBlindLevel"));
-            }
-            if (data.hasKey("currentSmallBlind")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_SMALL_BLIND,
-                        data.getInt("currentSmallBlind"));
-            }
-            if (data.hasKey("currentBigBlind")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_BIG_BLIND,
-                        data.getInt("currentBigBlind"));
-            }
-            if (data.hasKey("nextSmallBlind")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_NEXT_SMALL_BLIND,
-                        data.getInt("nextSmallBlind"));
-            }
-            if (data.hasKey("nextBigBlind")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_NEXT_BIG_BLIND,
-                        data.getInt("nextBigBlind"));
-            }
-            if (data.hasKey("endTime")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_END_TIME,
-                        (long) data.getDouble("endTime"));
-            }
-            if (data.hasKey("timeLeft")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_TIME_LEFT,
-                        data.getInt("timeLeft"));
-            }
-            if (data.hasKey("paused")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_PAUSED,
-                        data.getBoolean("paused"));
-            }
-            if (data.hasKey("shouldAlertOnExpiry")) {
-                serviceIntent.putExtra(PokerTimerService.EXTRA_SHOULD_ALERT_ON_EXPIRY,
-                        data.getBoolean("shouldAlertOnExpiry"));
-            }
-
-            reactContext.startService(serviceIntent);
+            connection.update(buildServiceIntent(data, PokerTimerService.ACTION_UPDATE));
             promise.resolve("Service updated successfully");
 
         } catch (Exception e) {
@@ -154,14 +86,72 @@ public class ForegroundServiceModule extends ReactContextBaseJavaModule {
         }
     }
 
+    private Intent buildServiceIntent(ReadableMap data, String action) {
+        Intent serviceIntent = TimerServiceCommands.createIntent(reactContext, action);
+
+        // Only forward the keys that were sent, the service has defaults for the rest
+        if (data.hasKey("tournamentName")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_TOURNAMENT_NAME,
+                    data.getString("tournamentName"));
+        }
+        if (data.hasKey("currentBlindLevel")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_BLIND_LEVEL,
+                    data.getInt("currentBlindLevel"));
+        }
+        if (data.hasKey("currentSmallBlind")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_SMALL_BLIND,
+                    data.getInt("currentSmallBlind"));
+        }
+        if (data.hasKey("currentBigBlind")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_BIG_BLIND,
+                    data.getInt("currentBigBlind"));
+        }
+        if (data.hasKey("nextSmallBlind")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_NEXT_SMALL_BLIND,
+                    data.getInt("nextSmallBlind"));
+        }
+        if (data.hasKey("nextBigBlind")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_NEXT_BIG_BLIND,
+                    data.getInt("nextBigBlind"));
+        }
+        if (data.hasKey("endTime")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_END_TIME,
+                    (long) data.getDouble("endTime"));
+        }
+        if (data.hasKey("timeLeft")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_TIME_LEFT,
+                    data.getInt("timeLeft"));
+        }
+        if (data.hasKey("paused")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_PAUSED,
+                    data.getBoolean("paused"));
+        }
+        if (data.hasKey("shouldAlertOnExpiry")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_SHOULD_ALERT_ON_EXPIRY,
+                    data.getBoolean("shouldAlertOnExpiry"));
+        }
+        if (data.hasKey("updateMode")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_UPDATE_MODE,
+                    data.getString("updateMode"));
+        }
+        if (data.hasKey("timerDuration")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_TIMER_DURATION,
+                    data.getInt("timerDuration"));
+        }
+        if (data.hasKey("session") && data.hasKey("sequence")) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_SESSION,
+                    (long) data.getDouble("session"));
+            serviceIntent.putExtra(PokerTimerService.EXTRA_SEQUENCE,
+                    data.getInt("sequence"));
+        }
+
+        return serviceIntent;
+    }
+
     @ReactMethod
     public void stopService(Promise promise) {
         try {
-            Intent serviceIntent = new Intent(reactContext, PokerTimerService.class);
-            serviceIntent.setAction(PokerTimerService.ACTION_STOP);
-            reactContext.startService(serviceIntent);
-
-            isServiceRunning = false;
+            connection.stop();
             promise.resolve("Service stopped successfully");
 
         } catch (Exception e) {
@@ -172,10 +162,7 @@ public class ForegroundServiceModule extends ReactContextBaseJavaModule {
     @ReactMethod
     public void dismissAlert(Promise promise) {
         try {
-            Intent serviceIntent = new Intent(reactContext, PokerTimerService.class);
-            serviceIntent.setAction(PokerTimerService.ACTION_DISMISS_ALERT);
-            reactContext.startService(serviceIntent);
-
+            connection.dismissAlert();
             promise.resolve("Alert dismissed successfully");
 
         } catch (Exception e) {
@@ -183,6 +170,95 @@ public class ForegroundServiceModule extends ReactContextBaseJavaModule {
         }
     }
 
+    @ReactMethod
+    public void pauseTimer(Promise promise) {
+        promise.resolve(connection.pauseTimer());
+    }
+
+    @ReactMethod
+    public void resumeTimer(Promise promise) {
+        promise.resolve(connection.resumeTimer());
+    }
+
+    @ReactMethod
+    public void resetTimer(Promise promise) {
+        promise.resolve(connection.resetTimer());
+    }
+
+    @ReactMethod
+    public void setTimerDuration(int duration, Promise promise) {
+        promise.resolve(connection.setTimerDuration(duration));
+    }
+
+    @ReactMethod
+    public void setBlindSchedule(ReadableArray levels, int levelIndex, Promise promise) {
+        try {
+            promise.resolve(connection.setBlindSchedule(toIntArray(levels), levelIndex));
+        } catch (IllegalArgumentException e) {
+            promise.reject("INVALID_SCHEDULE", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void setLevelIndex(int levelIndex, Promise promise) {
+        promise.resolve(connection.setLevelIndex(levelIndex));
+    }
+
+    @ReactMethod
+    public void setClock(String clockId, String name, ReadableArray levels, int levelIndex,
+                         int levelSeconds, Promise promise) {
+        try {
+            promise.resolve(connection.setClock(clockId, name, toIntArray(levels), levelIndex,
+                    levelSeconds));
+        } catch (IllegalArgumentException e) {
+            promise.reject("INVALID_SCHEDULE", e.getMessage());
+        }
+    }
+
+    @ReactMethod
+    public void clockCommand(String clockId, String command, Promise promise) {
+        promise.resolve(connection.clockCommand(clockId, command));
+    }
+
+    @ReactMethod
+    public void getClocks(Promise promise) {
+        if (BuildConfig.TIMER_PROCESS) {
+            promise.reject("TIMER_PROCESS", CLOCKS_IN_TIMER_PROCESS);
+            return;
+        }
+        promise.resolve(clocksToArray(connection.getClocks()));
+    }
+
+    @ReactMethod
+    public void setSyncMode(String mode, Promise promise) {
+        promise.resolve(connection.setSyncMode(mode));
+    }
+
+    // Shared with ForegroundServiceTurboModule
+    public static WritableArray clocksToArray(Map<String, TimerStateSnapshot> clocks) {
+        WritableArray array = Arguments.createArray();
+        for (Map.Entry<String, TimerStateSnapshot> entry : clocks.entrySet()) {
+            WritableMap map = snapshotToMap(entry.getValue());
+            map.putString("clockId", entry.getKey());
+            array.pushMap(map);
+        }
+        return array;
+    }
+
+    // Shared with ForegroundServiceTurboModule
+    public static int[] toIntArray(ReadableArray array) {
+        int[] result = new int[array.size()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = array.getInt(i);
+        }
+        return result;
+    }
+
+    @ReactMethod
+    public void setTimerEventsEnabled(boolean enabled, boolean ticks) {
+        connection.setListener(enabled ? eventEmitter : null, ticks);
+    }
+
     @ReactMethod
     public void isServiceSupported(Promise promise) {
         // Foreground services are supported on all Android versions we target
@@ -191,20 +267,113 @@ public class ForegroundServiceModule extends ReactContextBaseJavaModule {
 
     @ReactMethod
     public void hasNotificationPermission(Promise promise) {
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
-            boolean hasPermission = ContextCompat.checkSelfPermission(reactContext,
-                    Manifest.permission.POST_NOTIFICATIONS) == PackageManager.PERMISSION_GRANTED;
-            promise.resolve(hasPermission);
-        } else {
-            // Pre-Android 13 doesn't require explicit notification permission
-            promise.resolve(true);
-        }
+        promise.resolve(TimerServiceCommands.hasNotificationPermission(reactContext));
     }
 
     @ReactMethod
     public void isServiceRunning(Promise promise) {
-        promise.resolve(isServiceRunning);
+        promise.resolve(connection.isServiceRunning());
+    }
+
+    @ReactMethod
+    public void getServiceState(Promise promise) {
+        promise.resolve(snapshotToMap(connection.getSnapshot()));
+    }
+
+    // Shared with ForegroundServiceTurboModule
+    public static WritableMap snapshotToMap(TimerStateSnapshot snapshot) {
+        WritableMap map = Arguments.createMap();
+        map.putString("tournamentName", snapshot.tournamentName);
+        map.putInt("currentBlindLevel", snapshot.currentBlindLevel);
+        map.putInt("currentSmallBlind", snapshot.currentSmallBlind);
+        map.putInt("currentBigBlind", snapshot.currentBigBlind);
+        map.putInt("nextSmallBlind", snapshot.nextSmallBlind);
+        map.putInt("nextBigBlind", snapshot.nextBigBlind);
+        map.putInt("levelIndex", snapshot.levelIndex);
+        map.putDouble("endTime", snapshot.endTime);
+        map.putInt("timeLeft", snapshot.getTimeLeft(System.currentTimeMillis()));
+        map.putInt("timerDuration", snapshot.timerDuration);
+        map.putBoolean("paused", snapshot.paused);
+        map.putBoolean("expired", snapshot.expired);
+        map.putBoolean("alerting", snapshot.alerting);
+        map.putBoolean("running", snapshot.foreground);
+        return map;
     }
-}
 
+    // Only the timer's own state crosses the Messenger, the clocks would read as none
+    static final String CLOCKS_IN_TIMER_PROCESS = "Clocks live in the :timer process, read them "
+            + "with adb shell dumpsys activity service com.toondeboer.pokerkit/.PokerTimerService";
 
+    // The stats are statics of the process the service runs in. In the :timer
+    // process these would be this process's zeros, so say so instead.
+    private static boolean rejectInTimerProcess(Promise promise) {
+        if (!BuildConfig.TIMER_PROCESS) return false;
+        promise.reject("TIMER_PROCESS", "Service stats live in the :timer process, read them with "
+                + "adb shell dumpsys activity service com.toondeboer.pokerkit/.PokerTimerService");
+        return true;
+    }
+
+    @ReactMethod
+    public void getNotificationStats(Promise promise) {
+        if (rejectInTimerProcess(promise)) return;
+        WritableMap result = Arguments.createMap();
+        result.putMap(NotificationUpdateStats.TICK.getMode(), statsToMap(NotificationUpdateStats.TICK));
+        result.putMap(NotificationUpdateStats.COUNTDOWN.getMode(), statsToMap(NotificationUpdateStats.COUNTDOWN));
+        promise.resolve(result);
+    }
+
+    @ReactMethod
+    public void getMetrics(Promise promise) {
+        if (rejectInTimerProcess(promise)) return;
+        WritableMap result = Arguments.createMap();
+        for (LatencyHistogram histogram : TimerMetrics.getHistograms()) {
+            WritableMap map = Arguments.createMap();
+            map.putDouble("count", histogram.getCount());
+            map.putDouble("meanMs", histogram.getMeanMillis());
+            map.putDouble("p50Ms", histogram.getPercentileMillis(0.5));
+            map.putDouble("p95Ms", histogram.getPercentileMillis(0.95));
+            map.putDouble("p99Ms", histogram.getPercentileMillis(0.99));
+            map.putDouble("maxMs", histogram.getMaxMillis());
+            result.putMap(histogram.getName(), map);
+        }
+        result.putDouble("notificationReposts", TimerMetrics.getNotificationReposts());
+        promise.resolve(result);
+    }
+
+    @ReactMethod
+    public void resetMetrics(Promise promise) {
+        if (rejectInTimerProcess(promise)) return;
+        TimerMetrics.reset();
+        promise.resolve(null);
+    }
+
+    @ReactMethod
+    public void getExpiryLatenessStats(Promise promise) {
+        if (rejectInTimerProcess(promise)) return;
+        WritableMap result = Arguments.createMap();
+        result.putMap(LatenessStats.ALARM_DELIVERY.getName(), latenessToMap(LatenessStats.ALARM_DELIVERY));
+        result.putMap(LatenessStats.EXPIRY.getName(), latenessToMap(LatenessStats.EXPIRY));
+        result.putMap(LatenessStats.ALARM_AUDIO.getName(), latenessToMap(LatenessStats.ALARM_AUDIO));
+        promise.resolve(result);
+    }
+
+    private WritableMap latenessToMap(LatenessStats stats) {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("count", stats.getCount());
+        map.putDouble("meanMs", stats.getMeanMillis());
+        map.putDouble("maxMs", stats.getMaxMillis());
+        map.putDouble("lastMs", stats.getLastMillis());
+        map.putDouble("lateCount", stats.getLateCount());
+        return map;
+    }
+
+    private WritableMap statsToMap(NotificationUpdateStats stats) {
+        WritableMap map = Arguments.createMap();
+        map.putDouble("notificationPosts", stats.getNotificationPosts());
+        map.putDouble("wakeups", stats.getWakeups());
+        map.putDouble("activeMillis", stats.getActiveMillis());
+        map.putDouble("postsPerHour", stats.getPostsPerHour());
+        map.putDouble("wakeupsPerHour", stats.getWakeupsPerHour());
+        return map;
+    }
+}
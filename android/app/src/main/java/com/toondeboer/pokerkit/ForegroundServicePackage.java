@@ -1,27 +1,55 @@
 // android/app/src/main/java/com/toondeboer/pokerkit/ForegroundServicePackage.java
 package com.toondeboer.pokerkit; // Replace with your actual package name
 
-import com.facebook.react.ReactPackage;
+import androidx.annotation.Nullable;
+import com.facebook.react.BaseReactPackage;
 import com.facebook.react.bridge.NativeModule;
 import com.facebook.react.bridge.ReactApplicationContext;
-import com.facebook.react.uimanager.ViewManager;
+import com.facebook.react.module.model.ReactModuleInfo;
+import com.facebook.react.module.model.ReactModuleInfoProvider;
 
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.List;
+import java.util.HashMap;
+import java.util.Map;
 
-public class ForegroundServicePackage implements ReactPackage {
+public class ForegroundServicePackage extends BaseReactPackage {
+    private static final String LEGACY_MODULE_NAME = "RNForegroundService";
+
+    @Nullable
     @Override
-    public List<ViewManager> createViewManagers(ReactApplicationContext reactContext) {
-        return Collections.emptyList();
+    public NativeModule getModule(String name, ReactApplicationContext reactContext) {
+        if (LEGACY_MODULE_NAME.equals(name)) {
+            return new ForegroundServiceModule(reactContext);
+        }
+        if (ForegroundServiceTurboModule.NAME.equals(name) && BuildConfig.IS_NEW_ARCHITECTURE_ENABLED) {
+            return new ForegroundServiceTurboModule(reactContext);
+        }
+        return null;
     }
 
     @Override
-    public List<NativeModule> createNativeModules(ReactApplicationContext reactContext) {
-        List<NativeModule> modules = new ArrayList<>();
-        modules.add(new ForegroundServiceModule(reactContext));
-        return modules;
+    public ReactModuleInfoProvider getReactModuleInfoProvider() {
+        return () -> {
+            Map<String, ReactModuleInfo> moduleInfos = new HashMap<>();
+            // Legacy bridge module, always registered as the fallback
+            moduleInfos.put(LEGACY_MODULE_NAME, new ReactModuleInfo(
+                    LEGACY_MODULE_NAME,
+                    ForegroundServiceModule.class.getName(),
+                    false, // canOverrideExistingModule
+                    false, // needsEagerInit
+                    false, // isCxxModule
+                    false  // isTurboModule
+            ));
+            if (BuildConfig.IS_NEW_ARCHITECTURE_ENABLED) {
+                moduleInfos.put(ForegroundServiceTurboModule.NAME, new ReactModuleInfo(
+                        ForegroundServiceTurboModule.NAME,
+                        ForegroundServiceTurboModule.class.getName(),
+                        false, // canOverrideExistingModule
+                        false, // needsEagerInit
+                        false, // isCxxModule
+                        true   // isTurboModule
+                ));
+            }
+            return moduleInfos;
+        };
     }
 }
-
-
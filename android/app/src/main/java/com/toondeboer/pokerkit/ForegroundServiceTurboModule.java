@@ -0,0 +1,318 @@
+package com.toondeboer.pokerkit;
+
+import androidx.annotation.Nullable;
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.LifecycleEventListener;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableArray;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * New Architecture version of RNForegroundService, generated from
+ * src/specs/NativeForegroundService.ts. Calls are synchronous and typed: no
+ * ReadableMap lookups and no Promise per update.
+ */
+public class ForegroundServiceTurboModule extends NativeForegroundServiceSpec
+        implements LifecycleEventListener {
+    public static final String NAME = NativeForegroundServiceSpec.NAME;
+
+    private static final int ALL_FIELDS = 0xFFFFFFFF;
+
+    private final ReactApplicationContext reactContext;
+    private final TimerServiceConnection connection;
+    private final TimerEventEmitter eventEmitter;
+    private final PersistentStateStore stateStore;
+    // Issued per module instance, so a reloaded JS runtime gets a newer one
+    private final long session = TimerServiceCommands.newSession();
+
+    public ForegroundServiceTurboModule(ReactApplicationContext reactContext) {
+        super(reactContext);
+        this.reactContext = reactContext;
+        this.connection = new TimerServiceConnection(reactContext);
+        this.eventEmitter = new TimerEventEmitter(reactContext);
+        this.stateStore = PersistentStateStore.getInstance(reactContext);
+    }
+
+    @Override
+    public void initialize() {
+        super.initialize();
+        connection.bind();
+        reactContext.addLifecycleEventListener(this);
+    }
+
+    @Override
+    public void invalidate() {
+        reactContext.removeLifecycleEventListener(this);
+        stateStore.flush();
+        connection.unbind();
+        super.invalidate();
+    }
+
+    @Override
+    public void onHostResume() {
+    }
+
+    // Pending state writes go to disk before the process may be killed
+    @Override
+    public void onHostPause() {
+        stateStore.flush();
+    }
+
+    @Override
+    public void onHostDestroy() {
+        stateStore.flush();
+    }
+
+    @Override
+    public boolean startService(double session, int sequence, String tournamentName,
+                                int currentBlindLevel, int currentSmallBlind, int currentBigBlind,
+                                int nextSmallBlind, int nextBigBlind, double endTime, int timeLeft,
+                                boolean paused, boolean shouldAlertOnExpiry, String updateMode,
+                                int timerDuration) {
+        // The service owns the timer, so it runs even without notification permission
+        connection.start(TimerServiceCommands.createPatchIntent(
+                reactContext, PokerTimerService.ACTION_START, (long) session, sequence, ALL_FIELDS,
+                tournamentName, currentBlindLevel, currentSmallBlind, currentBigBlind,
+                nextSmallBlind, nextBigBlind, (long) endTime, timeLeft, paused,
+                shouldAlertOnExpiry, updateMode, timerDuration));
+        return true;
+    }
+
+    @Override
+    public boolean patchService(double session, int sequence, int changedFields,
+                                String tournamentName, int currentBlindLevel, int currentSmallBlind,
+                                int currentBigBlind, int nextSmallBlind, int nextBigBlind,
+                                double endTime, int timeLeft, boolean paused,
+                                boolean shouldAlertOnExpiry, String updateMode,
+                                int timerDuration) {
+        if (!connection.isServiceRunning()) {
+            // If service isn't running, start it instead with the full state
+            return startService(session, sequence, tournamentName, currentBlindLevel,
+                    currentSmallBlind, currentBigBlind, nextSmallBlind, nextBigBlind, endTime,
+                    timeLeft, paused, shouldAlertOnExpiry, updateMode, timerDuration);
+        }
+
+        // Direct call into the service while bound, an Intent otherwise
+        connection.patch((long) session, sequence, changedFields, tournamentName,
+                currentBlindLevel, currentSmallBlind, currentBigBlind, nextSmallBlind,
+                nextBigBlind, (long) endTime, timeLeft, paused, shouldAlertOnExpiry, updateMode,
+                timerDuration);
+        return true;
+    }
+
+    @Override
+    public boolean stopService() {
+        connection.stop();
+        return true;
+    }
+
+    @Override
+    public boolean dismissAlert() {
+        connection.dismissAlert();
+        return true;
+    }
+
+    @Override
+    public boolean pauseTimer() {
+        return connection.pauseTimer();
+    }
+
+    @Override
+    public boolean resumeTimer() {
+        return connection.resumeTimer();
+    }
+
+    @Override
+    public boolean resetTimer() {
+        return connection.resetTimer();
+    }
+
+    @Override
+    public boolean setTimerDuration(int duration) {
+        return connection.setTimerDuration(duration);
+    }
+
+    @Override
+    public boolean setBlindSchedule(ReadableArray levels, int levelIndex) {
+        return connection.setBlindSchedule(ForegroundServiceModule.toIntArray(levels), levelIndex);
+    }
+
+    @Override
+    public boolean setLevelIndex(int levelIndex) {
+        return connection.setLevelIndex(levelIndex);
+    }
+
+    @Override
+    public boolean setClock(String clockId, String name, ReadableArray levels, int levelIndex,
+                            int levelSeconds) {
+        return connection.setClock(clockId, name, ForegroundServiceModule.toIntArray(levels),
+                levelIndex, levelSeconds);
+    }
+
+    @Override
+    public boolean clockCommand(String clockId, String command) {
+        return connection.clockCommand(clockId, command);
+    }
+
+    // Throws in :timer mode, see ForegroundServiceModule.getClocks()
+    @Override
+    public WritableArray getClocks() {
+        if (BuildConfig.TIMER_PROCESS) {
+            throw new UnsupportedOperationException(
+                    ForegroundServiceModule.CLOCKS_IN_TIMER_PROCESS);
+        }
+        return ForegroundServiceModule.clocksToArray(connection.getClocks());
+    }
+
+    @Override
+    public boolean setSyncMode(String mode) {
+        return connection.setSyncMode(mode);
+    }
+
+    @Override
+    public void setTimerEventsEnabled(boolean enabled, boolean ticks) {
+        connection.setListener(enabled ? eventEmitter : null, ticks);
+    }
+
+    @Override
+    public double getSession() {
+        return session;
+    }
+
+    @Override
+    public boolean isServiceSupported() {
+        // Foreground services are supported on all Android versions we target
+        return true;
+    }
+
+    @Override
+    public boolean hasNotificationPermission() {
+        return TimerServiceCommands.hasNotificationPermission(reactContext);
+    }
+
+    @Override
+    public boolean isServiceRunning() {
+        return connection.isServiceRunning();
+    }
+
+    @Override
+    public WritableMap getServiceState() {
+        return ForegroundServiceModule.snapshotToMap(connection.getSnapshot());
+    }
+
+    // One call for the first render: service state plus the persisted app state
+    @Override
+    public WritableMap getStartupState() {
+        WritableMap map = Arguments.createMap();
+        map.putMap("service", getServiceState());
+        WritableMap timer = loadTimerState();
+        if (timer != null) {
+            map.putMap("timer", timer);
+        } else {
+            map.putNull("timer");
+        }
+        WritableMap blinds = loadBlindsState();
+        if (blinds != null) {
+            map.putMap("blinds", blinds);
+        } else {
+            map.putNull("blinds");
+        }
+        return map;
+    }
+
+    @Override
+    public void saveTimerState(double endTime, int timerDuration, boolean paused, int timeLeft,
+                               boolean completed) {
+        stateStore.setTimerState((long) endTime, timerDuration, timeLeft, paused, completed);
+    }
+
+    @Override
+    public void setTimerCompleted(boolean completed) {
+        stateStore.setTimerCompleted(completed);
+    }
+
+    @Nullable
+    @Override
+    public WritableMap loadTimerState() {
+        if (!stateStore.hasTimerState()) {
+            return null;
+        }
+
+        WritableMap map = Arguments.createMap();
+        map.putDouble("endTime", stateStore.getTimerEndTime());
+        map.putInt("timerDuration", stateStore.getTimerDuration());
+        map.putBoolean("paused", stateStore.isTimerPaused());
+        map.putInt("timeLeft", stateStore.getTimerTimeLeft());
+        map.putBoolean("completed", stateStore.isTimerCompleted());
+        return map;
+    }
+
+    @Override
+    public void clearTimerState() {
+        stateStore.clearTimerState();
+    }
+
+    @Override
+    public void saveBlindIndex(int index) {
+        stateStore.setBlindIndex(index);
+    }
+
+    @Override
+    public void saveBlindLevels(ReadableArray levels, ReadableArray customLevels) {
+        stateStore.setBlindLevels(ForegroundServiceModule.toIntArray(levels),
+                ForegroundServiceModule.toIntArray(customLevels));
+    }
+
+    @Nullable
+    @Override
+    public WritableMap loadBlindsState() {
+        if (!stateStore.hasBlindsState()) {
+            return null;
+        }
+
+        WritableMap map = Arguments.createMap();
+        map.putInt("currentBlindIndex", stateStore.getBlindIndex());
+        map.putArray("blindLevels", toWritableArray(stateStore.getBlindLevels()));
+        map.putArray("customBlindLevels", toWritableArray(stateStore.getCustomBlindLevels()));
+        return map;
+    }
+
+    @Override
+    public void clearBlindsState() {
+        stateStore.clearBlindsState();
+    }
+
+    @Override
+    public void flushState() {
+        stateStore.flush();
+    }
+
+    @Override
+    public void prepareAlarm() {
+        connection.prepareAlarm();
+    }
+
+    @Override
+    public void playAlarm() {
+        connection.playAlarm();
+    }
+
+    @Override
+    public void stopAlarm() {
+        connection.stopAlarm();
+    }
+
+    @Override
+    public boolean isAlarmPlaying() {
+        return connection.isAlarmPlaying();
+    }
+
+    private static WritableArray toWritableArray(int[] values) {
+        WritableArray array = Arguments.createArray();
+        for (int value : values) {
+            array.pushInt(value);
+        }
+        return array;
+    }
+}
@@ -0,0 +1,149 @@
+package com.toondeboer.pokerkit;
+
+import android.content.Context;
+import android.net.wifi.WifiManager;
+import android.os.Handler;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.MulticastSocket;
+
+/**
+ * Host/follower mode of PokerTimerService for rooms with many tables: one
+ * device hosts and every other device follows its clock over the local
+ * network, see ClockSyncHost and ClockSyncFollower in :timer-core.
+ *
+ * Frames go to an administratively scoped multicast group with a TTL of 1,
+ * so they never leave the LAN. Android drops multicast on Wi-Fi unless a
+ * MulticastLock is held, which both sides need: followers for the state
+ * frames, the host for the pings followers send before they know its address.
+ *
+ * Runs on the service's worker thread; follower states are posted back to it.
+ */
+public class LanClockSync {
+    public static final String MODE_OFF = "off";
+    public static final String MODE_HOST = "host";
+    public static final String MODE_FOLLOW = "follow";
+
+    public static final String GROUP = "239.255.42.99";
+    public static final int PORT = 47999;
+
+    /** Receives the host's state while following, on the worker thread. */
+    public interface Callback {
+        void onHostState(TimerStateSnapshot state);
+    }
+
+    private final Context context;
+    private final Handler handler;
+    private final TimerCore.Clock clock;
+    private final Callback callback;
+
+    private String mode = MODE_OFF;
+    private WifiManager.MulticastLock multicastLock;
+    private ClockSyncHost host;
+    private ClockSyncFollower follower;
+
+    public LanClockSync(Context context, Handler handler, TimerCore.Clock clock, Callback callback) {
+        this.context = context;
+        this.handler = handler;
+        this.clock = clock;
+        this.callback = callback;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public boolean isFollowing() {
+        return follower != null;
+    }
+
+    // Returns whether the mode is now active, false for unknown modes or without a network
+    public boolean setMode(String newMode) {
+        if (newMode.equals(mode)) return true;
+
+        stop();
+        if (MODE_OFF.equals(newMode)) return true;
+        if (!MODE_HOST.equals(newMode) && !MODE_FOLLOW.equals(newMode)) return false;
+
+        MulticastSocket socket;
+        InetSocketAddress group;
+        try {
+            InetAddress groupAddress = InetAddress.getByName(GROUP);
+            group = new InetSocketAddress(groupAddress, PORT);
+            socket = new MulticastSocket(PORT);
+            socket.setTimeToLive(1);
+            socket.joinGroup(groupAddress);
+        } catch (IOException e) {
+            return false;
+        }
+
+        acquireMulticastLock();
+        if (MODE_HOST.equals(newMode)) {
+            host = new ClockSyncHost(socket, group, clock);
+            host.start();
+        } else {
+            follower = new ClockSyncFollower(socket, group, clock,
+                    new ClockSyncFollower.Listener() {
+                        @Override
+                        public void onHostState(final TimerStateSnapshot state) {
+                            handler.post(new Runnable() {
+                                @Override
+                                public void run() {
+                                    if (follower != null) {
+                                        callback.onHostState(state);
+                                    }
+                                }
+                            });
+                        }
+                    });
+            follower.start();
+        }
+        mode = newMode;
+        return true;
+    }
+
+    // Sends the snapshot while hosting, the host skips it if nothing a follower shows changed
+    public void publish(TimerStateSnapshot snapshot) {
+        if (host != null) {
+            host.publish(snapshot);
+        }
+    }
+
+    public void stop() {
+        if (host != null) {
+            host.close();
+            host = null;
+        }
+        if (follower != null) {
+            follower.close();
+            follower = null;
+        }
+        if (multicastLock != null && multicastLock.isHeld()) {
+            multicastLock.release();
+        }
+        mode = MODE_OFF;
+    }
+
+    public void dump(PrintWriter writer) {
+        writer.print("Sync: mode=" + mode);
+        if (host != null) {
+            writer.print(" " + host.describe());
+        } else if (follower != null) {
+            writer.print(" " + follower.describe());
+        }
+        writer.println();
+    }
+
+    private void acquireMulticastLock() {
+        if (multicastLock == null) {
+            WifiManager wifi = (WifiManager) context.getApplicationContext()
+                    .getSystemService(Context.WIFI_SERVICE);
+            if (wifi == null) return;
+            multicastLock = wifi.createMulticastLock("PokerTimer:sync");
+            multicastLock.setReferenceCounted(false);
+        }
+        multicastLock.acquire();
+    }
+}
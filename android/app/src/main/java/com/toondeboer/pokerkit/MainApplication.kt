@@ -3,6 +3,7 @@ package com.toondeboer.pokerkit
 
 import android.app.Application
 import android.content.res.Configuration
+import android.os.Build
 
 import com.facebook.react.PackageList
 import com.facebook.react.ReactApplication
@@ -44,6 +45,8 @@ class MainApplication : Application(), ReactApplication {
 
     override fun onCreate() {
         super.onCreate()
+        // The :timer process only hosts PokerTimerService, keep React Native out of it
+        if (isTimerProcess()) return
         SoLoader.init(this, OpenSourceMergedSoMapping)
         if (BuildConfig.IS_NEW_ARCHITECTURE_ENABLED) {
             // If you opted-in for the New Architecture, we load the native entry point for this app.
@@ -54,6 +57,12 @@ class MainApplication : Application(), ReactApplication {
 
     override fun onConfigurationChanged(newConfig: Configuration) {
         super.onConfigurationChanged(newConfig)
+        if (isTimerProcess()) return
         ApplicationLifecycleDispatcher.onConfigurationChanged(this, newConfig)
     }
+
+    // Before API 28 the process name isn't available, those keep the full setup
+    private fun isTimerProcess(): Boolean =
+        BuildConfig.TIMER_PROCESS && Build.VERSION.SDK_INT >= Build.VERSION_CODES.P &&
+            getProcessName().endsWith(":timer")
 }
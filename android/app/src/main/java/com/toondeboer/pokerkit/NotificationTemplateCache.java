@@ -0,0 +1,361 @@
+package com.toondeboer.pokerkit;
+
+import android.app.PendingIntent;
+import android.content.Context;
+import android.content.Intent;
+import android.graphics.Bitmap;
+import android.graphics.BitmapFactory;
+import androidx.core.app.NotificationCompat;
+import java.util.Objects;
+
+/**
+ * Holds everything about the timer notifications that does not change between
+ * updates: icons, PendingIntents and one builder per channel. Resolved once per
+ * service lifetime so an update only has to set the visible fields.
+ *
+ * Also remembers the last posted visible fields so unchanged updates can skip
+ * notify() entirely. TournamentClocks shares the icons, the content intent
+ * and its own builders, with one VisibleFields per clock.
+ */
+public class NotificationTemplateCache {
+    // Buttons of the timer notification, as a mask for setTimerActions()
+    public static final int TIMER_ACTION_PAUSE = 1;
+    public static final int TIMER_ACTION_RESUME = 1 << 1;
+    public static final int TIMER_ACTION_PREVIOUS_LEVEL = 1 << 2;
+    public static final int TIMER_ACTION_NEXT_LEVEL = 1 << 3;
+
+    private final Context context;
+    private final String timerChannelId;
+    private final String alertChannelId;
+
+    private int smallIcon = 0;
+    private Bitmap largeIcon;
+    private boolean largeIconResolved = false;
+    private PendingIntent contentIntent;
+    private PendingIntent openAppIntent;
+    private PendingIntent dismissAlertIntent;
+    private PendingIntent pauseIntent;
+    private PendingIntent resumeIntent;
+    private PendingIntent previousLevelIntent;
+    private PendingIntent nextLevelIntent;
+    private NotificationCompat.Builder timerBuilder;
+    private NotificationCompat.BigTextStyle timerStyle;
+    private NotificationCompat.Builder alertBuilder;
+    private NotificationCompat.BigTextStyle alertStyle;
+    private NotificationCompat.Builder clockBuilder;
+    private NotificationCompat.Builder clockAlertBuilder;
+    private NotificationCompat.Builder clockSummaryBuilder;
+
+    private final VisibleFields timerFields = new VisibleFields();
+
+    /**
+     * Last posted visible fields of one notification. Copies into
+     * preallocated buffers, so the formatter's reusable CharSequences can be
+     * passed in directly.
+     */
+    public static class VisibleFields {
+        private String lastTitle;
+        private final StringBuilder lastContent = new StringBuilder(128);
+        private final StringBuilder lastBigText = new StringBuilder(256);
+        private int lastColor;
+        private long lastChronometerBase;
+        private int lastActions;
+        private boolean hasPosted = false;
+
+        // Records the fields and returns whether they differ from the last posted ones
+        public boolean update(String title, CharSequence content, CharSequence bigText,
+                              int color, long chronometerBase, int actions) {
+            if (hasPosted
+                    && color == lastColor
+                    && chronometerBase == lastChronometerBase
+                    && actions == lastActions
+                    && Objects.equals(title, lastTitle)
+                    && contentEquals(lastContent, content)
+                    && contentEquals(lastBigText, bigText)) {
+                return false;
+            }
+
+            lastTitle = title;
+            lastContent.setLength(0);
+            lastContent.append(content);
+            lastBigText.setLength(0);
+            lastBigText.append(bigText);
+            lastColor = color;
+            lastChronometerBase = chronometerBase;
+            lastActions = actions;
+            hasPosted = true;
+            return true;
+        }
+
+        // Forces the next update to be posted
+        public void invalidate() {
+            hasPosted = false;
+        }
+    }
+
+    public NotificationTemplateCache(Context context, String timerChannelId, String alertChannelId) {
+        this.context = context;
+        this.timerChannelId = timerChannelId;
+        this.alertChannelId = alertChannelId;
+    }
+
+    public int getSmallIcon() {
+        if (smallIcon == 0) {
+            smallIcon = resolveSmallIcon();
+        }
+        return smallIcon;
+    }
+
+    public Bitmap getLargeIcon() {
+        if (!largeIconResolved) {
+            largeIconResolved = true;
+            try {
+                largeIcon = BitmapFactory.decodeResource(context.getResources(), R.mipmap.ic_launcher);
+            } catch (Exception e) {
+                // No large icon, that's fine
+                largeIcon = null;
+            }
+        }
+        return largeIcon;
+    }
+
+    public PendingIntent getContentIntent() {
+        if (contentIntent == null) {
+            contentIntent = createOpenAppIntent(context, 0);
+        }
+        return contentIntent;
+    }
+
+    public PendingIntent getOpenAppIntent() {
+        if (openAppIntent == null) {
+            openAppIntent = createOpenAppIntent(context, 2);
+        }
+        return openAppIntent;
+    }
+
+    public PendingIntent getDismissAlertIntent() {
+        if (dismissAlertIntent == null) {
+            Intent dismissIntent = new Intent(context, PokerTimerService.class);
+            dismissIntent.setAction(PokerTimerService.ACTION_DISMISS_ALERT);
+            dismissAlertIntent = PendingIntent.getService(
+                    context,
+                    1,
+                    dismissIntent,
+                    PendingIntent.FLAG_IMMUTABLE
+            );
+        }
+        return dismissAlertIntent;
+    }
+
+    // Extras change with every alert, so the PendingIntent is updated each time
+    public PendingIntent getExpiryAlertIntent(Intent alertIntent) {
+        return PendingIntent.getActivity(
+                context,
+                8,
+                alertIntent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    /**
+     * Replaces the buttons on the timer builder. They are handled by the
+     * service itself, so a tap never has to start React Native.
+     */
+    public void setTimerActions(NotificationCompat.Builder builder, int actions) {
+        builder.clearActions();
+        if ((actions & TIMER_ACTION_PREVIOUS_LEVEL) != 0) {
+            if (previousLevelIntent == null) {
+                previousLevelIntent = createServiceIntent(PokerTimerService.ACTION_PREVIOUS_LEVEL, 4);
+            }
+            builder.addAction(android.R.drawable.ic_media_previous, "−1 Level", previousLevelIntent);
+        }
+        if ((actions & TIMER_ACTION_PAUSE) != 0) {
+            if (pauseIntent == null) {
+                pauseIntent = createServiceIntent(PokerTimerService.ACTION_PAUSE, 5);
+            }
+            builder.addAction(android.R.drawable.ic_media_pause, "Pause", pauseIntent);
+        }
+        if ((actions & TIMER_ACTION_RESUME) != 0) {
+            if (resumeIntent == null) {
+                resumeIntent = createServiceIntent(PokerTimerService.ACTION_RESUME, 6);
+            }
+            builder.addAction(android.R.drawable.ic_media_play, "Resume", resumeIntent);
+        }
+        if ((actions & TIMER_ACTION_NEXT_LEVEL) != 0) {
+            if (nextLevelIntent == null) {
+                nextLevelIntent = createServiceIntent(PokerTimerService.ACTION_NEXT_LEVEL, 7);
+            }
+            builder.addAction(android.R.drawable.ic_media_next, "+1 Level", nextLevelIntent);
+        }
+    }
+
+    /**
+     * Builder for the ongoing timer notification with all static fields set.
+     * Callers set the visible fields (and the chronometer fields) on every use.
+     */
+    public NotificationCompat.Builder getTimerBuilder() {
+        if (timerBuilder == null) {
+            timerStyle = new NotificationCompat.BigTextStyle();
+            timerBuilder = new NotificationCompat.Builder(context, timerChannelId)
+                    .setSmallIcon(getSmallIcon())
+                    .setOngoing(true)
+                    .setContentIntent(getContentIntent())
+                    .setCategory(NotificationCompat.CATEGORY_SERVICE)
+                    .setPriority(NotificationCompat.PRIORITY_LOW)
+                    .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                    .setColorized(false)
+                    .setOnlyAlertOnce(true); // Don't repeatedly alert for updates
+
+            Bitmap icon = getLargeIcon();
+            if (icon != null) {
+                timerBuilder.setLargeIcon(icon);
+            }
+        }
+        return timerBuilder;
+    }
+
+    public NotificationCompat.BigTextStyle getTimerStyle() {
+        getTimerBuilder();
+        return timerStyle;
+    }
+
+    public NotificationCompat.Builder getAlertBuilder() {
+        if (alertBuilder == null) {
+            alertStyle = new NotificationCompat.BigTextStyle();
+            alertBuilder = new NotificationCompat.Builder(context, alertChannelId)
+                    .setSmallIcon(getSmallIcon())
+                    .setPriority(NotificationCompat.PRIORITY_HIGH)
+                    .setCategory(NotificationCompat.CATEGORY_ALARM)
+                    .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
+                    .setAutoCancel(false)
+                    .setOngoing(true)
+                    .setContentIntent(getOpenAppIntent())
+                    .addAction(R.drawable.ic_notification_clear, "Dismiss", getDismissAlertIntent())
+                    .setFullScreenIntent(getOpenAppIntent(), true)
+                    .setColor(0xFFDC2626) // Red for urgency
+                    .setColorized(true)
+                    .setDefaults(NotificationCompat.DEFAULT_ALL);
+        }
+        return alertBuilder;
+    }
+
+    public NotificationCompat.BigTextStyle getAlertStyle() {
+        getAlertBuilder();
+        return alertStyle;
+    }
+
+    /**
+     * Builder for a TournamentClocks clock, on the alert channel for an
+     * expiry or level advance so that post sounds once. Callers set the
+     * visible fields, the sort key and the chronometer fields on every use.
+     */
+    public NotificationCompat.Builder getClockBuilder(boolean alert, String group) {
+        if (alert) {
+            if (clockAlertBuilder == null) {
+                clockAlertBuilder = createClockBuilder(alertChannelId, group)
+                        .setOnlyAlertOnce(false)
+                        .setCategory(NotificationCompat.CATEGORY_ALARM)
+                        .setPriority(NotificationCompat.PRIORITY_HIGH);
+            }
+            return clockAlertBuilder;
+        }
+        if (clockBuilder == null) {
+            clockBuilder = createClockBuilder(timerChannelId, group)
+                    .setOnlyAlertOnce(true)
+                    .setCategory(NotificationCompat.CATEGORY_SERVICE)
+                    .setPriority(NotificationCompat.PRIORITY_LOW);
+        }
+        return clockBuilder;
+    }
+
+    // InboxStyle summary of the clocks' group, callers set the title and style
+    public NotificationCompat.Builder getClockSummaryBuilder(String group) {
+        if (clockSummaryBuilder == null) {
+            clockSummaryBuilder = new NotificationCompat.Builder(context, timerChannelId)
+                    .setSmallIcon(getSmallIcon())
+                    .setContentIntent(getContentIntent())
+                    .setGroup(group)
+                    .setGroupSummary(true)
+                    .setOngoing(true)
+                    .setOnlyAlertOnce(true)
+                    .setPriority(NotificationCompat.PRIORITY_LOW);
+        }
+        return clockSummaryBuilder;
+    }
+
+    /**
+     * Records the visible fields of the timer notification and returns whether
+     * they differ from the last posted ones.
+     */
+    public boolean updateVisibleFields(String title, CharSequence content, CharSequence bigText,
+                                       int color, long chronometerBase, int actions) {
+        return timerFields.update(title, content, bigText, color, chronometerBase, actions);
+    }
+
+    // Forces the next update to be posted, e.g. after the notification was removed
+    public void invalidate() {
+        timerFields.invalidate();
+    }
+
+    private NotificationCompat.Builder createClockBuilder(String channelId, String group) {
+        return new NotificationCompat.Builder(context, channelId)
+                .setSmallIcon(getSmallIcon())
+                .setContentIntent(getContentIntent())
+                .setOngoing(true)
+                .setGroup(group);
+    }
+
+    private static boolean contentEquals(StringBuilder last, CharSequence current) {
+        int length = last.length();
+        if (length != current.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (last.charAt(i) != current.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    private PendingIntent createServiceIntent(String action, int requestCode) {
+        Intent intent = TimerServiceCommands.createIntent(context, action);
+        return PendingIntent.getService(context, requestCode, intent, PendingIntent.FLAG_IMMUTABLE);
+    }
+
+    // Brings the app to the front, also used by TimerWidgetProvider
+    static PendingIntent createOpenAppIntent(Context context, int requestCode) {
+        Intent intent = new Intent(context, MainActivity.class);
+        intent.setFlags(
+                Intent.FLAG_ACTIVITY_CLEAR_TOP |
+                        Intent.FLAG_ACTIVITY_SINGLE_TOP |
+                        Intent.FLAG_ACTIVITY_NEW_TASK
+        );
+        return PendingIntent.getActivity(
+                context,
+                requestCode,
+                intent,
+                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
+        );
+    }
+
+    private int resolveSmallIcon() {
+        // Try to use custom poker icons first, fall back gracefully
+        try {
+            // Try poker chip icon first (most thematic)
+            context.getResources().getDrawable(R.drawable.ic_poker_chip);
+            return R.drawable.ic_poker_chip;
+        } catch (Exception e1) {
+            try {
+                // Try poker timer icon
+                context.getResources().getDrawable(R.drawable.ic_poker_timer);
+                return R.drawable.ic_poker_timer;
+            } catch (Exception e2) {
+                try {
+                    // Try app launcher icon
+                    context.getResources().getDrawable(R.mipmap.ic_launcher);
+                    return R.mipmap.ic_launcher;
+                } catch (Exception e3) {
+                    // Fall back to system timer icon
+                    return android.R.drawable.ic_dialog_info;
+                }
+            }
+        }
+    }
+}
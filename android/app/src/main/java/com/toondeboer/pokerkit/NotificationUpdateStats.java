@@ -0,0 +1,91 @@
+package com.toondeboer.pokerkit;
+
+import android.os.SystemClock;
+
+/**
+ * Counts notification posts and service wakeups for one update mode, so the
+ * cost of the per-second tick can be compared against the event-driven
+ * countdown mode.
+ */
+public class NotificationUpdateStats {
+    public static final NotificationUpdateStats TICK = new NotificationUpdateStats("tick");
+    public static final NotificationUpdateStats COUNTDOWN = new NotificationUpdateStats("countdown");
+
+    private static final double MILLIS_PER_HOUR = 60 * 60 * 1000;
+
+    private final String mode;
+    private long notificationPosts = 0;
+    private long wakeups = 0;
+    private long activeMillis = 0;
+    private long activeSince = -1;
+
+    private NotificationUpdateStats(String mode) {
+        this.mode = mode;
+    }
+
+    public static NotificationUpdateStats forMode(boolean countdownMode) {
+        return countdownMode ? COUNTDOWN : TICK;
+    }
+
+    public String getMode() {
+        return mode;
+    }
+
+    public synchronized void recordPost() {
+        notificationPosts++;
+    }
+
+    public synchronized void recordWakeup() {
+        wakeups++;
+    }
+
+    // Active time is only accumulated while the timer is running in this mode
+    public synchronized void markActive() {
+        if (activeSince < 0) {
+            activeSince = SystemClock.elapsedRealtime();
+        }
+    }
+
+    public synchronized void markInactive() {
+        if (activeSince >= 0) {
+            activeMillis += SystemClock.elapsedRealtime() - activeSince;
+            activeSince = -1;
+        }
+    }
+
+    public synchronized long getNotificationPosts() {
+        return notificationPosts;
+    }
+
+    public synchronized long getWakeups() {
+        return wakeups;
+    }
+
+    public synchronized long getActiveMillis() {
+        if (activeSince >= 0) {
+            return activeMillis + (SystemClock.elapsedRealtime() - activeSince);
+        }
+        return activeMillis;
+    }
+
+    public synchronized double getPostsPerHour() {
+        return perHour(notificationPosts);
+    }
+
+    public synchronized double getWakeupsPerHour() {
+        return perHour(wakeups);
+    }
+
+    public synchronized void reset() {
+        notificationPosts = 0;
+        wakeups = 0;
+        activeMillis = 0;
+        activeSince = activeSince >= 0 ? SystemClock.elapsedRealtime() : -1;
+    }
+
+    private double perHour(long count) {
+        long millis = getActiveMillis();
+        if (millis <= 0) return 0;
+        return count * MILLIS_PER_HOUR / millis;
+    }
+}
@@ -0,0 +1,293 @@
+package com.toondeboer.pokerkit;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * The app's timer and blinds state, replacing AsyncStorage on Android.
+ *
+ * Writes only change the in-memory records; they reach disk in one file
+ * write after WRITE_BEHIND_DELAY_MS, so a burst of saves (editing a blind
+ * structure) costs one write. flush() writes right away and is called when
+ * the app goes to the background. Blind structures are stored as packed
+ * BlindSchedule records, not JSON.
+ */
+public final class PersistentStateStore {
+    private static final String FILE_NAME = "poker_app_state.bin";
+    private static final int MAGIC = 0x504B4153; // "PKAS"
+    private static final int VERSION = 1;
+    private static final long WRITE_BEHIND_DELAY_MS = 2000;
+
+    private static final int FLAG_HAS_TIMER = 1;
+    private static final int FLAG_HAS_BLINDS = 1 << 1;
+    private static final int FLAG_TIMER_PAUSED = 1 << 2;
+    private static final int FLAG_TIMER_COMPLETED = 1 << 3;
+
+    private static PersistentStateStore instance;
+
+    private final AtomicFile file;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor();
+    private ScheduledFuture<?> pendingWrite;
+    private boolean dirty = false;
+
+    // Timer record
+    private boolean hasTimerState = false;
+    private long timerEndTime = 0;
+    private int timerDuration = 0;
+    private int timerTimeLeft = 0;
+    private boolean timerPaused = true;
+    private boolean timerCompleted = false;
+
+    // Blinds record, levels packed as in BlindSchedule
+    private boolean hasBlindsState = false;
+    private int blindIndex = 0;
+    private int[] blindLevels = new int[0];
+    private int[] customBlindLevels = new int[0];
+
+    private final Runnable writeRunnable = new Runnable() {
+        @Override
+        public void run() {
+            write();
+        }
+    };
+
+    private PersistentStateStore(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+        load();
+    }
+
+    public static synchronized PersistentStateStore getInstance(Context context) {
+        if (instance == null) {
+            instance = new PersistentStateStore(context.getApplicationContext());
+        }
+        return instance;
+    }
+
+    public synchronized boolean hasTimerState() {
+        return hasTimerState;
+    }
+
+    public synchronized long getTimerEndTime() {
+        return timerEndTime;
+    }
+
+    public synchronized int getTimerDuration() {
+        return timerDuration;
+    }
+
+    public synchronized int getTimerTimeLeft() {
+        return timerTimeLeft;
+    }
+
+    public synchronized boolean isTimerPaused() {
+        return timerPaused;
+    }
+
+    public synchronized boolean isTimerCompleted() {
+        return timerCompleted;
+    }
+
+    public synchronized void setTimerState(long endTime, int duration, int timeLeft,
+                                           boolean paused, boolean completed) {
+        if (hasTimerState && endTime == timerEndTime && duration == timerDuration
+                && timeLeft == timerTimeLeft && paused == timerPaused
+                && completed == timerCompleted) {
+            return;
+        }
+        hasTimerState = true;
+        timerEndTime = endTime;
+        timerDuration = duration;
+        timerTimeLeft = timeLeft;
+        timerPaused = paused;
+        timerCompleted = completed;
+        markDirty();
+    }
+
+    public synchronized void setTimerCompleted(boolean completed) {
+        if (!hasTimerState || completed == timerCompleted) return;
+        timerCompleted = completed;
+        markDirty();
+    }
+
+    public synchronized void clearTimerState() {
+        if (!hasTimerState) return;
+        hasTimerState = false;
+        markDirty();
+    }
+
+    public synchronized boolean hasBlindsState() {
+        return hasBlindsState;
+    }
+
+    public synchronized int getBlindIndex() {
+        return blindIndex;
+    }
+
+    public synchronized int[] getBlindLevels() {
+        return blindLevels.clone();
+    }
+
+    public synchronized int[] getCustomBlindLevels() {
+        return customBlindLevels.clone();
+    }
+
+    public synchronized void setBlindIndex(int index) {
+        if (hasBlindsState && index == blindIndex) return;
+        hasBlindsState = true;
+        blindIndex = index;
+        markDirty();
+    }
+
+    public synchronized void setBlindLevels(int[] levels, int[] customLevels) {
+        if (hasBlindsState && Arrays.equals(levels, blindLevels)
+                && Arrays.equals(customLevels, customBlindLevels)) {
+            return;
+        }
+        hasBlindsState = true;
+        blindLevels = levels.clone();
+        customBlindLevels = customLevels.clone();
+        markDirty();
+    }
+
+    public synchronized void clearBlindsState() {
+        if (!hasBlindsState) return;
+        hasBlindsState = false;
+        markDirty();
+    }
+
+    // Writes pending changes now instead of after the write-behind delay
+    public synchronized void flush() {
+        if (!dirty) return;
+        if (pendingWrite != null) {
+            pendingWrite.cancel(false);
+        }
+        pendingWrite = writer.schedule(writeRunnable, 0, TimeUnit.MILLISECONDS);
+    }
+
+    private void markDirty() {
+        dirty = true;
+        if (pendingWrite == null || pendingWrite.isDone()) {
+            pendingWrite = writer.schedule(writeRunnable, WRITE_BEHIND_DELAY_MS,
+                    TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // On the writer thread
+    private void write() {
+        byte[] data;
+        synchronized (this) {
+            if (!dirty) return;
+            dirty = false;
+            data = encode();
+        }
+
+        FileOutputStream out = null;
+        try {
+            out = file.startWrite();
+            out.write(data);
+            file.finishWrite(out);
+        } catch (IOException e) {
+            if (out != null) {
+                file.failWrite(out);
+            }
+            e.printStackTrace();
+        }
+    }
+
+    private byte[] encode() {
+        ByteBuffer buffer = ByteBuffer.allocate(4 * 4 + 8 + 4 * 3 + 4 * 3
+                + (blindLevels.length + customBlindLevels.length) * 4 + 8);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt((hasTimerState ? FLAG_HAS_TIMER : 0)
+                | (hasBlindsState ? FLAG_HAS_BLINDS : 0)
+                | (timerPaused ? FLAG_TIMER_PAUSED : 0)
+                | (timerCompleted ? FLAG_TIMER_COMPLETED : 0));
+        buffer.putInt(0); // Reserved
+        buffer.putLong(timerEndTime);
+        buffer.putInt(timerDuration);
+        buffer.putInt(timerTimeLeft);
+        buffer.putInt(blindIndex);
+        putInts(buffer, blindLevels);
+        putInts(buffer, customBlindLevels);
+        buffer.putInt(0); // Reserved
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        return buffer.array();
+    }
+
+    private void load() {
+        byte[] data;
+        try {
+            data = file.readFully();
+        } catch (FileNotFoundException e) {
+            return;
+        } catch (IOException e) {
+            e.printStackTrace();
+            return;
+        }
+
+        try {
+            decode(data);
+        } catch (RuntimeException e) {
+            // Unreadable file, start over with empty records
+            hasTimerState = false;
+            hasBlindsState = false;
+            e.printStackTrace();
+        }
+    }
+
+    private void decode(byte[] data) {
+        if (data.length < 8) return;
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 8);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (buffer.getLong(data.length - 8) != crc.getValue()
+                || buffer.getInt() != MAGIC
+                || buffer.getInt() != VERSION) {
+            return;
+        }
+
+        int flags = buffer.getInt();
+        buffer.getInt();
+        timerEndTime = buffer.getLong();
+        timerDuration = buffer.getInt();
+        timerTimeLeft = buffer.getInt();
+        blindIndex = buffer.getInt();
+        blindLevels = getInts(buffer);
+        customBlindLevels = getInts(buffer);
+        timerPaused = (flags & FLAG_TIMER_PAUSED) != 0;
+        timerCompleted = (flags & FLAG_TIMER_COMPLETED) != 0;
+        hasTimerState = (flags & FLAG_HAS_TIMER) != 0;
+        hasBlindsState = (flags & FLAG_HAS_BLINDS) != 0;
+    }
+
+    private static void putInts(ByteBuffer buffer, int[] values) {
+        buffer.putInt(values.length);
+        for (int value : values) {
+            buffer.putInt(value);
+        }
+    }
+
+    private static int[] getInts(ByteBuffer buffer) {
+        int[] values = new int[buffer.getInt()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = buffer.getInt();
+        }
+        return values;
+    }
+}
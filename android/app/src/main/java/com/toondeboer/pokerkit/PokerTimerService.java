@@ -5,21 +5,28 @@ import android.app.NotificationChannel;
 import android.app.NotificationManager;
 import android.app.PendingIntent;
 import android.app.Service;
+import android.content.BroadcastReceiver;
 import android.content.Context;
 import android.content.Intent;
+import android.content.IntentFilter;
 import android.graphics.Color;
-import android.media.AudioAttributes;
-import android.media.MediaPlayer;
-import android.media.RingtoneManager;
-import android.net.Uri;
+import android.os.Binder;
 import android.os.Build;
+import android.os.Debug;
 import android.os.IBinder;
+import android.os.PowerManager;
 import android.os.VibrationEffect;
 import android.os.Vibrator;
 import androidx.core.app.NotificationCompat;
+import androidx.core.content.ContextCompat;
 import androidx.annotation.Nullable;
 import android.os.Handler;
-import android.os.Looper;
+import android.os.HandlerThread;
+import android.os.Process;
+import android.os.SystemClock;
+import java.io.FileDescriptor;
+import java.io.PrintWriter;
+import java.util.Map;
 
 public class PokerTimerService extends Service {
     // Intent extras
@@ -33,12 +40,76 @@ public class PokerTimerService extends Service {
     public static final String EXTRA_TIME_LEFT = "timeLeft";
     public static final String EXTRA_PAUSED = "paused";
     public static final String EXTRA_SHOULD_ALERT_ON_EXPIRY = "shouldAlertOnExpiry";
+    public static final String EXTRA_UPDATE_MODE = "updateMode";
+    public static final String EXTRA_TIMER_DURATION = "timerDuration";
+    public static final String EXTRA_BLIND_SCHEDULE = "blindSchedule";
+    public static final String EXTRA_LEVEL_INDEX = "levelIndex";
+    public static final String EXTRA_SESSION = "session";
+    public static final String EXTRA_SEQUENCE = "sequence";
+    public static final String EXTRA_CLOCK_ID = "clockId";
+    public static final String EXTRA_CLOCK_COMMAND = "clockCommand";
+    public static final String EXTRA_SYNC_MODE = "syncMode";
+    // SystemClock.elapsedRealtimeNanos() when the Intent was sent, see TimerMetrics
+    public static final String EXTRA_SENT_AT = "sentAt";
+
+    // Patch fields, also used as bit positions in the TurboModule's changed-field mask
+    public static final int FIELD_TOURNAMENT_NAME = 0;
+    public static final int FIELD_CURRENT_BLIND_LEVEL = 1;
+    public static final int FIELD_CURRENT_SMALL_BLIND = 2;
+    public static final int FIELD_CURRENT_BIG_BLIND = 3;
+    public static final int FIELD_NEXT_SMALL_BLIND = 4;
+    public static final int FIELD_NEXT_BIG_BLIND = 5;
+    public static final int FIELD_END_TIME = 6;
+    public static final int FIELD_TIME_LEFT = 7;
+    public static final int FIELD_PAUSED = 8;
+    public static final int FIELD_SHOULD_ALERT_ON_EXPIRY = 9;
+    public static final int FIELD_UPDATE_MODE = 10;
+    public static final int FIELD_TIMER_DURATION = 11;
+    private static final int FIELD_COUNT = 12;
+    private static final int ALL_FIELDS = (1 << FIELD_COUNT) - 1;
+    private static final int LEVEL_FIELDS = (1 << FIELD_CURRENT_BLIND_LEVEL)
+            | (1 << FIELD_CURRENT_SMALL_BLIND) | (1 << FIELD_CURRENT_BIG_BLIND)
+            | (1 << FIELD_NEXT_SMALL_BLIND) | (1 << FIELD_NEXT_BIG_BLIND);
+    // Fields a sync host decides for its followers
+    private static final int HOST_FIELDS = LEVEL_FIELDS | (1 << FIELD_END_TIME)
+            | (1 << FIELD_TIME_LEFT) | (1 << FIELD_PAUSED) | (1 << FIELD_TIMER_DURATION);
+    private static final String[] FIELD_EXTRAS = {
+            EXTRA_TOURNAMENT_NAME, EXTRA_CURRENT_BLIND_LEVEL, EXTRA_CURRENT_SMALL_BLIND,
+            EXTRA_CURRENT_BIG_BLIND, EXTRA_NEXT_SMALL_BLIND, EXTRA_NEXT_BIG_BLIND,
+            EXTRA_END_TIME, EXTRA_TIME_LEFT, EXTRA_PAUSED, EXTRA_SHOULD_ALERT_ON_EXPIRY,
+            EXTRA_UPDATE_MODE, EXTRA_TIMER_DURATION,
+    };
+
+    // Update modes
+    public static final String UPDATE_MODE_COUNTDOWN = "countdown";
+    public static final String UPDATE_MODE_TICK = "tick";
 
     // Actions
     public static final String ACTION_START = "START_TIMER_SERVICE";
     public static final String ACTION_UPDATE = "UPDATE_TIMER_SERVICE";
     public static final String ACTION_STOP = "STOP_TIMER_SERVICE";
     public static final String ACTION_DISMISS_ALERT = "DISMISS_ALERT";
+    public static final String ACTION_PAUSE = "PAUSE_TIMER";
+    public static final String ACTION_RESUME = "RESUME_TIMER";
+    public static final String ACTION_RESET = "RESET_TIMER";
+    public static final String ACTION_SET_TIMER_DURATION = "SET_TIMER_DURATION";
+    public static final String ACTION_SET_BLIND_SCHEDULE = "SET_BLIND_SCHEDULE";
+    public static final String ACTION_SET_LEVEL_INDEX = "SET_LEVEL_INDEX";
+    // Relative level changes, for the notification buttons
+    public static final String ACTION_PREVIOUS_LEVEL = "PREVIOUS_LEVEL";
+    public static final String ACTION_NEXT_LEVEL = "NEXT_LEVEL";
+    // ExpiryAlertActivity's button: dismiss and run the level after the expired one
+    public static final String ACTION_START_NEXT_LEVEL = "START_NEXT_LEVEL";
+    public static final String ACTION_EXPIRY_ALARM = "EXPIRY_ALARM";
+    // TournamentClocks' alarm for the earliest transition of its clocks
+    public static final String ACTION_CLOCKS_ALARM = "CLOCKS_ALARM";
+    public static final String ACTION_SET_CLOCK = "SET_CLOCK";
+    public static final String ACTION_CLOCK_COMMAND = "CLOCK_COMMAND";
+    public static final String ACTION_SET_SYNC_MODE = "SET_SYNC_MODE";
+    // The in-app alert's alarm, forwarded from the UI process in :timer mode
+    public static final String ACTION_PREPARE_ALARM = "PREPARE_ALARM";
+    public static final String ACTION_PLAY_ALARM = "PLAY_ALARM";
+    public static final String ACTION_STOP_ALARM = "STOP_ALARM";
 
     private static final String CHANNEL_ID = "PokerTimerChannel";
     private static final String ALERT_CHANNEL_ID = "PokerTimerAlertChannel";
@@ -46,14 +117,53 @@ public class PokerTimerService extends Service {
     private static final String ALERT_CHANNEL_NAME = "Poker Timer Alerts";
     private static final int NOTIFICATION_ID = 1001;
     private static final int ALERT_NOTIFICATION_ID = 1002;
+    private static final long PATCH_COALESCE_WINDOW_MS = 100;
 
+    // elapsedRealtime() keeps counting in deep sleep, unlike nanoTime() and uptimeMillis()
+    private static final TimerCore.Clock ANDROID_CLOCK = new TimerCore.Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return SystemClock.elapsedRealtime();
+        }
+    };
+
+    /**
+     * Receives the timer's state from the service, on its worker thread. State
+     * changes are always delivered; ticks only while tick events are enabled.
+     */
+    public interface Listener {
+        void onTimerStateChanged(TimerStateSnapshot snapshot);
+
+        void onTimerTick(int timeLeft);
+    }
+
+    // All timer state, notification building and audio calls are confined to
+    // workerThread; the main thread only receives the lifecycle callbacks and
+    // hands them over. Only snapshot is read from other threads.
+    private HandlerThread workerThread;
     private Handler handler;
     private Runnable updateRunnable;
     private NotificationManager notificationManager;
-    private MediaPlayer mediaPlayer;
+    private AlarmAudioEngine alarmAudio;
     private Vibrator vibrator;
     private Handler alertHandler;
     private Runnable alertRunnable;
+    private NotificationTemplateCache templates;
+    private NotificationTextFormatter formatter;
+    private TimerStateStore store;
+    private ExpiryAlarmScheduler expiryAlarm;
+    // Other tournaments run from this device, next to the timer below
+    private TournamentClocks clocks;
+    private TimerWidgetUpdater widget;
+    // Host or follower of the other tables' devices on the LAN
+    private LanClockSync sync;
+    // The host's last alerting flag, a follower alerts when it turns on
+    private boolean hostAlerting = false;
 
     // Timer state
     private String tournamentName = "Poker Tournament";
@@ -62,12 +172,51 @@ public class PokerTimerService extends Service {
     private int currentBigBlind = 0;
     private int nextSmallBlind = 0;
     private int nextBigBlind = 0;
-    private long endTime = 0;
-    private int timeLeft = 0;
-    private boolean paused = true;
-    private boolean shouldAlertOnExpiry = true;
+    // Countdown, expiry and level schedule
+    private final TimerCore core = new TimerCore(ANDROID_CLOCK);
     private boolean isAlerting = false;
-    private boolean timerExpired = false;
+    private boolean countdownMode = true;
+    private boolean isForeground = false;
+    private NotificationUpdateStats stats = NotificationUpdateStats.COUNTDOWN;
+    private volatile TimerStateSnapshot snapshot = TimerStateSnapshot.STOPPED;
+    // The same, for readers in this process that aren't bound (yet)
+    private static volatile TimerStateSnapshot current = TimerStateSnapshot.STOPPED;
+    private final LocalBinder binder = new LocalBinder();
+    private TimerServiceMessenger remoteBinder;
+    private Listener listener;
+    private boolean tickEventsEnabled = false;
+    private Runnable tickRunnable;
+    // SystemClock.uptimeMillis() the updateRunnable is posted for
+    private long scheduledWakeup;
+    // Set when onCreate found a running timer from before the process died
+    private boolean restoredForeground = false;
+    // Screen on, including the lock screen where the notification is shown too.
+    // Written on the worker thread, volatile for dump() on a binder thread.
+    private volatile boolean screenInteractive = true;
+    private final BroadcastReceiver screenReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            onScreenChanged(Intent.ACTION_SCREEN_ON.equals(intent.getAction()));
+        }
+    };
+    private final BroadcastReceiver timeSetReceiver = new BroadcastReceiver() {
+        @Override
+        public void onReceive(Context context, Intent intent) {
+            onWallClockChanged();
+        }
+    };
+
+    // Patch sequencing
+    private final PatchSequencer sequencer = new PatchSequencer(FIELD_COUNT);
+    private boolean flushPending = false;
+    private final Runnable flushRunnable = new Runnable() {
+        @Override
+        public void run() {
+            flushPending = false;
+            updateNotification();
+            startTimer();
+        }
+    };
 
     @Override
     public void onCreate() {
@@ -75,168 +224,800 @@ public class PokerTimerService extends Service {
         notificationManager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
         vibrator = (Vibrator) getSystemService(Context.VIBRATOR_SERVICE);
         createNotificationChannels();
-        handler = new Handler(Looper.getMainLooper());
-        alertHandler = new Handler(Looper.getMainLooper());
+        templates = new NotificationTemplateCache(this, CHANNEL_ID, ALERT_CHANNEL_ID);
+        formatter = new NotificationTextFormatter();
+        workerThread = new HandlerThread("PokerTimerWorker", Process.THREAD_PRIORITY_FOREGROUND);
+        workerThread.start();
+        handler = new Handler(workerThread.getLooper());
+        alertHandler = new Handler(workerThread.getLooper());
+        clocks = new TournamentClocks(handler, notificationManager, templates,
+                new ExpiryAlarmScheduler(this, ACTION_CLOCKS_ALARM,
+                        ExpiryAlarmScheduler.CLOCKS_REQUEST_CODE),
+                ANDROID_CLOCK);
+        widget = new TimerWidgetUpdater(this);
+        sync = new LanClockSync(this, handler, ANDROID_CLOCK, new LanClockSync.Callback() {
+            @Override
+            public void onHostState(TimerStateSnapshot state) {
+                applyHostState(state);
+            }
+        });
+        store = new TimerStateStore(this);
+        expiryAlarm = new ExpiryAlarmScheduler(this);
+        alarmAudio = AlarmAudioEngine.getInstance(this);
+        // Delivered on the worker thread, like the commands
+        ContextCompat.registerReceiver(this, timeSetReceiver,
+                new IntentFilter(Intent.ACTION_TIME_CHANGED), null, handler,
+                ContextCompat.RECEIVER_NOT_EXPORTED);
+        PowerManager powerManager = (PowerManager) getSystemService(Context.POWER_SERVICE);
+        screenInteractive = powerManager == null || powerManager.isInteractive();
+        clocks.onScreenChanged(screenInteractive);
+        IntentFilter screenFilter = new IntentFilter(Intent.ACTION_SCREEN_OFF);
+        screenFilter.addAction(Intent.ACTION_SCREEN_ON);
+        ContextCompat.registerReceiver(this, screenReceiver, screenFilter, null, handler,
+                ContextCompat.RECEIVER_NOT_EXPORTED);
+        // Reads a file, and runs before any command since those are posted after it
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                restoreState();
+            }
+        });
+    }
+
+    // Loads the state saved by publishSnapshot() before the process was killed
+    private void restoreState() {
+        TimerStateStore.State state = store.load();
+        if (state == null) return;
+
+        tournamentName = state.tournamentName;
+        formatter.setTournamentName(tournamentName);
+        currentBlindLevel = state.currentBlindLevel;
+        currentSmallBlind = state.currentSmallBlind;
+        currentBigBlind = state.currentBigBlind;
+        nextSmallBlind = state.nextSmallBlind;
+        nextBigBlind = state.nextBigBlind;
+        core.restoreSchedule(state.schedule, state.levelIndex);
+        if (state.schedule != null && state.schedule.hasLevel(state.levelIndex)) {
+            loadLevel();
+        } else {
+            formatter.setLevel(currentBlindLevel, currentSmallBlind, currentBigBlind,
+                    nextSmallBlind, nextBigBlind);
+        }
+
+        core.setEndTime(state.endTime);
+        core.setTimeLeft(state.timeLeft);
+        core.setTimerDuration(state.timerDuration);
+        core.setPaused(state.paused);
+        core.setExpired(state.expired);
+        core.setAlertOnExpiry(state.shouldAlertOnExpiry);
+        core.refreshTimeLeft();
+        countdownMode = state.countdownMode;
+        stats = NotificationUpdateStats.forMode(countdownMode);
+        restoredForeground = state.foreground;
     }
 
     @Override
-    public int onStartCommand(Intent intent, int flags, int startId) {
+    public int onStartCommand(final Intent intent, int flags, int startId) {
+        recordDelivery(intent);
+
+        // startForeground() has no thread requirement, so the deadline after
+        // startForegroundService() is met from the worker as well
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                handleCommand(intent);
+            }
+        });
+        return START_STICKY;
+    }
+
+    // elapsedRealtimeNanos() is system-wide, so this also works from the :timer process
+    private static void recordDelivery(@Nullable Intent intent) {
+        long sentAt = intent != null ? intent.getLongExtra(EXTRA_SENT_AT, 0) : 0;
+        if (sentAt > 0) {
+            TimerMetrics.INTENT_DELIVERY.recordNanos(SystemClock.elapsedRealtimeNanos() - sentAt);
+        }
+    }
+
+    private void handleCommand(Intent intent) {
         if (intent != null) {
             String action = intent.getAction();
 
             if (ACTION_START.equals(action) || ACTION_UPDATE.equals(action)) {
-                updateTimerData(intent);
-                startForeground(NOTIFICATION_ID, createNotification());
-                startTimer();
+                boolean changed = applyPatch(intent);
+                // startForegroundService() requires a startForeground() call every time
+                if (isForeground && ACTION_UPDATE.equals(action)) {
+                    if (changed) {
+                        scheduleFlush();
+                    }
+                } else {
+                    cancelFlush();
+                    postForegroundNotification();
+                    isForeground = true;
+                    publishSnapshot();
+                    startTimer();
+                }
             } else if (ACTION_STOP.equals(action)) {
+                cancelFlush();
                 stopTimer();
+                expiryAlarm.cancel();
                 stopAlert();
                 stopForeground(true);
+                isForeground = false;
+                publishSnapshot();
+                templates.invalidate();
+                clocks.clear();
+                sync.stop();
+                alarmAudio.release();
+                store.clear();
                 stopSelf();
             } else if (ACTION_DISMISS_ALERT.equals(action)) {
                 dismissAlert();
+            } else if (ACTION_PAUSE.equals(action)) {
+                pauseTimer();
+            } else if (ACTION_RESUME.equals(action)) {
+                resumeTimer();
+            } else if (ACTION_RESET.equals(action)) {
+                resetTimer();
+            } else if (ACTION_SET_TIMER_DURATION.equals(action)) {
+                setTimerDuration(intent.getIntExtra(EXTRA_TIMER_DURATION, core.getTimerDuration()));
+            } else if (ACTION_SET_BLIND_SCHEDULE.equals(action)) {
+                BlindSchedule newSchedule = readBlindSchedule(intent);
+                if (newSchedule != null) {
+                    setBlindSchedule(newSchedule, intent.getIntExtra(EXTRA_LEVEL_INDEX, 0));
+                }
+            } else if (ACTION_SET_LEVEL_INDEX.equals(action)) {
+                setLevelIndex(intent.getIntExtra(EXTRA_LEVEL_INDEX, core.getLevelIndex()));
+            } else if (ACTION_PREVIOUS_LEVEL.equals(action)) {
+                setLevelIndex(core.getLevelIndex() - 1);
+            } else if (ACTION_NEXT_LEVEL.equals(action)) {
+                setLevelIndex(core.getLevelIndex() + 1);
+            } else if (ACTION_START_NEXT_LEVEL.equals(action)) {
+                startNextLevel();
+            } else if (ACTION_EXPIRY_ALARM.equals(action)) {
+                onExpiryAlarm();
+            } else if (ACTION_CLOCKS_ALARM.equals(action)) {
+                onClocksAlarm();
+            } else if (ACTION_SET_CLOCK.equals(action)) {
+                BlindSchedule clockSchedule = readBlindSchedule(intent);
+                if (clockSchedule != null) {
+                    clocks.set(intent.getStringExtra(EXTRA_CLOCK_ID),
+                            intent.getStringExtra(EXTRA_TOURNAMENT_NAME), clockSchedule,
+                            intent.getIntExtra(EXTRA_LEVEL_INDEX, 0),
+                            intent.getIntExtra(EXTRA_TIMER_DURATION,
+                                    TimerCore.DEFAULT_TIMER_DURATION_SECONDS));
+                }
+            } else if (ACTION_CLOCK_COMMAND.equals(action)) {
+                clocks.command(intent.getStringExtra(EXTRA_CLOCK_ID),
+                        intent.getStringExtra(EXTRA_CLOCK_COMMAND));
+            } else if (ACTION_SET_SYNC_MODE.equals(action)) {
+                setSyncMode(intent.getStringExtra(EXTRA_SYNC_MODE));
+            } else if (ACTION_PREPARE_ALARM.equals(action)) {
+                alarmAudio.prepare();
+            } else if (ACTION_PLAY_ALARM.equals(action)) {
+                // Due when the app asked, so the latency includes the hop over
+                long sentAt = intent.getLongExtra(EXTRA_SENT_AT, 0);
+                alarmAudio.play(sentAt > 0 ? sentAt / 1_000_000L : SystemClock.elapsedRealtime());
+            } else if (ACTION_STOP_ALARM.equals(action)) {
+                alarmAudio.stop();
             }
+        } else {
+            // START_STICKY restart after process death
+            resumeRestoredTimer();
         }
+    }
 
-        return START_STICKY;
+    // Null for a malformed schedule: thrown here it would take down the worker thread
+    @Nullable
+    private static BlindSchedule readBlindSchedule(Intent intent) {
+        try {
+            return BlindSchedule.fromPacked(intent.getIntArrayExtra(EXTRA_BLIND_SCHEDULE));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    // Resumes the timer restored in onCreate without waiting for JS. An expiry
+    // or level change that was missed is handled by the first wakeup.
+    private boolean resumeRestoredTimer() {
+        if (!restoredForeground || isForeground) {
+            return false;
+        }
+
+        postForegroundNotification();
+        isForeground = true;
+        publishSnapshot();
+        startTimer();
+        return true;
     }
 
-    private void updateTimerData(Intent intent) {
-        tournamentName = intent.getStringExtra(EXTRA_TOURNAMENT_NAME);
-        if (tournamentName == null) tournamentName = "Poker Tournament";
+    private void onExpiryAlarm() {
+        long lateness = expiryAlarm.onFired(core.now());
+        if (lateness >= 0) {
+            LatenessStats.ALARM_DELIVERY.record(lateness);
+        }
+
+        if (isForeground) {
+            // Runs the expiry check right away instead of at the deferred Handler wakeup
+            startTimer();
+        } else if (!resumeRestoredTimer()) {
+            // Left over from a timer that was stopped
+            stopSelf();
+        }
+    }
+
+    private void onClocksAlarm() {
+        clocks.onAlarm();
+        // The clocks aren't persisted, after process death only the timer comes back
+        if (!isForeground && !resumeRestoredTimer()) {
+            stopSelf();
+        }
+    }
+
+    /**
+     * Applies a timer update. Sequenced updates are patches: only the extras that
+     * are present are applied, and each field keeps the sequence number that last
+     * wrote it, so a patch that arrives late (start Intents and Binder calls travel
+     * on different paths) can't overwrite newer values. Unsequenced updates are
+     * full updates with defaults for missing extras.
+     *
+     * Returns whether any field changed.
+     */
+    private boolean applyPatch(Intent intent) {
+        boolean sequenced = intent.hasExtra(EXTRA_SEQUENCE);
+        int changedFields = ALL_FIELDS;
+        if (sequenced) {
+            changedFields = 0;
+            for (int field = 0; field < FIELD_COUNT; field++) {
+                if (intent.hasExtra(FIELD_EXTRAS[field])) {
+                    changedFields |= 1 << field;
+                }
+            }
+        }
+
+        return applyPatch(sequenced,
+                intent.getLongExtra(EXTRA_SESSION, 0),
+                intent.getIntExtra(EXTRA_SEQUENCE, 0),
+                changedFields,
+                intent.getStringExtra(EXTRA_TOURNAMENT_NAME),
+                intent.getIntExtra(EXTRA_CURRENT_BLIND_LEVEL, 1),
+                intent.getIntExtra(EXTRA_CURRENT_SMALL_BLIND, 0),
+                intent.getIntExtra(EXTRA_CURRENT_BIG_BLIND, 0),
+                intent.getIntExtra(EXTRA_NEXT_SMALL_BLIND, 0),
+                intent.getIntExtra(EXTRA_NEXT_BIG_BLIND, 0),
+                intent.getLongExtra(EXTRA_END_TIME, 0),
+                intent.getIntExtra(EXTRA_TIME_LEFT, 0),
+                intent.getBooleanExtra(EXTRA_PAUSED, true),
+                intent.getBooleanExtra(EXTRA_SHOULD_ALERT_ON_EXPIRY, true),
+                intent.getStringExtra(EXTRA_UPDATE_MODE),
+                intent.getIntExtra(EXTRA_TIMER_DURATION, TimerCore.DEFAULT_TIMER_DURATION_SECONDS));
+    }
+
+    private boolean applyPatch(boolean sequenced, long patchSession, int sequence, int changedFields,
+                               String newTournamentName, int newCurrentBlindLevel,
+                               int newCurrentSmallBlind, int newCurrentBigBlind,
+                               int newNextSmallBlind, int newNextBigBlind, long newEndTime,
+                               int newTimeLeft, boolean newPaused, boolean newShouldAlertOnExpiry,
+                               String newUpdateMode, int newTimerDuration) {
+        if (sequenced && !sequencer.acceptSession(patchSession)) {
+            // From a JS runtime that has since been replaced
+            return false;
+        }
+
+        boolean changed = false;
+
+        if (accepts(changedFields, FIELD_TOURNAMENT_NAME, sequenced, sequence)) {
+            if (newTournamentName == null) newTournamentName = "Poker Tournament";
+            if (!newTournamentName.equals(tournamentName)) {
+                tournamentName = newTournamentName;
+                formatter.setTournamentName(tournamentName);
+                changed = true;
+            }
+        }
+
+        // With a schedule the service picks the levels itself
+        if (core.getSchedule() != null) {
+            changedFields &= ~LEVEL_FIELDS;
+        }
+        // And while following, the sync host does
+        if (sync.isFollowing()) {
+            changedFields &= ~HOST_FIELDS;
+        }
 
-        currentBlindLevel = intent.getIntExtra(EXTRA_CURRENT_BLIND_LEVEL, 1);
-        currentSmallBlind = intent.getIntExtra(EXTRA_CURRENT_SMALL_BLIND, 0);
-        currentBigBlind = intent.getIntExtra(EXTRA_CURRENT_BIG_BLIND, 0);
-        nextSmallBlind = intent.getIntExtra(EXTRA_NEXT_SMALL_BLIND, 0);
-        nextBigBlind = intent.getIntExtra(EXTRA_NEXT_BIG_BLIND, 0);
-        endTime = intent.getLongExtra(EXTRA_END_TIME, 0);
-        timeLeft = intent.getIntExtra(EXTRA_TIME_LEFT, 0);
-        boolean newPaused = intent.getBooleanExtra(EXTRA_PAUSED, true);
-        shouldAlertOnExpiry = intent.getBooleanExtra(EXTRA_SHOULD_ALERT_ON_EXPIRY, true);
+        boolean levelChanged = false;
+        if (accepts(changedFields, FIELD_CURRENT_BLIND_LEVEL, sequenced, sequence)) {
+            levelChanged |= newCurrentBlindLevel != currentBlindLevel;
+            currentBlindLevel = newCurrentBlindLevel;
+        }
+        if (accepts(changedFields, FIELD_CURRENT_SMALL_BLIND, sequenced, sequence)) {
+            levelChanged |= newCurrentSmallBlind != currentSmallBlind;
+            currentSmallBlind = newCurrentSmallBlind;
+        }
+        if (accepts(changedFields, FIELD_CURRENT_BIG_BLIND, sequenced, sequence)) {
+            levelChanged |= newCurrentBigBlind != currentBigBlind;
+            currentBigBlind = newCurrentBigBlind;
+        }
+        if (accepts(changedFields, FIELD_NEXT_SMALL_BLIND, sequenced, sequence)) {
+            levelChanged |= newNextSmallBlind != nextSmallBlind;
+            nextSmallBlind = newNextSmallBlind;
+        }
+        if (accepts(changedFields, FIELD_NEXT_BIG_BLIND, sequenced, sequence)) {
+            levelChanged |= newNextBigBlind != nextBigBlind;
+            nextBigBlind = newNextBigBlind;
+        }
+        if (levelChanged) {
+            // Level strings are built once here instead of on every update
+            formatter.setLevel(currentBlindLevel, currentSmallBlind, currentBigBlind,
+                    nextSmallBlind, nextBigBlind);
+            changed = true;
+        }
+
+        boolean wasPaused = core.isPaused();
+        boolean timeLeftUpdated = false;
+        if (accepts(changedFields, FIELD_END_TIME, sequenced, sequence)) {
+            changed |= newEndTime != core.getEndTime();
+            core.setEndTime(newEndTime);
+        }
+        if (accepts(changedFields, FIELD_TIME_LEFT, sequenced, sequence)) {
+            changed |= newTimeLeft != core.getTimeLeft();
+            core.setTimeLeft(newTimeLeft);
+            timeLeftUpdated = true;
+        }
+        if (accepts(changedFields, FIELD_PAUSED, sequenced, sequence)) {
+            changed |= newPaused != core.isPaused();
+            core.setPaused(newPaused);
+        }
+        if (accepts(changedFields, FIELD_SHOULD_ALERT_ON_EXPIRY, sequenced, sequence)) {
+            core.setAlertOnExpiry(newShouldAlertOnExpiry);
+        }
+        if (accepts(changedFields, FIELD_UPDATE_MODE, sequenced, sequence)) {
+            boolean value = !UPDATE_MODE_TICK.equals(newUpdateMode);
+            changed |= value != countdownMode;
+            countdownMode = value;
+
+            NotificationUpdateStats newStats = NotificationUpdateStats.forMode(countdownMode);
+            if (newStats != stats) {
+                stats.markInactive();
+                stats = newStats;
+            }
+        }
+        if (accepts(changedFields, FIELD_TIMER_DURATION, sequenced, sequence)) {
+            core.setTimerDuration(newTimerDuration);
+        }
 
         // If timer was unpaused or time updated, reset expired state
-        if (paused && !newPaused || timeLeft > 0) {
-            timerExpired = false;
+        if (wasPaused && !core.isPaused() || timeLeftUpdated && core.getTimeLeft() > 0) {
+            core.setExpired(false);
             dismissAlert();
         }
 
-        paused = newPaused;
+        // The chronometer notification needs the current color
+        if (countdownMode) {
+            core.refreshTimeLeft();
+        }
+
+        publishSnapshot();
+        return changed;
+    }
+
+    private boolean accepts(int changedFields, int field, boolean sequenced, int sequence) {
+        if ((changedFields & (1 << field)) == 0) {
+            return false;
+        }
+        return !sequenced || sequencer.accepts(field, sequence);
+    }
+
+    // Collapses a burst of patches into a single notification repost
+    private void scheduleFlush() {
+        if (!flushPending) {
+            flushPending = true;
+            handler.postDelayed(flushRunnable, PATCH_COALESCE_WINDOW_MS);
+        }
+    }
+
+    private void cancelFlush() {
+        if (flushPending) {
+            flushPending = false;
+            handler.removeCallbacks(flushRunnable);
+        }
     }
 
     private void startTimer() {
         stopTimer();
 
-        if (!paused && endTime > 0) {
-            updateRunnable = new Runnable() {
-                @Override
-                public void run() {
-                    long currentTime = System.currentTimeMillis();
-                    int newTimeLeft = Math.max(0, (int) ((endTime - currentTime) / 1000));
-
-                    if (newTimeLeft != timeLeft) {
-                        timeLeft = newTimeLeft;
-                        updateNotification();
-
-                        // Check if timer just expired
-                        if (timeLeft == 0 && !timerExpired && shouldAlertOnExpiry) {
-                            timerExpired = true;
-                            startAlert();
-                        }
-                    }
+        if (!core.isRunning()) {
+            expiryAlarm.cancel();
+            stats.markInactive();
+            return;
+        }
 
-                    if (timeLeft > 0) {
-                        handler.postDelayed(this, 1000);
-                    }
-                }
-            };
-            handler.post(updateRunnable);
+        if (!core.isExpired()) {
+            expiryAlarm.arm(core.getDeadline());
         }
+        // Decoded now so the alarm starts without delay at expiry
+        alarmAudio.prepare();
+        stats.markActive();
+        if (!screenInteractive) {
+            startScreenOff();
+        } else if (countdownMode) {
+            startCountdown();
+        } else {
+            startTicking();
+        }
+        startTickEvents();
     }
 
-    private void startAlert() {
-        if (isAlerting) return;
+    /**
+     * With the screen off nobody sees the notification, so the service only
+     * wakes up at the deadline for expiry and level advances, whatever the
+     * update mode. The alarm from ExpiryAlarmScheduler still covers Doze.
+     */
+    private void startScreenOff() {
+        updateRunnable = new Runnable() {
+            @Override
+            public void run() {
+                stats.recordWakeup();
+                TimerMetrics.TICK_JITTER.recordMillis(SystemClock.uptimeMillis() - scheduledWakeup);
+                int changes = core.update();
+                if ((changes & TimerCore.LEVEL_ADVANCED) != 0) {
+                    onLevelAdvanced();
+                    return;
+                }
 
-        isAlerting = true;
+                if ((changes & TimerCore.EXPIRED) != 0) {
+                    onExpired();
+                }
+                if (changes != 0) {
+                    publishSnapshot();
+                }
+                scheduleDeadline(this);
+            }
+        };
+        scheduleDeadline(updateRunnable);
+    }
 
-        // Show alert notification
-        showAlertNotification();
+    private void scheduleDeadline(Runnable runnable) {
+        if (core.isExpired() || !core.isRunning()) {
+            stats.markInactive();
+            return;
+        }
 
-        // Start infinite sound loop
-        playAlertSoundInfinite();
+        long delay = Math.max(0, core.getDeadline() - core.now());
+        scheduledWakeup = SystemClock.uptimeMillis() + delay;
+        handler.postDelayed(runnable, delay);
+    }
 
-        // Start vibration pattern
-        startVibration();
+    private void onScreenChanged(boolean interactive) {
+        if (interactive == screenInteractive) return;
 
-        // Optional: Still vibrate every 5 seconds for extra attention
-        alertRunnable = new Runnable() {
+        screenInteractive = interactive;
+        clocks.onScreenChanged(interactive);
+        if (!isForeground) return;
+
+        if (interactive) {
+            // One catch-up post for whatever was skipped while the screen was off
+            cancelFlush();
+            updateNotification();
+        }
+        startTimer();
+    }
+
+    // Per-second events for a visible UI, independent of the notification mode
+    private void startTickEvents() {
+        if (!tickEventsEnabled || listener == null || !core.isRunning()) {
+            return;
+        }
+
+        tickRunnable = new Runnable() {
             @Override
             public void run() {
-                if (isAlerting) {
-                    startVibration(); // Just vibrate, sound is already looping
-                    alertHandler.postDelayed(this, 5000);
+                int secondsLeft = core.computeTimeLeft(core.now());
+                if (listener != null) {
+                    listener.onTimerTick(secondsLeft);
+                }
+                if (secondsLeft > 0) {
+                    long delay = core.wakeupTimeFor(secondsLeft - 1) - core.now();
+                    handler.postDelayed(this, Math.max(0, delay));
                 }
             }
         };
-        alertHandler.postDelayed(alertRunnable, 5000);
+        handler.post(tickRunnable);
     }
 
-    private void playAlertSoundInfinite() {
-        try {
-            if (mediaPlayer != null) {
-                mediaPlayer.release();
-            }
+    private void pauseTimer() {
+        if (sync.isFollowing()) return;
+        if (core.pause()) {
+            onTimingChanged();
+        }
+    }
 
-            // Try custom sound first
-            Uri soundUri = Uri.parse("android.resource://" + getPackageName() + "/" + R.raw.alarm);
-            mediaPlayer = new MediaPlayer();
-            mediaPlayer.setDataSource(this, soundUri);
+    private void resumeTimer() {
+        if (sync.isFollowing()) return;
+        if (core.resume()) {
+            onTimingChanged();
+        }
+    }
 
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                mediaPlayer.setAudioAttributes(new AudioAttributes.Builder()
-                        .setUsage(AudioAttributes.USAGE_ALARM)
-                        .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                        .build());
-            }
+    private void resetTimer() {
+        if (sync.isFollowing()) return;
+        core.reset();
+        dismissAlert();
+        onTimingChanged();
+    }
 
-            // Set looping to true for infinite repeat
-            mediaPlayer.setLooping(true);
-            mediaPlayer.prepare();
-            mediaPlayer.start();
+    // Does what the app does after TimerExpirationAlert, without it
+    private void startNextLevel() {
+        dismissAlert();
+        // After an automatic advance the next level is already running. Without
+        // a next level this would only restart the ended one with the old blinds.
+        if (!core.isExpired() || !hasNextLevel() || sync.isFollowing()) return;
+
+        core.setLevelIndex(core.getLevelIndex() + 1);
+        loadLevel();
+        core.reset();
+        core.resume();
+        onTimingChanged();
+    }
+
+    private boolean hasNextLevel() {
+        BlindSchedule schedule = core.getSchedule();
+        return schedule != null && schedule.hasLevel(core.getLevelIndex() + 1);
+    }
+
+    private void setTimerDuration(int seconds) {
+        if (sync.isFollowing()) return;
+        core.changeTimerDuration(seconds);
+        onTimingChanged();
+    }
 
-        } catch (Exception e) {
-            // Fallback to default alarm sound
-            try {
-                if (mediaPlayer != null) {
-                    mediaPlayer.release();
+    // Local commands apply immediately, there's nothing to coalesce
+    private void onTimingChanged() {
+        publishSnapshot();
+        if (isForeground) {
+            cancelFlush();
+            updateNotification();
+            startTimer();
+        }
+    }
+
+    private void startTicking() {
+        updateRunnable = new Runnable() {
+            @Override
+            public void run() {
+                stats.recordWakeup();
+                TimerMetrics.TICK_JITTER.recordMillis(SystemClock.uptimeMillis() - scheduledWakeup);
+                int changes = core.update();
+                if ((changes & TimerCore.LEVEL_ADVANCED) != 0) {
+                    onLevelAdvanced();
+                    return;
                 }
 
-                Uri defaultSound = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_ALARM);
-                if (defaultSound == null) {
-                    defaultSound = RingtoneManager.getDefaultUri(RingtoneManager.TYPE_NOTIFICATION);
+                if ((changes & TimerCore.TIME_LEFT_CHANGED) != 0) {
+                    updateNotification();
+                }
+                // Per-second time reaches JS as tick events, the snapshot (and
+                // the store and widget behind it) only changes on transitions
+                if ((changes & TimerCore.EXPIRED) != 0) {
+                    onExpired();
+                    publishSnapshot();
                 }
 
-                mediaPlayer = new MediaPlayer();
-                mediaPlayer.setDataSource(this, defaultSound);
+                if (core.getTimeLeft() > 0) {
+                    // Aimed at the next second boundary, so late wakeups don't add up
+                    long delay = Math.max(0,
+                            core.wakeupTimeFor(core.getTimeLeft() - 1) - core.now());
+                    scheduledWakeup = SystemClock.uptimeMillis() + delay;
+                    handler.postDelayed(this, delay);
+                } else {
+                    stats.markInactive();
+                }
+            }
+        };
+        scheduledWakeup = SystemClock.uptimeMillis();
+        handler.post(updateRunnable);
+    }
 
-                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
-                    mediaPlayer.setAudioAttributes(new AudioAttributes.Builder()
-                            .setUsage(AudioAttributes.USAGE_ALARM)
-                            .setContentType(AudioAttributes.CONTENT_TYPE_SONIFICATION)
-                            .build());
+    /**
+     * Countdown mode lets the system chronometer render the seconds, so the
+     * service only wakes up for the transitions it has to draw itself:
+     * entering the low-time color and expiry.
+     */
+    private void startCountdown() {
+        updateRunnable = new Runnable() {
+            @Override
+            public void run() {
+                stats.recordWakeup();
+                TimerMetrics.TICK_JITTER.recordMillis(SystemClock.uptimeMillis() - scheduledWakeup);
+                int previousColor = core.getStatusColor();
+                int changes = core.update();
+                if ((changes & TimerCore.LEVEL_ADVANCED) != 0) {
+                    onLevelAdvanced();
+                    return;
                 }
 
-                // Set looping to true for infinite repeat
-                mediaPlayer.setLooping(true);
-                mediaPlayer.prepare();
-                mediaPlayer.start();
+                boolean justExpired = (changes & TimerCore.EXPIRED) != 0;
+                if (justExpired || core.getStatusColor() != previousColor) {
+                    updateNotification();
+                }
+                if (justExpired) {
+                    onExpired();
+                }
+                publishSnapshot();
 
-            } catch (Exception fallbackException) {
-                fallbackException.printStackTrace();
+                scheduleNextTransition(this);
             }
+        };
+        scheduleNextTransition(updateRunnable);
+    }
+
+    private void scheduleNextTransition(Runnable runnable) {
+        long wakeupTime = core.nextTransitionTime();
+        if (wakeupTime < 0) {
+            stats.markInactive();
+            return;
+        }
+
+        long delay = Math.max(0, wakeupTime - core.now());
+        scheduledWakeup = SystemClock.uptimeMillis() + delay;
+        handler.postDelayed(runnable, delay);
+    }
+
+    // The wall clock was set: the deadline holds, endTime and the chronometer move
+    private void onWallClockChanged() {
+        clocks.onWallClockChanged();
+        if (core.calibrateWallClock() == 0) return;
+
+        publishSnapshot();
+        if (isForeground) {
+            updateNotification();
+        }
+    }
+
+    private void onExpired() {
+        LatenessStats.EXPIRY.record(core.now() - core.getLastDueTime());
+        // A follower alerts with its host, see applyHostState()
+        if (core.isAlertOnExpiry() && !sync.isFollowing()) {
+            startAlert(false, core.getLastDueTime());
         }
     }
 
+    // The core moved past one or more ended levels, the timer restarts on the new one
+    private void onLevelAdvanced() {
+        long endedAt = core.getLastDueTime();
+        LatenessStats.EXPIRY.record(core.now() - endedAt);
+        loadLevel();
+        updateNotification();
+        startAlert(!core.isExpired(), endedAt);
+        publishSnapshot();
+        startTimer();
+    }
+
+    private void setBlindSchedule(BlindSchedule newSchedule, int index) {
+        if (sync.isFollowing()) return;
+        core.setBlindSchedule(newSchedule, index);
+        onLevelChanged();
+    }
+
+    private void setLevelIndex(int index) {
+        if (!sync.isFollowing() && core.setLevelIndex(index)) {
+            onLevelChanged();
+        }
+    }
+
+    private void onLevelChanged() {
+        loadLevel();
+        publishSnapshot();
+        if (isForeground) {
+            cancelFlush();
+            updateNotification();
+        }
+    }
+
+    private void setSyncMode(String mode) {
+        if (mode == null || !sync.setMode(mode)) return;
+
+        if (sync.isFollowing()) {
+            // The host advances the levels, a local schedule would advance them twice
+            core.restoreSchedule(null, core.getLevelIndex());
+            hostAlerting = false;
+        }
+        // A new host sends the current state right away, it needs no transition first
+        sync.publish(snapshot);
+        if (isForeground) {
+            updateNotification();
+        }
+    }
+
+    /**
+     * Replaces the timer's state with the sync host's. The follower's endTime
+     * is already on this device's clock, so the chronometer and wakeups work
+     * as for a local timer; the expiry alert follows the host's, which also
+     * covers the alert of a level the host advanced to.
+     */
+    private void applyHostState(TimerStateSnapshot host) {
+        if (!host.tournamentName.equals(tournamentName)) {
+            tournamentName = host.tournamentName;
+            formatter.setTournamentName(tournamentName);
+        }
+        currentBlindLevel = host.currentBlindLevel;
+        currentSmallBlind = host.currentSmallBlind;
+        currentBigBlind = host.currentBigBlind;
+        nextSmallBlind = host.nextSmallBlind;
+        nextBigBlind = host.nextBigBlind;
+        formatter.setLevel(currentBlindLevel, currentSmallBlind, currentBigBlind,
+                nextSmallBlind, nextBigBlind);
+        core.restoreSchedule(null, host.levelIndex);
+
+        core.setTimerDuration(host.timerDuration);
+        core.setEndTime(host.endTime);
+        core.setTimeLeft(host.timeLeft);
+        core.setPaused(host.paused);
+        core.setExpired(host.expired);
+        core.refreshTimeLeft();
+
+        // Only on the host's transitions, so a local dismiss holds until the next alert
+        if (host.alerting && !hostAlerting) {
+            startAlert(!host.expired, core.now());
+        } else if (!host.alerting && hostAlerting) {
+            dismissAlert();
+        }
+        hostAlerting = host.alerting;
+        onTimingChanged();
+    }
+
+    // Copies the scheduled level at levelIndex, and the one after it, into the timer state
+    private void loadLevel() {
+        BlindSchedule schedule = core.getSchedule();
+        int levelIndex = core.getLevelIndex();
+        int next = levelIndex + 1;
+        boolean hasNext = schedule.hasLevel(next);
+
+        currentBlindLevel = levelIndex + 1; // 1-based, as shown in the app
+        currentSmallBlind = schedule.getSmallBlind(levelIndex);
+        currentBigBlind = schedule.getBigBlind(levelIndex);
+        nextSmallBlind = hasNext ? schedule.getSmallBlind(next) : 0;
+        nextBigBlind = hasNext ? schedule.getBigBlind(next) : 0;
+
+        formatter.setLevel(currentBlindLevel, currentSmallBlind, currentBigBlind,
+                schedule.getAnte(levelIndex), schedule.isBreak(levelIndex),
+                nextSmallBlind, nextBigBlind,
+                hasNext ? schedule.getAnte(next) : 0, hasNext && schedule.isBreak(next));
+    }
+
+    private boolean usesChronometer() {
+        return countdownMode && !core.isPaused() && !core.isExpired() && core.getTimeLeft() > 0;
+    }
+
+    // dueTime is when the alert should have started, for the audio latency stats
+    private void startAlert(boolean levelAdvanced, long dueTime) {
+        // Refresh the text even when already alerting, levels can keep advancing
+        showAlertNotification(levelAdvanced);
+
+        if (isAlerting) return;
+
+        isAlerting = true;
+
+        // Start infinite sound loop
+        alarmAudio.play(dueTime);
+
+        // Start vibration pattern
+        startVibration();
+
+        // Optional: Still vibrate every 5 seconds for extra attention
+        alertRunnable = new Runnable() {
+            @Override
+            public void run() {
+                if (isAlerting) {
+                    startVibration(); // Just vibrate, sound is already looping
+                    alertHandler.postDelayed(this, 5000);
+                }
+            }
+        };
+        alertHandler.postDelayed(alertRunnable, 5000);
+
+        TimerMetrics.ALERT_START.recordMillis(core.now() - dueTime);
+    }
+
     private void startVibration() {
         if (vibrator != null && vibrator.hasVibrator()) {
             if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
@@ -251,53 +1032,54 @@ public class PokerTimerService extends Service {
         }
     }
 
-    private void showAlertNotification() {
-        Intent dismissIntent = new Intent(this, PokerTimerService.class);
-        dismissIntent.setAction(ACTION_DISMISS_ALERT);
-        PendingIntent dismissPendingIntent = PendingIntent.getService(
-                this,
-                1,
-                dismissIntent,
-                PendingIntent.FLAG_IMMUTABLE
-        );
-
-        Intent openAppIntent = new Intent(this, MainActivity.class);
-        openAppIntent.setFlags(
-                Intent.FLAG_ACTIVITY_CLEAR_TOP |
-                        Intent.FLAG_ACTIVITY_SINGLE_TOP |
-                        Intent.FLAG_ACTIVITY_NEW_TASK
-        );
-        PendingIntent openAppPendingIntent = PendingIntent.getActivity(
-                this,
-                2,
-                openAppIntent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        Notification alertNotification = new NotificationCompat.Builder(this, ALERT_CHANNEL_ID)
+    private void showAlertNotification(boolean levelAdvanced) {
+        PendingIntent fullScreenIntent = templates.getExpiryAlertIntent(
+                createExpiryAlertIntent(levelAdvanced));
+
+        if (levelAdvanced) {
+            String title = "⏭️ Level " + currentBlindLevel + " started";
+            Notification advanceNotification = templates.getAlertBuilder()
+                    .setFullScreenIntent(fullScreenIntent, true)
+                    .setContentTitle(title)
+                    .setContentText("Blinds: " + formatter.getCurrentBlinds())
+                    .setStyle(templates.getAlertStyle()
+                            .bigText("📊 Blinds: " + formatter.getCurrentBlinds() + "\n" +
+                                    "⬆️ Next blinds: " + formatter.getNextBlinds() + "\n\n" +
+                                    "The timer advanced to the next level and keeps running.")
+                            .setBigContentTitle(title))
+                    .build();
+
+            postNotification(ALERT_NOTIFICATION_ID, advanceNotification);
+            return;
+        }
+
+        Notification alertNotification = templates.getAlertBuilder()
+                .setFullScreenIntent(fullScreenIntent, true)
                 .setContentTitle("🎯 Timer Finished!")
                 .setContentText("Level " + currentBlindLevel + " completed • Time to increase blinds!")
-                .setSmallIcon(getNotificationIcon())
-                .setPriority(NotificationCompat.PRIORITY_HIGH)
-                .setCategory(NotificationCompat.CATEGORY_ALARM)
-                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
-                .setAutoCancel(false)
-                .setOngoing(true)
-                .setContentIntent(openAppPendingIntent)
-                .addAction(R.drawable.ic_notification_clear, "Dismiss", dismissPendingIntent)
-                .setFullScreenIntent(openAppPendingIntent, true)
-                .setColor(0xFFDC2626) // Red for urgency
-                .setColorized(true)
-                .setDefaults(NotificationCompat.DEFAULT_ALL)
-                .setStyle(new NotificationCompat.BigTextStyle()
+                .setStyle(templates.getAlertStyle()
                         .bigText("🚨 Level " + currentBlindLevel + " has ended!\n\n" +
-                                "📊 Current blinds: " + formatBlinds(currentSmallBlind, currentBigBlind) + "\n" +
-                                "⬆️ Next blinds: " + formatBlinds(nextSmallBlind, nextBigBlind) + "\n\n" +
+                                "📊 Current blinds: " + formatter.getCurrentBlinds() + "\n" +
+                                "⬆️ Next blinds: " + formatter.getNextBlinds() + "\n\n" +
                                 "Tap to return to app and advance to the next level.")
                         .setBigContentTitle("🎯 Timer Finished!"))
                 .build();
 
-        notificationManager.notify(ALERT_NOTIFICATION_ID, alertNotification);
+        postNotification(ALERT_NOTIFICATION_ID, alertNotification);
+    }
+
+    private Intent createExpiryAlertIntent(boolean levelAdvanced) {
+        Intent intent = new Intent(this, ExpiryAlertActivity.class);
+        intent.setFlags(Intent.FLAG_ACTIVITY_NEW_TASK | Intent.FLAG_ACTIVITY_NO_USER_ACTION);
+        intent.putExtra(ExpiryAlertActivity.EXTRA_TITLE, "Level " + currentBlindLevel
+                + (levelAdvanced ? " started" : " ended"));
+        intent.putExtra(ExpiryAlertActivity.EXTRA_LEVEL, currentBlindLevel);
+        intent.putExtra(ExpiryAlertActivity.EXTRA_CURRENT_BLINDS, formatter.getCurrentBlinds());
+        intent.putExtra(ExpiryAlertActivity.EXTRA_NEXT_BLINDS, formatter.getNextBlinds());
+        intent.putExtra(ExpiryAlertActivity.EXTRA_LEVEL_ADVANCED, levelAdvanced);
+        intent.putExtra(ExpiryAlertActivity.EXTRA_HAS_NEXT_LEVEL, hasNextLevel());
+        intent.putExtra(ExpiryAlertActivity.EXTRA_POSTED_AT, SystemClock.elapsedRealtimeNanos());
+        return intent;
     }
 
     private void dismissAlert() {
@@ -306,13 +1088,7 @@ public class PokerTimerService extends Service {
         isAlerting = false;
 
         // Stop infinite sound loop
-        if (mediaPlayer != null) {
-            if (mediaPlayer.isPlaying()) {
-                mediaPlayer.stop();
-            }
-            mediaPlayer.release();
-            mediaPlayer = null;
-        }
+        alarmAudio.stop();
 
         // Stop vibration
         if (vibrator != null) {
@@ -325,8 +1101,10 @@ public class PokerTimerService extends Service {
             alertRunnable = null;
         }
 
-        // Remove alert notification
+        // Remove alert notification, and the full-screen alert if it is showing
         notificationManager.cancel(ALERT_NOTIFICATION_ID);
+        sendBroadcast(new Intent(ExpiryAlertActivity.ACTION_ALERT_DISMISSED).setPackage(getPackageName()));
+        publishSnapshot();
     }
 
     private void stopAlert() {
@@ -338,6 +1116,10 @@ public class PokerTimerService extends Service {
             handler.removeCallbacks(updateRunnable);
             updateRunnable = null;
         }
+        if (tickRunnable != null) {
+            handler.removeCallbacks(tickRunnable);
+            tickRunnable = null;
+        }
     }
 
     private void createNotificationChannels() {
@@ -379,173 +1161,398 @@ public class PokerTimerService extends Service {
     }
 
     private Notification createNotification() {
-        Intent intent = new Intent(this, MainActivity.class);
-        intent.setFlags(
-                Intent.FLAG_ACTIVITY_CLEAR_TOP |
-                        Intent.FLAG_ACTIVITY_SINGLE_TOP |
-                        Intent.FLAG_ACTIVITY_NEW_TASK
-        );
-        PendingIntent pendingIntent = PendingIntent.getActivity(
-                this,
-                0,
-                intent,
-                PendingIntent.FLAG_UPDATE_CURRENT | PendingIntent.FLAG_IMMUTABLE
-        );
-
-        String title = getModernTitle();
-        String content = formatNotificationContent();
-        String bigText = formatBigText();
-
-        NotificationCompat.Builder builder = new NotificationCompat.Builder(this, CHANNEL_ID)
+        boolean chronometer = usesChronometer();
+        boolean paused = core.isPaused();
+        boolean expired = core.isExpired();
+        String title = formatter.title(paused, expired);
+        CharSequence content = formatter.content(paused, core.getTimeLeft(), expired, chronometer);
+        CharSequence bigText = formatter.bigText(paused, core.getTimeLeft(), expired, chronometer);
+        int color = core.getStatusColor();
+        long chronometerBase = chronometer ? core.getEndTime() : 0;
+        int actions = timerActions();
+
+        templates.updateVisibleFields(title, content, bigText, color, chronometerBase, actions);
+        return buildTimerNotification(title, content.toString(), bigText.toString(), color,
+                chronometerBase, actions);
+    }
+
+    // Buttons matching the current state: pause or resume, and the levels there are to go to
+    private int timerActions() {
+        int actions = 0;
+        if (sync.isFollowing()) return actions;
+        if (!core.isExpired()) {
+            actions |= core.isPaused()
+                    ? NotificationTemplateCache.TIMER_ACTION_RESUME
+                    : NotificationTemplateCache.TIMER_ACTION_PAUSE;
+        }
+        BlindSchedule schedule = core.getSchedule();
+        int levelIndex = core.getLevelIndex();
+        if (schedule != null && levelIndex >= 0) {
+            if (levelIndex > 0) {
+                actions |= NotificationTemplateCache.TIMER_ACTION_PREVIOUS_LEVEL;
+            }
+            if (schedule.hasLevel(levelIndex + 1)) {
+                actions |= NotificationTemplateCache.TIMER_ACTION_NEXT_LEVEL;
+            }
+        }
+        return actions;
+    }
+
+    private Notification buildTimerNotification(String title, String content, String bigText,
+                                                int color, long chronometerBase, int actions) {
+        NotificationCompat.Builder builder = templates.getTimerBuilder()
                 .setContentTitle(title)
                 .setContentText(content)
-                .setSmallIcon(getNotificationIcon())
-                .setOngoing(true)
-                .setContentIntent(pendingIntent)
-                .setCategory(NotificationCompat.CATEGORY_SERVICE)
-                .setPriority(NotificationCompat.PRIORITY_LOW)
-                .setVisibility(NotificationCompat.VISIBILITY_PUBLIC)
-                .setColor(getStatusColor()) // Dynamic color based on state
-                .setColorized(false)
-                .setStyle(new NotificationCompat.BigTextStyle()
+                .setColor(color) // Dynamic color based on state
+                .setStyle(templates.getTimerStyle()
                         .bigText(bigText)
-                        .setBigContentTitle(title))
-                .setShowWhen(false)
-                .setOnlyAlertOnce(true); // Don't repeatedly alert for updates
-
-        // Add custom large icon if available
-        try {
-            builder.setLargeIcon(
-                    android.graphics.BitmapFactory.decodeResource(
-                            getResources(),
-                            R.mipmap.ic_launcher
-                    )
-            );
-        } catch (Exception e) {
-            // No large icon, that's fine
+                        .setBigContentTitle(title));
+        templates.setTimerActions(builder, actions);
+
+        if (chronometerBase > 0) {
+            // Let the system render the remaining seconds against endTime
+            builder.setUsesChronometer(true)
+                    .setChronometerCountDown(true)
+                    .setWhen(chronometerBase)
+                    .setShowWhen(true);
+        } else {
+            builder.setUsesChronometer(false)
+                    .setChronometerCountDown(false)
+                    .setShowWhen(false);
         }
 
         return builder.build();
     }
 
-    private int getStatusColor() {
-        if (timerExpired) {
-            return 0xFFDC2626; // Red for expired
-        } else if (paused) {
-            return 0xFF6B7280; // Gray for paused
-        } else if (timeLeft <= 60) {
-            return 0xFFEA580C; // Orange for low time
-        } else {
-            return 0xFF059669; // Green for active
+    private void updateNotification() {
+        // Cosmetic while nobody can see it, onScreenChanged() catches up
+        if (!screenInteractive) return;
+
+        boolean chronometer = usesChronometer();
+        boolean paused = core.isPaused();
+        boolean expired = core.isExpired();
+        String title = formatter.title(paused, expired);
+        CharSequence content = formatter.content(paused, core.getTimeLeft(), expired, chronometer);
+        CharSequence bigText = formatter.bigText(paused, core.getTimeLeft(), expired, chronometer);
+        int color = core.getStatusColor();
+        long chronometerBase = chronometer ? core.getEndTime() : 0;
+        int actions = timerActions();
+
+        // Nothing visible changed, skip the repost
+        if (!templates.updateVisibleFields(title, content, bigText, color, chronometerBase,
+                actions)) {
+            return;
         }
+
+        postNotification(NOTIFICATION_ID,
+                buildTimerNotification(title, content.toString(), bigText.toString(), color,
+                        chronometerBase, actions));
+        stats.recordPost();
     }
 
-    private int getNotificationIcon() {
-        // Try to use custom poker icons first, fall back gracefully
-        try {
-            // Try poker chip icon first (most thematic)
-            getResources().getDrawable(R.drawable.ic_poker_chip);
-            return R.drawable.ic_poker_chip;
-        } catch (Exception e1) {
-            try {
-                // Try poker timer icon
-                getResources().getDrawable(R.drawable.ic_poker_timer);
-                return R.drawable.ic_poker_timer;
-            } catch (Exception e2) {
-                try {
-                    // Try app launcher icon
-                    getResources().getDrawable(R.mipmap.ic_launcher);
-                    return R.mipmap.ic_launcher;
-                } catch (Exception e3) {
-                    // Fall back to system timer icon
-                    return android.R.drawable.ic_dialog_info;
-                }
-            }
-        }
+    private void postNotification(int id, Notification notification) {
+        long start = System.nanoTime();
+        notificationManager.notify(id, notification);
+        TimerMetrics.NOTIFY_DURATION.recordNanos(System.nanoTime() - start);
+        TimerMetrics.recordRepost();
     }
 
-    private String getModernTitle() {
-        if (timerExpired) {
-            return "⏰ " + tournamentName + " • TIME'S UP!";
-        } else if (paused) {
-            return "⏸️ " + tournamentName + " • Paused";
-        } else {
-            return "🎯 " + tournamentName + " • Active";
+    private void postForegroundNotification() {
+        Notification notification = createNotification();
+        long start = System.nanoTime();
+        startForeground(NOTIFICATION_ID, notification);
+        TimerMetrics.NOTIFY_DURATION.recordNanos(System.nanoTime() - start);
+        TimerMetrics.recordRepost();
+        stats.recordPost();
+    }
+
+    private void publishSnapshot() {
+        snapshot = new TimerStateSnapshot(tournamentName, currentBlindLevel, currentSmallBlind,
+                currentBigBlind, nextSmallBlind, nextBigBlind, core.getLevelIndex(), core.getEndTime(),
+                core.getTimeLeft(), core.getTimerDuration(), core.isPaused(), core.isExpired(),
+                isAlerting, isForeground);
+        current = snapshot;
+        if (listener != null) {
+            listener.onTimerStateChanged(snapshot);
+        }
+        widget.update(snapshot);
+        sync.publish(snapshot);
+        if (isForeground) {
+            saveState();
         }
     }
 
-    private void updateNotification() {
-        notificationManager.notify(NOTIFICATION_ID, createNotification());
+    // The store skips unchanged snapshots, so this only writes on transitions
+    private void saveState() {
+        TimerStateStore.State state = new TimerStateStore.State();
+        state.tournamentName = tournamentName;
+        state.currentBlindLevel = currentBlindLevel;
+        state.currentSmallBlind = currentSmallBlind;
+        state.currentBigBlind = currentBigBlind;
+        state.nextSmallBlind = nextSmallBlind;
+        state.nextBigBlind = nextBigBlind;
+        state.levelIndex = core.getLevelIndex();
+        // Recomputed from endTime on restore, leaving it out keeps ticks from writing
+        state.timeLeft = core.isRunning() ? 0 : core.getTimeLeft();
+        state.timerDuration = core.getTimerDuration();
+        state.endTime = core.getEndTime();
+        state.paused = core.isPaused();
+        state.expired = core.isExpired();
+        state.shouldAlertOnExpiry = core.isAlertOnExpiry();
+        state.countdownMode = countdownMode;
+        state.foreground = isForeground;
+        state.schedule = core.getSchedule();
+        store.save(state);
     }
 
-    private String formatNotificationContent() {
-        StringBuilder content = new StringBuilder();
+    /**
+     * In-process control channel for the bridge modules while they are bound.
+     * Calls arrive on the JS or native modules thread and are posted to the worker
+     * thread that owns the timer state; reads return the last published snapshot.
+     * Starting the service still goes through startForegroundService().
+     */
+    public class LocalBinder extends Binder {
+        public void patch(final long session, final int sequence, final int changedFields,
+                          final String tournamentName, final int currentBlindLevel,
+                          final int currentSmallBlind, final int currentBigBlind,
+                          final int nextSmallBlind, final int nextBigBlind, final long endTime,
+                          final int timeLeft, final boolean paused,
+                          final boolean shouldAlertOnExpiry, final String updateMode,
+                          final int timerDuration) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onBoundPatch(applyPatch(true, session, sequence, changedFields,
+                            tournamentName, currentBlindLevel, currentSmallBlind,
+                            currentBigBlind, nextSmallBlind, nextBigBlind, endTime, timeLeft,
+                            paused, shouldAlertOnExpiry, updateMode, timerDuration));
+                }
+            });
+        }
+
+        // For the legacy module, which already has the update as Intent extras
+        public void patch(final Intent patchIntent) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    onBoundPatch(applyPatch(patchIntent));
+                }
+            });
+        }
 
-        // Main status line
-        content.append("Level ").append(currentBlindLevel);
-        content.append(" • ").append(formatBlinds(currentSmallBlind, currentBigBlind));
+        // Any command Intent, as onStartCommand() would get it; used across processes
+        public void command(final Intent intent) {
+            recordDelivery(intent);
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    handleCommand(intent);
+                }
+            });
+        }
 
-        if (paused) {
-            if (timeLeft > 0) {
-                content.append(" • ").append(formatTime(timeLeft)).append(" remaining");
-            }
-        } else if (timeLeft > 0) {
-            content.append(" • ").append(formatTime(timeLeft)).append(" left");
-        } else if (timerExpired) {
-            content.append(" • Advance to next level");
+        public void dismissAlert() {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    PokerTimerService.this.dismissAlert();
+                }
+            });
         }
 
-        return content.toString();
-    }
+        public void pauseTimer() {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    PokerTimerService.this.pauseTimer();
+                }
+            });
+        }
+
+        public void resumeTimer() {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    PokerTimerService.this.resumeTimer();
+                }
+            });
+        }
 
-    private String formatBigText() {
-        StringBuilder bigText = new StringBuilder();
+        public void resetTimer() {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    PokerTimerService.this.resetTimer();
+                }
+            });
+        }
 
-        // Current level info
-        bigText.append("📊 Current Level: ").append(currentBlindLevel).append("\n");
-        bigText.append("💰 Blinds: ").append(formatBlinds(currentSmallBlind, currentBigBlind));
+        public void setTimerDuration(final int seconds) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    PokerTimerService.this.setTimerDuration(seconds);
+                }
+            });
+        }
 
-        // Timer info
-        if (paused) {
-            bigText.append("\n⏸️ Status: Paused");
-            if (timeLeft > 0) {
-                bigText.append("\n⏱️ Time Remaining: ").append(formatTime(timeLeft));
-            }
-        } else if (timeLeft > 0) {
-            bigText.append("\n⏱️ Time Left: ").append(formatTime(timeLeft));
-        } else if (timerExpired) {
-            bigText.append("\n🚨 TIME'S UP! Level completed");
+        public void setBlindSchedule(final BlindSchedule newSchedule, final int index) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    PokerTimerService.this.setBlindSchedule(newSchedule, index);
+                }
+            });
         }
 
-        // Next level info
-        if (nextSmallBlind > 0 || nextBigBlind > 0) {
-            bigText.append("\n⬆️ Next Level: ").append(formatBlinds(nextSmallBlind, nextBigBlind));
+        public void setLevelIndex(final int index) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    PokerTimerService.this.setLevelIndex(index);
+                }
+            });
         }
 
-        return bigText.toString();
+        // A single listener: the module that subscribed last receives the events
+        public void setListener(final Listener newListener, final boolean ticks) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    listener = newListener;
+                    tickEventsEnabled = newListener != null && ticks;
+                    if (listener != null) {
+                        listener.onTimerStateChanged(snapshot);
+                    }
+                    if (isForeground) {
+                        startTimer();
+                    }
+                }
+            });
+        }
+
+        public void clearListener(final Listener oldListener) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    if (listener == oldListener) {
+                        listener = null;
+                        tickEventsEnabled = false;
+                    }
+                }
+            });
+        }
+
+        public void setClock(final String id, final String name, final BlindSchedule schedule,
+                             final int levelIndex, final int levelSeconds) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    clocks.set(id, name, schedule, levelIndex, levelSeconds);
+                }
+            });
+        }
+
+        public void clockCommand(final String id, final String command) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    clocks.command(id, command);
+                }
+            });
+        }
+
+        public Map<String, TimerStateSnapshot> getClocks() {
+            return clocks.getSnapshots();
+        }
+
+        public void setSyncMode(final String mode) {
+            handler.post(new Runnable() {
+                @Override
+                public void run() {
+                    PokerTimerService.this.setSyncMode(mode);
+                }
+            });
+        }
+
+        public TimerStateSnapshot getSnapshot() {
+            return snapshot;
+        }
+
+        public boolean isForeground() {
+            return snapshot.foreground;
+        }
     }
 
-    private String formatBlinds(int smallBlind, int bigBlind) {
-        return String.format("%,d/%,d", smallBlind, bigBlind);
+    /**
+     * Last published snapshot of the service in this process, STOPPED when it
+     * isn't running. Lets the bridge answer synchronously before bindService()
+     * has connected, as on the first JS render after opening the app.
+     */
+    public static TimerStateSnapshot getCurrentSnapshot() {
+        return current;
     }
 
-    private String formatTime(int seconds) {
-        int minutes = seconds / 60;
-        int remainingSeconds = seconds % 60;
-        return String.format("%d:%02d", minutes, remainingSeconds);
+    private void onBoundPatch(boolean changed) {
+        if (changed && isForeground) {
+            scheduleFlush();
+        }
     }
 
     @Nullable
     @Override
     public IBinder onBind(Intent intent) {
-        return null;
+        if (BuildConfig.TIMER_PROCESS) {
+            // The modules are in the UI process, a LocalBinder can't reach them
+            if (remoteBinder == null) {
+                remoteBinder = new TimerServiceMessenger(binder);
+            }
+            return remoteBinder.getBinder();
+        }
+        return binder;
+    }
+
+    // adb shell dumpsys activity service com.toondeboer.pokerkit/.PokerTimerService
+    @Override
+    protected void dump(FileDescriptor fd, PrintWriter writer, String[] args) {
+        TimerStateSnapshot current = snapshot;
+        writer.println("PokerTimerService: foreground=" + current.foreground
+                + " paused=" + current.paused + " expired=" + current.expired
+                + " alerting=" + current.alerting + " level=" + current.currentBlindLevel
+                + " levelIndex=" + current.levelIndex
+                + " timeLeft=" + current.getTimeLeft(System.currentTimeMillis())
+                + " screenOn=" + screenInteractive);
+        // PSS of the process the service runs in, the UI process too without :timer
+        writer.println("  process: timerProcess=" + BuildConfig.TIMER_PROCESS
+                + " pid=" + Process.myPid() + " pss=" + Debug.getPss() + "kB");
+        clocks.dump(writer);
+        sync.dump(writer);
+        TimerMetrics.dump(writer);
     }
 
     @Override
     public void onDestroy() {
         super.onDestroy();
-        stopTimer();
-        stopAlert();
+        unregisterReceiver(timeSetReceiver);
+        unregisterReceiver(screenReceiver);
+        handler.post(new Runnable() {
+            @Override
+            public void run() {
+                cancelFlush();
+                stats.markInactive();
+                stopTimer();
+                expiryAlarm.cancel();
+                stopAlert();
+                clocks.clear();
+                sync.stop();
+                isForeground = false;
+                publishSnapshot();
+                listener = null;
+                store.close();
+            }
+        });
+        // Runs the cleanup above, then drops the pending timer wakeups
+        workerThread.quitSafely();
     }
 }
 
@@ -0,0 +1,42 @@
+package com.toondeboer.pokerkit;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.WritableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+/**
+ * Forwards the service's timer events to JS as device events. The service
+ * owns the countdown; JS only renders what it receives here.
+ */
+public class TimerEventEmitter implements PokerTimerService.Listener {
+    public static final String EVENT_STATE = "PokerTimerState";
+    public static final String EVENT_TICK = "PokerTimerTick";
+
+    private final ReactApplicationContext reactContext;
+
+    public TimerEventEmitter(ReactApplicationContext reactContext) {
+        this.reactContext = reactContext;
+    }
+
+    @Override
+    public void onTimerStateChanged(TimerStateSnapshot snapshot) {
+        emit(EVENT_STATE, ForegroundServiceModule.snapshotToMap(snapshot));
+    }
+
+    @Override
+    public void onTimerTick(int timeLeft) {
+        WritableMap params = Arguments.createMap();
+        params.putInt("timeLeft", timeLeft);
+        emit(EVENT_TICK, params);
+    }
+
+    private void emit(String eventName, WritableMap params) {
+        if (!reactContext.hasActiveReactInstance()) {
+            return;
+        }
+        reactContext
+                .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
+                .emit(eventName, params);
+    }
+}
@@ -0,0 +1,76 @@
+package com.toondeboer.pokerkit;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Hot-path metrics for PokerTimerService, always on. Read through
+ * RNForegroundService.getMetrics() and printed by
+ * `adb shell dumpsys activity service com.toondeboer.pokerkit/.PokerTimerService`.
+ */
+public final class TimerMetrics {
+    // How late the updateRunnable runs after the time it was scheduled for
+    public static final LatencyHistogram TICK_JITTER = new LatencyHistogram("tickJitter");
+    // Time spent in NotificationManager.notify() / startForeground()
+    public static final LatencyHistogram NOTIFY_DURATION = new LatencyHistogram("notifyDuration");
+    // From the bridge module sending an Intent to onStartCommand()
+    public static final LatencyHistogram INTENT_DELIVERY = new LatencyHistogram("intentDelivery");
+    // From the timer's due time until the alert notification and sound are started
+    public static final LatencyHistogram ALERT_START = new LatencyHistogram("alertStart");
+    // From posting the alert until ExpiryAlertActivity draws its first frame
+    public static final LatencyHistogram ALERT_VISIBLE = new LatencyHistogram("alertVisible");
+
+    private static final LatencyHistogram[] HISTOGRAMS = {
+            TICK_JITTER, NOTIFY_DURATION, INTENT_DELIVERY, ALERT_START, ALERT_VISIBLE,
+    };
+
+    private static long notificationReposts = 0;
+
+    private TimerMetrics() {
+    }
+
+    public static LatencyHistogram[] getHistograms() {
+        return HISTOGRAMS.clone();
+    }
+
+    public static synchronized void recordRepost() {
+        notificationReposts++;
+    }
+
+    public static synchronized long getNotificationReposts() {
+        return notificationReposts;
+    }
+
+    public static synchronized void reset() {
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.reset();
+        }
+        notificationReposts = 0;
+    }
+
+    public static void dump(PrintWriter writer) {
+        writer.println("Timer metrics:");
+        for (LatencyHistogram histogram : HISTOGRAMS) {
+            histogram.dump(writer);
+        }
+        writer.println("  notificationReposts: " + getNotificationReposts());
+
+        writer.println("Notification update stats:");
+        for (NotificationUpdateStats stats : new NotificationUpdateStats[]{
+                NotificationUpdateStats.TICK, NotificationUpdateStats.COUNTDOWN}) {
+            writer.println(String.format(Locale.US,
+                    "  %s: posts=%d wakeups=%d active=%dms posts/h=%.1f wakeups/h=%.1f",
+                    stats.getMode(), stats.getNotificationPosts(), stats.getWakeups(),
+                    stats.getActiveMillis(), stats.getPostsPerHour(), stats.getWakeupsPerHour()));
+        }
+
+        writer.println("Expiry lateness:");
+        for (LatenessStats stats : new LatenessStats[]{
+                LatenessStats.ALARM_DELIVERY, LatenessStats.EXPIRY, LatenessStats.ALARM_AUDIO}) {
+            writer.println(String.format(Locale.US,
+                    "  %s: count=%d mean=%.1fms max=%dms last=%dms late=%d",
+                    stats.getName(), stats.getCount(), stats.getMeanMillis(),
+                    stats.getMaxMillis(), stats.getLastMillis(), stats.getLateCount()));
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.toondeboer.pokerkit;
+
+import android.Manifest;
+import android.content.Context;
+import android.content.Intent;
+import android.content.pm.PackageManager;
+import android.os.Build;
+import android.os.SystemClock;
+import androidx.core.content.ContextCompat;
+
+/**
+ * Builds the Intents for PokerTimerService. Shared by the legacy bridge module
+ * and the TurboModule so both paths produce identical Intents; they are sent
+ * through TimerServiceConnection.
+ */
+public final class TimerServiceCommands {
+    private TimerServiceCommands() {
+    }
+
+    public static boolean hasNotificationPermission(Context context) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.TIRAMISU) {
+            return ContextCompat.checkSelfPermission(context,
+                    Manifest.permission.POST_NOTIFICATIONS) == PackageManager.PERMISSION_GRANTED;
+        }
+        // Pre-Android 13 doesn't require explicit notification permission
+        return true;
+    }
+
+    public static Intent createIntent(Context context, String action) {
+        Intent serviceIntent = new Intent(context, PokerTimerService.class);
+        serviceIntent.setAction(action);
+        return serviceIntent;
+    }
+
+    // Patch session for a JS runtime that just started, see PatchSequencer
+    public static long newSession() {
+        return PatchSequencer.newSession(SystemClock.elapsedRealtime());
+    }
+
+    // Records the send time for TimerMetrics.INTENT_DELIVERY
+    public static Intent stamp(Intent serviceIntent) {
+        serviceIntent.putExtra(PokerTimerService.EXTRA_SENT_AT, SystemClock.elapsedRealtimeNanos());
+        return serviceIntent;
+    }
+
+    /**
+     * Builds a sequenced patch Intent carrying only the fields whose bit
+     * (1 << PokerTimerService.FIELD_*) is set in changedFields.
+     */
+    public static Intent createPatchIntent(Context context, String action, long session, int sequence,
+                                           int changedFields, String tournamentName,
+                                           int currentBlindLevel, int currentSmallBlind, int currentBigBlind,
+                                           int nextSmallBlind, int nextBigBlind, long endTime, int timeLeft,
+                                           boolean paused, boolean shouldAlertOnExpiry, String updateMode,
+                                           int timerDuration) {
+        Intent serviceIntent = createIntent(context, action);
+        serviceIntent.putExtra(PokerTimerService.EXTRA_SESSION, session);
+        serviceIntent.putExtra(PokerTimerService.EXTRA_SEQUENCE, sequence);
+
+        if (has(changedFields, PokerTimerService.FIELD_TOURNAMENT_NAME)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_TOURNAMENT_NAME, tournamentName);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_CURRENT_BLIND_LEVEL)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_BLIND_LEVEL, currentBlindLevel);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_CURRENT_SMALL_BLIND)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_SMALL_BLIND, currentSmallBlind);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_CURRENT_BIG_BLIND)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_CURRENT_BIG_BLIND, currentBigBlind);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_NEXT_SMALL_BLIND)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_NEXT_SMALL_BLIND, nextSmallBlind);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_NEXT_BIG_BLIND)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_NEXT_BIG_BLIND, nextBigBlind);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_END_TIME)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_END_TIME, endTime);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_TIME_LEFT)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_TIME_LEFT, timeLeft);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_PAUSED)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_PAUSED, paused);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_SHOULD_ALERT_ON_EXPIRY)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_SHOULD_ALERT_ON_EXPIRY, shouldAlertOnExpiry);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_UPDATE_MODE)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_UPDATE_MODE, updateMode);
+        }
+        if (has(changedFields, PokerTimerService.FIELD_TIMER_DURATION)) {
+            serviceIntent.putExtra(PokerTimerService.EXTRA_TIMER_DURATION, timerDuration);
+        }
+        return serviceIntent;
+    }
+
+    private static boolean has(int changedFields, int field) {
+        return (changedFields & (1 << field)) != 0;
+    }
+}
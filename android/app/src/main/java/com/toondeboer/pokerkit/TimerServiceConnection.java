@@ -0,0 +1,425 @@
+package com.toondeboer.pokerkit;
+
+import android.content.ComponentName;
+import android.content.Context;
+import android.content.Intent;
+import android.content.ServiceConnection;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+import android.os.SystemClock;
+import androidx.annotation.Nullable;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * Keeps a module bound to PokerTimerService while it exists. The binding is
+ * made without BIND_AUTO_CREATE, so it never starts the service itself: it
+ * connects once the service is started and drops when the service goes away,
+ * which is what makes isServiceRunning() reflect the real state.
+ *
+ * With the service in its own :timer process the binder is a Messenger (see
+ * TimerServiceMessenger) instead of the LocalBinder. Commands then go through
+ * send() and the snapshot is the last one the service pushed.
+ */
+public class TimerServiceConnection implements ServiceConnection {
+    private final Context context;
+    private volatile PokerTimerService.LocalBinder binder;
+    // Set between startForegroundService() and the binding connecting
+    private volatile boolean startPending = false;
+    private boolean bound = false;
+    private PokerTimerService.Listener listener;
+    private boolean tickEvents = false;
+    // Only set while bound to the service in the :timer process
+    private volatile Messenger remote;
+    private volatile TimerStateSnapshot remoteSnapshot = TimerStateSnapshot.STOPPED;
+    private final Messenger replies = new Messenger(new Handler(Looper.getMainLooper()) {
+        @Override
+        public void handleMessage(Message msg) {
+            onRemoteMessage(msg);
+        }
+    });
+
+    public TimerServiceConnection(Context context) {
+        this.context = context.getApplicationContext();
+    }
+
+    public synchronized void bind() {
+        if (!bound) {
+            bound = context.bindService(new Intent(context, PokerTimerService.class), this, 0);
+        }
+    }
+
+    public synchronized void unbind() {
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null && listener != null) {
+            current.clearListener(listener);
+        }
+        if (remote != null) {
+            sendRemote(Message.obtain(null, TimerServiceMessenger.MSG_CLEAR_LISTENER));
+            clearRemote();
+        }
+        if (bound) {
+            context.unbindService(this);
+            bound = false;
+        }
+        binder = null;
+    }
+
+    @Nullable
+    public PokerTimerService.LocalBinder getBinder() {
+        return binder;
+    }
+
+    // Starting always goes through an Intent, the service must call startForeground()
+    public void start(Intent serviceIntent) {
+        context.startForegroundService(TimerServiceCommands.stamp(serviceIntent));
+        startPending = true;
+    }
+
+    public void update(Intent patchIntent) {
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.patch(patchIntent);
+        } else {
+            send(patchIntent);
+        }
+    }
+
+    public void patch(long session, int sequence, int changedFields, String tournamentName,
+                      int currentBlindLevel, int currentSmallBlind, int currentBigBlind,
+                      int nextSmallBlind, int nextBigBlind, long endTime, int timeLeft,
+                      boolean paused, boolean shouldAlertOnExpiry, String updateMode,
+                      int timerDuration) {
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.patch(session, sequence, changedFields, tournamentName, currentBlindLevel,
+                    currentSmallBlind, currentBigBlind, nextSmallBlind, nextBigBlind, endTime,
+                    timeLeft, paused, shouldAlertOnExpiry, updateMode, timerDuration);
+        } else {
+            send(TimerServiceCommands.createPatchIntent(context,
+                    PokerTimerService.ACTION_UPDATE, session, sequence, changedFields,
+                    tournamentName, currentBlindLevel, currentSmallBlind, currentBigBlind,
+                    nextSmallBlind, nextBigBlind, endTime, timeLeft, paused,
+                    shouldAlertOnExpiry, updateMode, timerDuration));
+        }
+    }
+
+    // Timer commands, false when there is no running service to own the timer
+    public boolean pauseTimer() {
+        if (!isServiceRunning()) return false;
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.pauseTimer();
+        } else {
+            send(TimerServiceCommands.createIntent(context,
+                    PokerTimerService.ACTION_PAUSE));
+        }
+        return true;
+    }
+
+    public boolean resumeTimer() {
+        if (!isServiceRunning()) return false;
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.resumeTimer();
+        } else {
+            send(TimerServiceCommands.createIntent(context,
+                    PokerTimerService.ACTION_RESUME));
+        }
+        return true;
+    }
+
+    public boolean resetTimer() {
+        if (!isServiceRunning()) return false;
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.resetTimer();
+        } else {
+            send(TimerServiceCommands.createIntent(context,
+                    PokerTimerService.ACTION_RESET));
+        }
+        return true;
+    }
+
+    public boolean setTimerDuration(int seconds) {
+        if (!isServiceRunning()) return false;
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.setTimerDuration(seconds);
+        } else {
+            Intent intent = TimerServiceCommands.createIntent(context,
+                    PokerTimerService.ACTION_SET_TIMER_DURATION);
+            intent.putExtra(PokerTimerService.EXTRA_TIMER_DURATION, seconds);
+            send(intent);
+        }
+        return true;
+    }
+
+    // Throws IllegalArgumentException for a malformed schedule, on either path
+    public boolean setBlindSchedule(int[] packedLevels, int levelIndex) {
+        if (!isServiceRunning()) return false;
+        BlindSchedule schedule = BlindSchedule.fromPacked(packedLevels);
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.setBlindSchedule(schedule, levelIndex);
+        } else {
+            Intent intent = TimerServiceCommands.createIntent(context,
+                    PokerTimerService.ACTION_SET_BLIND_SCHEDULE);
+            intent.putExtra(PokerTimerService.EXTRA_BLIND_SCHEDULE, packedLevels);
+            intent.putExtra(PokerTimerService.EXTRA_LEVEL_INDEX, levelIndex);
+            send(intent);
+        }
+        return true;
+    }
+
+    public boolean setLevelIndex(int levelIndex) {
+        if (!isServiceRunning()) return false;
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.setLevelIndex(levelIndex);
+        } else {
+            Intent intent = TimerServiceCommands.createIntent(context,
+                    PokerTimerService.ACTION_SET_LEVEL_INDEX);
+            intent.putExtra(PokerTimerService.EXTRA_LEVEL_INDEX, levelIndex);
+            send(intent);
+        }
+        return true;
+    }
+
+    // Additional tournament clocks, see TournamentClocks. Throws
+    // IllegalArgumentException for malformed levels, like setBlindSchedule().
+    public boolean setClock(String clockId, String name, int[] packedLevels, int levelIndex,
+                            int levelSeconds) {
+        if (!isServiceRunning()) return false;
+        BlindSchedule schedule = BlindSchedule.fromPacked(packedLevels);
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.setClock(clockId, name, schedule, levelIndex, levelSeconds);
+        } else {
+            Intent intent = TimerServiceCommands.createIntent(context,
+                    PokerTimerService.ACTION_SET_CLOCK);
+            intent.putExtra(PokerTimerService.EXTRA_CLOCK_ID, clockId);
+            intent.putExtra(PokerTimerService.EXTRA_TOURNAMENT_NAME, name);
+            intent.putExtra(PokerTimerService.EXTRA_BLIND_SCHEDULE, packedLevels);
+            intent.putExtra(PokerTimerService.EXTRA_LEVEL_INDEX, levelIndex);
+            intent.putExtra(PokerTimerService.EXTRA_TIMER_DURATION, levelSeconds);
+            send(intent);
+        }
+        return true;
+    }
+
+    public boolean clockCommand(String clockId, String command) {
+        if (!isServiceRunning()) return false;
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.clockCommand(clockId, command);
+        } else {
+            Intent intent = TimerServiceCommands.createIntent(context,
+                    PokerTimerService.ACTION_CLOCK_COMMAND);
+            intent.putExtra(PokerTimerService.EXTRA_CLOCK_ID, clockId);
+            intent.putExtra(PokerTimerService.EXTRA_CLOCK_COMMAND, command);
+            send(intent);
+        }
+        return true;
+    }
+
+    // LAN host/follower mode, see LanClockSync
+    public boolean setSyncMode(String mode) {
+        if (!isServiceRunning()) return false;
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.setSyncMode(mode);
+        } else {
+            Intent intent = TimerServiceCommands.createIntent(context,
+                    PokerTimerService.ACTION_SET_SYNC_MODE);
+            intent.putExtra(PokerTimerService.EXTRA_SYNC_MODE, mode);
+            send(intent);
+        }
+        return true;
+    }
+
+    public Map<String, TimerStateSnapshot> getClocks() {
+        PokerTimerService.LocalBinder current = binder;
+        return current != null ? current.getClocks()
+                : Collections.<String, TimerStateSnapshot>emptyMap();
+    }
+
+    /**
+     * Subscribes to the service's timer events, also across reconnects. Pass
+     * null to unsubscribe.
+     */
+    public synchronized void setListener(@Nullable PokerTimerService.Listener newListener,
+                                         boolean ticks) {
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            if (newListener != null) {
+                current.setListener(newListener, ticks);
+            } else if (listener != null) {
+                current.clearListener(listener);
+            }
+        }
+        listener = newListener;
+        tickEvents = ticks;
+        if (remote != null) {
+            registerRemote();
+        }
+    }
+
+    public void stop() {
+        startPending = false;
+        send(TimerServiceCommands.createIntent(context, PokerTimerService.ACTION_STOP));
+    }
+
+    public void dismissAlert() {
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            current.dismissAlert();
+        } else {
+            send(TimerServiceCommands.createIntent(context,
+                    PokerTimerService.ACTION_DISMISS_ALERT));
+        }
+    }
+
+    /**
+     * The in-app alert's alarm. In the :timer process it plays on the
+     * service's engine, so the clip is decoded once and stopAlarm() also
+     * stops the service's alarm; without a running service it plays here.
+     */
+    public void prepareAlarm() {
+        if (!sendAlarmCommand(PokerTimerService.ACTION_PREPARE_ALARM)) {
+            AlarmAudioEngine.getInstance(context).prepare();
+        }
+    }
+
+    public void playAlarm() {
+        if (!sendAlarmCommand(PokerTimerService.ACTION_PLAY_ALARM)) {
+            AlarmAudioEngine.getInstance(context).play(SystemClock.elapsedRealtime());
+        }
+    }
+
+    // Stops both engines, one may have started before the service was bound
+    public void stopAlarm() {
+        sendAlarmCommand(PokerTimerService.ACTION_STOP_ALARM);
+        AlarmAudioEngine.getInstance(context).stop();
+    }
+
+    // In the :timer process only the service's expiry alert is known, not a forwarded play
+    public boolean isAlarmPlaying() {
+        return AlarmAudioEngine.getInstance(context).isPlaying()
+                || (remote != null && remoteSnapshot.alerting);
+    }
+
+    public boolean isServiceRunning() {
+        PokerTimerService.LocalBinder current = binder;
+        if ((current != null && current.isForeground())
+                || (remote != null && remoteSnapshot.foreground)) {
+            startPending = false;
+            return true;
+        }
+        return startPending;
+    }
+
+    public TimerStateSnapshot getSnapshot() {
+        PokerTimerService.LocalBinder current = binder;
+        if (current != null) {
+            return current.getSnapshot();
+        }
+        return remote != null ? remoteSnapshot : PokerTimerService.getCurrentSnapshot();
+    }
+
+    @Override
+    public synchronized void onServiceConnected(ComponentName name, IBinder service) {
+        if (!(service instanceof PokerTimerService.LocalBinder)) {
+            remote = new Messenger(service);
+            registerRemote();
+            return;
+        }
+
+        binder = (PokerTimerService.LocalBinder) service;
+        if (listener != null) {
+            binder.setListener(listener, tickEvents);
+        }
+    }
+
+    @Override
+    public void onServiceDisconnected(ComponentName name) {
+        // Process death, the binding reconnects if the service is restarted
+        binder = null;
+        clearRemote();
+    }
+
+    @Override
+    public void onBindingDied(ComponentName name) {
+        binder = null;
+        clearRemote();
+        synchronized (this) {
+            if (bound) {
+                context.unbindService(this);
+                bound = false;
+            }
+        }
+        bind();
+    }
+
+    // Stamped so the service can measure the delivery latency
+    private void send(Intent intent) {
+        TimerServiceCommands.stamp(intent);
+        if (remote != null && sendRemote(TimerServiceMessenger.command(intent))) {
+            return;
+        }
+        context.startService(intent);
+    }
+
+    // Only over the Messenger: a started service would have to call startForeground()
+    private boolean sendAlarmCommand(String action) {
+        if (remote == null) return false;
+        Intent intent = TimerServiceCommands.stamp(TimerServiceCommands.createIntent(context, action));
+        return sendRemote(TimerServiceMessenger.command(intent));
+    }
+
+    // Always registered, the snapshot reads depend on the pushed state
+    private void registerRemote() {
+        Message msg = Message.obtain(null, TimerServiceMessenger.MSG_SET_LISTENER,
+                listener != null && tickEvents ? 1 : 0, 0);
+        msg.replyTo = replies;
+        sendRemote(msg);
+    }
+
+    private boolean sendRemote(Message msg) {
+        Messenger current = remote;
+        if (current == null) return false;
+        try {
+            current.send(msg);
+            return true;
+        } catch (RemoteException e) {
+            // The :timer process died, onServiceDisconnected() follows
+            clearRemote();
+            return false;
+        }
+    }
+
+    private void clearRemote() {
+        remote = null;
+        remoteSnapshot = TimerStateSnapshot.STOPPED;
+    }
+
+    // On the main thread, like the LocalBinder's events on the worker thread
+    private void onRemoteMessage(Message msg) {
+        PokerTimerService.Listener current = listener;
+        if (msg.what == TimerServiceMessenger.MSG_STATE) {
+            TimerStateSnapshot snapshot = TimerServiceMessenger.fromBundle(msg.getData());
+            remoteSnapshot = snapshot;
+            if (current != null) {
+                current.onTimerStateChanged(snapshot);
+            }
+        } else if (msg.what == TimerServiceMessenger.MSG_TICK) {
+            if (current != null) {
+                current.onTimerTick(msg.arg1);
+            }
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.toondeboer.pokerkit;
+
+import android.content.Intent;
+import android.os.Bundle;
+import android.os.Handler;
+import android.os.IBinder;
+import android.os.Looper;
+import android.os.Message;
+import android.os.Messenger;
+import android.os.RemoteException;
+
+/**
+ * Binder of PokerTimerService when it runs in its own :timer process
+ * (BuildConfig.TIMER_PROCESS), where the LocalBinder can't reach the modules.
+ *
+ * Commands travel as the same Intents startService() would deliver. The state
+ * changes and ticks a Listener would receive go back to the client's replyTo
+ * Messenger, so TimerServiceConnection can keep the last snapshot locally and
+ * still answer reads synchronously. Like the LocalBinder there is one listener.
+ */
+public class TimerServiceMessenger extends Handler {
+    // Client to service
+    public static final int MSG_COMMAND = 1;
+    public static final int MSG_SET_LISTENER = 2; // arg1: 1 with ticks
+    public static final int MSG_CLEAR_LISTENER = 3;
+    // Service to client
+    public static final int MSG_STATE = 10;
+    public static final int MSG_TICK = 11; // arg1: timeLeft
+
+    private static final String KEY_INTENT = "intent";
+
+    private final PokerTimerService.LocalBinder local;
+    private final Messenger messenger;
+    private RemoteListener listener;
+
+    public TimerServiceMessenger(PokerTimerService.LocalBinder local) {
+        super(Looper.getMainLooper());
+        this.local = local;
+        this.messenger = new Messenger(this);
+    }
+
+    public IBinder getBinder() {
+        return messenger.getBinder();
+    }
+
+    @Override
+    public void handleMessage(Message msg) {
+        switch (msg.what) {
+            case MSG_COMMAND:
+                Intent intent = msg.getData().getParcelable(KEY_INTENT);
+                if (intent != null) {
+                    local.command(intent);
+                }
+                break;
+            case MSG_SET_LISTENER:
+                if (msg.replyTo == null) break;
+                clearListener();
+                listener = new RemoteListener(msg.replyTo);
+                local.setListener(listener, msg.arg1 == 1);
+                // The client starts from the current state, as after a bind
+                listener.onTimerStateChanged(local.getSnapshot());
+                break;
+            case MSG_CLEAR_LISTENER:
+                clearListener();
+                break;
+            default:
+                super.handleMessage(msg);
+        }
+    }
+
+    private void clearListener() {
+        if (listener != null) {
+            local.clearListener(listener);
+            listener = null;
+        }
+    }
+
+    public static Message command(Intent intent) {
+        Message msg = Message.obtain(null, MSG_COMMAND);
+        msg.getData().putParcelable(KEY_INTENT, intent);
+        return msg;
+    }
+
+    public static Bundle toBundle(TimerStateSnapshot snapshot) {
+        Bundle bundle = new Bundle();
+        bundle.putString("tournamentName", snapshot.tournamentName);
+        bundle.putInt("currentBlindLevel", snapshot.currentBlindLevel);
+        bundle.putInt("currentSmallBlind", snapshot.currentSmallBlind);
+        bundle.putInt("currentBigBlind", snapshot.currentBigBlind);
+        bundle.putInt("nextSmallBlind", snapshot.nextSmallBlind);
+        bundle.putInt("nextBigBlind", snapshot.nextBigBlind);
+        bundle.putInt("levelIndex", snapshot.levelIndex);
+        bundle.putLong("endTime", snapshot.endTime);
+        bundle.putInt("timeLeft", snapshot.timeLeft);
+        bundle.putInt("timerDuration", snapshot.timerDuration);
+        bundle.putBoolean("paused", snapshot.paused);
+        bundle.putBoolean("expired", snapshot.expired);
+        bundle.putBoolean("alerting", snapshot.alerting);
+        bundle.putBoolean("foreground", snapshot.foreground);
+        return bundle;
+    }
+
+    public static TimerStateSnapshot fromBundle(Bundle bundle) {
+        return new TimerStateSnapshot(bundle.getString("tournamentName"),
+                bundle.getInt("currentBlindLevel"), bundle.getInt("currentSmallBlind"),
+                bundle.getInt("currentBigBlind"), bundle.getInt("nextSmallBlind"),
+                bundle.getInt("nextBigBlind"), bundle.getInt("levelIndex"),
+                bundle.getLong("endTime"), bundle.getInt("timeLeft"),
+                bundle.getInt("timerDuration"), bundle.getBoolean("paused"),
+                bundle.getBoolean("expired"), bundle.getBoolean("alerting"),
+                bundle.getBoolean("foreground"));
+    }
+
+    // Forwards the service's events to the client process, on the worker thread
+    private class RemoteListener implements PokerTimerService.Listener {
+        private final Messenger replyTo;
+
+        RemoteListener(Messenger replyTo) {
+            this.replyTo = replyTo;
+        }
+
+        @Override
+        public void onTimerStateChanged(TimerStateSnapshot snapshot) {
+            Message msg = Message.obtain(null, MSG_STATE);
+            msg.setData(toBundle(snapshot));
+            send(msg);
+        }
+
+        @Override
+        public void onTimerTick(int timeLeft) {
+            send(Message.obtain(null, MSG_TICK, timeLeft, 0));
+        }
+
+        private void send(Message msg) {
+            try {
+                replyTo.send(msg);
+            } catch (RemoteException e) {
+                // The client process died, it registers again when it binds
+                local.clearListener(this);
+            }
+        }
+    }
+}
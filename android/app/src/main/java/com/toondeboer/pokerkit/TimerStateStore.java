@@ -0,0 +1,196 @@
+package com.toondeboer.pokerkit;
+
+import android.content.Context;
+import android.util.AtomicFile;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.zip.CRC32;
+
+/**
+ * Persists PokerTimerService's state so a START_STICKY restart after process
+ * death can rebuild the notification and countdown without JS.
+ *
+ * The file is a fixed header followed by the tournament name and the packed
+ * blind schedule, ending in a CRC32. It's replaced through AtomicFile, so a
+ * crash mid-write leaves the previous snapshot. save() skips identical
+ * snapshots, so it can be called on every transition; writes run on a
+ * background thread.
+ */
+public class TimerStateStore {
+    private static final String FILE_NAME = "poker_timer_state.bin";
+    private static final int MAGIC = 0x504B5453; // "PKTS"
+    private static final int VERSION = 1;
+    // magic, version, flags, 8 ints, endTime
+    private static final int HEADER_SIZE = 4 + 4 + 4 + 8 * 4 + 8;
+
+    private static final int FLAG_PAUSED = 1;
+    private static final int FLAG_EXPIRED = 1 << 1;
+    private static final int FLAG_ALERT_ON_EXPIRY = 1 << 2;
+    private static final int FLAG_COUNTDOWN_MODE = 1 << 3;
+    private static final int FLAG_FOREGROUND = 1 << 4;
+
+    /** The persisted fields, filled by the service before save(). */
+    public static class State {
+        public String tournamentName = "Poker Tournament";
+        public int currentBlindLevel;
+        public int currentSmallBlind;
+        public int currentBigBlind;
+        public int nextSmallBlind;
+        public int nextBigBlind;
+        public int levelIndex = -1;
+        public int timeLeft;
+        public int timerDuration;
+        public long endTime;
+        public boolean paused = true;
+        public boolean expired;
+        public boolean shouldAlertOnExpiry = true;
+        public boolean countdownMode = true;
+        public boolean foreground;
+        public BlindSchedule schedule;
+    }
+
+    private final AtomicFile file;
+    private final ExecutorService writer = Executors.newSingleThreadExecutor();
+    private byte[] lastWritten;
+
+    public TimerStateStore(Context context) {
+        file = new AtomicFile(new File(context.getFilesDir(), FILE_NAME));
+    }
+
+    public void save(State state) {
+        final byte[] data = encode(state);
+        if (Arrays.equals(data, lastWritten)) {
+            return;
+        }
+        lastWritten = data;
+
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                FileOutputStream out = null;
+                try {
+                    out = file.startWrite();
+                    out.write(data);
+                    file.finishWrite(out);
+                } catch (IOException e) {
+                    if (out != null) {
+                        file.failWrite(out);
+                    }
+                    e.printStackTrace();
+                }
+            }
+        });
+    }
+
+    // Returns null when there is no usable snapshot
+    public State load() {
+        try {
+            return decode(file.readFully());
+        } catch (FileNotFoundException e) {
+            return null;
+        } catch (IOException | RuntimeException e) {
+            e.printStackTrace();
+            return null;
+        }
+    }
+
+    public void clear() {
+        lastWritten = null;
+        writer.execute(new Runnable() {
+            @Override
+            public void run() {
+                file.delete();
+            }
+        });
+    }
+
+    // Queued writes still finish
+    public void close() {
+        writer.shutdown();
+    }
+
+    private static byte[] encode(State state) {
+        byte[] name = state.tournamentName.getBytes(StandardCharsets.UTF_8);
+        int[] schedule = state.schedule != null ? state.schedule.toPacked() : new int[0];
+
+        ByteBuffer buffer = ByteBuffer.allocate(
+                HEADER_SIZE + 4 + name.length + 4 + schedule.length * 4 + 8);
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt((state.paused ? FLAG_PAUSED : 0)
+                | (state.expired ? FLAG_EXPIRED : 0)
+                | (state.shouldAlertOnExpiry ? FLAG_ALERT_ON_EXPIRY : 0)
+                | (state.countdownMode ? FLAG_COUNTDOWN_MODE : 0)
+                | (state.foreground ? FLAG_FOREGROUND : 0));
+        buffer.putInt(state.currentBlindLevel);
+        buffer.putInt(state.currentSmallBlind);
+        buffer.putInt(state.currentBigBlind);
+        buffer.putInt(state.nextSmallBlind);
+        buffer.putInt(state.nextBigBlind);
+        buffer.putInt(state.levelIndex);
+        buffer.putInt(state.timeLeft);
+        buffer.putInt(state.timerDuration);
+        buffer.putLong(state.endTime);
+        buffer.putInt(name.length);
+        buffer.put(name);
+        buffer.putInt(schedule.length);
+        for (int value : schedule) {
+            buffer.putInt(value);
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(buffer.array(), 0, buffer.position());
+        buffer.putLong(crc.getValue());
+        return buffer.array();
+    }
+
+    private static State decode(byte[] data) {
+        if (data.length < HEADER_SIZE + 8) {
+            return null;
+        }
+
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length - 8);
+        ByteBuffer buffer = ByteBuffer.wrap(data);
+        if (buffer.getLong(data.length - 8) != crc.getValue()
+                || buffer.getInt() != MAGIC
+                || buffer.getInt() != VERSION) {
+            return null;
+        }
+
+        State state = new State();
+        int flags = buffer.getInt();
+        state.paused = (flags & FLAG_PAUSED) != 0;
+        state.expired = (flags & FLAG_EXPIRED) != 0;
+        state.shouldAlertOnExpiry = (flags & FLAG_ALERT_ON_EXPIRY) != 0;
+        state.countdownMode = (flags & FLAG_COUNTDOWN_MODE) != 0;
+        state.foreground = (flags & FLAG_FOREGROUND) != 0;
+        state.currentBlindLevel = buffer.getInt();
+        state.currentSmallBlind = buffer.getInt();
+        state.currentBigBlind = buffer.getInt();
+        state.nextSmallBlind = buffer.getInt();
+        state.nextBigBlind = buffer.getInt();
+        state.levelIndex = buffer.getInt();
+        state.timeLeft = buffer.getInt();
+        state.timerDuration = buffer.getInt();
+        state.endTime = buffer.getLong();
+
+        byte[] name = new byte[buffer.getInt()];
+        buffer.get(name);
+        state.tournamentName = new String(name, StandardCharsets.UTF_8);
+
+        int[] schedule = new int[buffer.getInt()];
+        for (int i = 0; i < schedule.length; i++) {
+            schedule[i] = buffer.getInt();
+        }
+        state.schedule = schedule.length > 0 ? BlindSchedule.fromPacked(schedule) : null;
+        return state;
+    }
+}
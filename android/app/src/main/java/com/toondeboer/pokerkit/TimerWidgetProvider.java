@@ -0,0 +1,110 @@
+package com.toondeboer.pokerkit;
+
+import android.appwidget.AppWidgetManager;
+import android.appwidget.AppWidgetProvider;
+import android.content.ComponentName;
+import android.content.Context;
+import android.os.SystemClock;
+import android.view.View;
+import android.widget.RemoteViews;
+
+/**
+ * Home screen widget with the level, blinds and countdown of the timer.
+ *
+ * The seconds are drawn by a Chronometer counting down in the launcher's
+ * process, so a running timer needs no updates from us until its next
+ * transition. PokerTimerService pushes those through TimerWidgetUpdater;
+ * onUpdate() only runs when a widget is added or the launcher restarts, and
+ * then renders the state persisted by TimerStateStore, without starting JS.
+ */
+public class TimerWidgetProvider extends AppWidgetProvider {
+    private static final int OPEN_APP_REQUEST_CODE = 3;
+
+    @Override
+    public void onUpdate(Context context, AppWidgetManager manager, int[] appWidgetIds) {
+        TimerStateStore store = new TimerStateStore(context);
+        TimerStateStore.State state = store.load();
+        store.close();
+
+        manager.updateAppWidget(appWidgetIds, buildViews(context, toSnapshot(state),
+                new NotificationTextFormatter()));
+    }
+
+    public static ComponentName getComponentName(Context context) {
+        return new ComponentName(context, TimerWidgetProvider.class);
+    }
+
+    // The persisted state only exists while the timer runs in the foreground
+    private static TimerStateSnapshot toSnapshot(TimerStateStore.State state) {
+        if (state == null || !state.foreground) {
+            return TimerStateSnapshot.STOPPED;
+        }
+        return new TimerStateSnapshot(state.tournamentName, state.currentBlindLevel,
+                state.currentSmallBlind, state.currentBigBlind, state.nextSmallBlind,
+                state.nextBigBlind, state.levelIndex, state.endTime, state.timeLeft,
+                state.timerDuration, state.paused, state.expired, false, true);
+    }
+
+    // Same colors as the notification, derived from the snapshot alone
+    public static int statusColor(TimerStateSnapshot snapshot, int timeLeft) {
+        if (snapshot.expired) {
+            return TimerCore.COLOR_EXPIRED;
+        } else if (snapshot.paused) {
+            return TimerCore.COLOR_PAUSED;
+        } else if (timeLeft <= TimerCore.LOW_TIME_THRESHOLD_SECONDS) {
+            return TimerCore.COLOR_LOW_TIME;
+        }
+        return TimerCore.COLOR_RUNNING;
+    }
+
+    public static RemoteViews buildViews(Context context, TimerStateSnapshot snapshot,
+                                         NotificationTextFormatter formatter) {
+        RemoteViews views = new RemoteViews(context.getPackageName(), R.layout.widget_timer);
+        views.setOnClickPendingIntent(R.id.widget_root,
+                NotificationTemplateCache.createOpenAppIntent(context, OPEN_APP_REQUEST_CODE));
+
+        if (!snapshot.foreground) {
+            views.setTextViewText(R.id.widget_title, context.getString(R.string.app_name));
+            views.setTextViewText(R.id.widget_level, context.getString(R.string.widget_idle));
+            views.setViewVisibility(R.id.widget_blinds, View.GONE);
+            views.setViewVisibility(R.id.widget_next, View.GONE);
+            views.setViewVisibility(R.id.widget_countdown, View.GONE);
+            views.setViewVisibility(R.id.widget_time, View.GONE);
+            return views;
+        }
+
+        long wallNow = System.currentTimeMillis();
+        int timeLeft = snapshot.getTimeLeft(wallNow);
+        boolean running = !snapshot.paused && !snapshot.expired && timeLeft > 0;
+        int color = statusColor(snapshot, timeLeft);
+
+        views.setTextViewText(R.id.widget_title, snapshot.tournamentName);
+        views.setTextViewText(R.id.widget_level, "Level " + snapshot.currentBlindLevel);
+        views.setTextViewText(R.id.widget_blinds,
+                formatter.formatBlinds(snapshot.currentSmallBlind, snapshot.currentBigBlind));
+        views.setTextViewText(R.id.widget_next, "Next: "
+                + formatter.formatBlinds(snapshot.nextSmallBlind, snapshot.nextBigBlind));
+        views.setViewVisibility(R.id.widget_blinds, View.VISIBLE);
+        views.setViewVisibility(R.id.widget_next,
+                snapshot.nextBigBlind > 0 ? View.VISIBLE : View.GONE);
+
+        if (running) {
+            // Chronometer bases are elapsedRealtime(), endTime is wall clock
+            long base = SystemClock.elapsedRealtime() + (snapshot.endTime - wallNow);
+            views.setChronometer(R.id.widget_countdown, base, null, true);
+            views.setChronometerCountDown(R.id.widget_countdown, true);
+            views.setTextColor(R.id.widget_countdown, color);
+            views.setViewVisibility(R.id.widget_countdown, View.VISIBLE);
+            views.setViewVisibility(R.id.widget_time, View.GONE);
+        } else {
+            // A stopped Chronometer would show the time the launcher applied it at
+            views.setChronometer(R.id.widget_countdown, 0, null, false);
+            views.setTextViewText(R.id.widget_time,
+                    snapshot.expired ? "0:00" : formatter.formatTime(timeLeft));
+            views.setTextColor(R.id.widget_time, color);
+            views.setViewVisibility(R.id.widget_countdown, View.GONE);
+            views.setViewVisibility(R.id.widget_time, View.VISIBLE);
+        }
+        return views;
+    }
+}
@@ -0,0 +1,69 @@
+package com.toondeboer.pokerkit;
+
+import android.appwidget.AppWidgetManager;
+import android.content.ComponentName;
+import android.content.Context;
+import java.util.Objects;
+
+/**
+ * Pushes PokerTimerService's snapshots to the home screen widgets, but only
+ * when something the widget draws changed. While running the countdown is the
+ * widget's own Chronometer, so per-second snapshots in tick mode are skipped
+ * and a push only happens on transitions: level, pause, expiry, low time.
+ *
+ * Confined to the service's worker thread.
+ */
+public class TimerWidgetUpdater {
+    private final Context context;
+    private final AppWidgetManager manager;
+    private final ComponentName component;
+    private final NotificationTextFormatter formatter = new NotificationTextFormatter();
+
+    // What the widgets currently show
+    private boolean hasPushed = false;
+    private TimerStateSnapshot last;
+    private int lastColor;
+    private int lastTimeLeft;
+
+    public TimerWidgetUpdater(Context context) {
+        this.context = context;
+        this.manager = AppWidgetManager.getInstance(context);
+        this.component = TimerWidgetProvider.getComponentName(context);
+    }
+
+    public void update(TimerStateSnapshot snapshot) {
+        int timeLeft = snapshot.getTimeLeft(System.currentTimeMillis());
+        int color = TimerWidgetProvider.statusColor(snapshot, timeLeft);
+        boolean running = !snapshot.paused && !snapshot.expired && timeLeft > 0;
+        // The chronometer counts by itself, only a stopped time is drawn by us
+        int shownTimeLeft = running ? -1 : timeLeft;
+
+        if (hasPushed && color == lastColor && shownTimeLeft == lastTimeLeft
+                && sameLayout(snapshot, last)) {
+            return;
+        }
+
+        int[] ids = manager.getAppWidgetIds(component);
+        hasPushed = true;
+        last = snapshot;
+        lastColor = color;
+        lastTimeLeft = shownTimeLeft;
+        if (ids.length == 0) return;
+
+        manager.updateAppWidget(ids, TimerWidgetProvider.buildViews(context, snapshot, formatter));
+    }
+
+    // Fields the widget shows; endTime moves the chronometer base
+    private static boolean sameLayout(TimerStateSnapshot a, TimerStateSnapshot b) {
+        return a.foreground == b.foreground
+                && a.paused == b.paused
+                && a.expired == b.expired
+                && a.endTime == b.endTime
+                && a.currentBlindLevel == b.currentBlindLevel
+                && a.currentSmallBlind == b.currentSmallBlind
+                && a.currentBigBlind == b.currentBigBlind
+                && a.nextSmallBlind == b.nextSmallBlind
+                && a.nextBigBlind == b.nextBigBlind
+                && Objects.equals(a.tournamentName, b.tournamentName);
+    }
+}
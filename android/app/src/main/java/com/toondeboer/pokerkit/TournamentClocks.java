@@ -0,0 +1,402 @@
+package com.toondeboer.pokerkit;
+
+import android.app.Notification;
+import android.app.NotificationManager;
+import android.os.Handler;
+import androidx.core.app.NotificationCompat;
+import java.io.PrintWriter;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Additional tournament clocks next to PokerTimerService's own timer, keyed
+ * by an ID from the app, for running several tournaments from one device.
+ *
+ * All clocks share one DeadlineQueue of next-transition times and a single
+ * Handler message armed for the earliest one, so the service wakes once per
+ * actual transition however many clocks run. An exact alarm is armed for the
+ * same time, since Doze defers the Handler message; the service passes it on
+ * to onAlarm(). Each clock has a chronometer
+ * notification (the system renders the seconds) in one group under an
+ * InboxStyle summary.
+ *
+ * Runs on the service's worker thread, except getSnapshots().
+ */
+public class TournamentClocks {
+    public static final String COMMAND_PAUSE = "pause";
+    public static final String COMMAND_RESUME = "resume";
+    public static final String COMMAND_RESET = "reset";
+    public static final String COMMAND_REMOVE = "remove";
+
+    private static final String GROUP_KEY = "com.toondeboer.pokerkit.CLOCKS";
+    private static final int SUMMARY_NOTIFICATION_ID = 1003;
+    private static final int FIRST_CLOCK_NOTIFICATION_ID = 2000;
+
+    private static class Clock {
+        final String id;
+        final int slot;
+        final TimerCore core;
+        final NotificationTextFormatter formatter = new NotificationTextFormatter();
+        final NotificationTemplateCache.VisibleFields posted =
+                new NotificationTemplateCache.VisibleFields();
+        String name;
+        int currentBlindLevel;
+        int currentSmallBlind;
+        int currentBigBlind;
+        int nextSmallBlind;
+        int nextBigBlind;
+
+        Clock(String id, int slot, TimerCore core) {
+            this.id = id;
+            this.slot = slot;
+            this.core = core;
+        }
+    }
+
+    private final Handler handler;
+    private final NotificationManager notificationManager;
+    private final NotificationTemplateCache templates;
+    private final ExpiryAlarmScheduler alarm;
+    private final TimerCore.Clock timeSource;
+
+    private final Map<String, Clock> clocks = new LinkedHashMap<>();
+    private Clock[] bySlot = new Clock[8];
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private int nextSlot = 0;
+    private final DeadlineQueue queue = new DeadlineQueue();
+    // Time the wakeup is posted for, -1 when none is
+    private long armedTime = -1;
+    private boolean dispatching = false;
+    // Color-only posts wait for the screen, alerts don't
+    private boolean screenInteractive = true;
+    private volatile long wakeups = 0;
+    private String lastSummary;
+    private volatile Map<String, TimerStateSnapshot> snapshots = Collections.emptyMap();
+
+    private final Runnable wakeup = new Runnable() {
+        @Override
+        public void run() {
+            armedTime = -1;
+            wakeups++;
+            long now = timeSource.elapsedRealtime();
+            boolean changed = false;
+            // Every clock due by now in this one wakeup, arming once at the end
+            dispatching = true;
+            while (!queue.isEmpty() && queue.peekTime() <= now) {
+                Clock clock = bySlot[queue.poll()];
+                onTransition(clock);
+                changed = true;
+            }
+            dispatching = false;
+            if (changed) {
+                publish();
+            }
+            arm();
+        }
+    };
+
+    public TournamentClocks(Handler handler, NotificationManager notificationManager,
+                            NotificationTemplateCache templates, ExpiryAlarmScheduler alarm,
+                            TimerCore.Clock timeSource) {
+        this.handler = handler;
+        this.notificationManager = notificationManager;
+        this.templates = templates;
+        this.alarm = alarm;
+        this.timeSource = timeSource;
+    }
+
+    public boolean isEmpty() {
+        return clocks.isEmpty();
+    }
+
+    // Safe from any thread
+    public Map<String, TimerStateSnapshot> getSnapshots() {
+        return snapshots;
+    }
+
+    /**
+     * Adds a paused clock, or updates the name, structure and level length of
+     * an existing one. levelIndex only applies to a new clock, an existing
+     * one keeps its level like the service's own timer does.
+     */
+    public void set(String id, String name, BlindSchedule schedule, int levelIndex,
+                    int levelSeconds) {
+        Clock clock = clocks.get(id);
+        if (clock == null) {
+            clock = new Clock(id, allocateSlot(), new TimerCore(timeSource));
+            bySlot[clock.slot] = clock;
+            clocks.put(id, clock);
+        }
+
+        clock.name = name;
+        clock.formatter.setTournamentName(name);
+        clock.core.setBlindSchedule(schedule, levelIndex);
+        clock.core.changeTimerDuration(levelSeconds);
+        loadLevel(clock);
+        postClock(clock, false);
+        reschedule(clock);
+        publish();
+    }
+
+    // Returns false for an unknown clock or command
+    public boolean command(String id, String command) {
+        Clock clock = clocks.get(id);
+        if (clock == null) return false;
+
+        if (COMMAND_PAUSE.equals(command)) {
+            clock.core.pause();
+        } else if (COMMAND_RESUME.equals(command)) {
+            clock.core.resume();
+        } else if (COMMAND_RESET.equals(command)) {
+            clock.core.reset();
+        } else if (COMMAND_REMOVE.equals(command)) {
+            remove(clock);
+            publish();
+            return true;
+        } else {
+            return false;
+        }
+
+        postClock(clock, false);
+        reschedule(clock);
+        publish();
+        return true;
+    }
+
+    // The exact alarm fired, runs the due clocks now instead of at the deferred Handler message
+    public void onAlarm() {
+        long lateness = alarm.onFired(timeSource.elapsedRealtime());
+        if (lateness >= 0) {
+            LatenessStats.ALARM_DELIVERY.record(lateness);
+        }
+        if (armedTime < 0) return;
+
+        handler.removeCallbacks(wakeup);
+        wakeup.run();
+    }
+
+    public void clear() {
+        for (Clock clock : clocks.values()) {
+            notificationManager.cancel(notificationId(clock));
+        }
+        clocks.clear();
+        Arrays.fill(bySlot, null);
+        freeSlots.clear();
+        nextSlot = 0;
+        queue.clear();
+        handler.removeCallbacks(wakeup);
+        alarm.cancel();
+        armedTime = -1;
+        notificationManager.cancel(SUMMARY_NOTIFICATION_ID);
+        lastSummary = null;
+        publish();
+    }
+
+    // Catches up on the posts skipped while the screen was off
+    public void onScreenChanged(boolean interactive) {
+        screenInteractive = interactive;
+        if (!interactive) return;
+
+        for (Clock clock : clocks.values()) {
+            postClock(clock, false);
+        }
+    }
+
+    // The wall clock was set: deadlines hold, the chronometers need the new endTime
+    public void onWallClockChanged() {
+        for (Clock clock : clocks.values()) {
+            if (clock.core.calibrateWallClock() != 0) {
+                postClock(clock, false);
+            }
+        }
+        publish();
+    }
+
+    // From dumpsys on a binder thread, so only from the published snapshots
+    public void dump(PrintWriter writer) {
+        Map<String, TimerStateSnapshot> current = snapshots;
+        writer.println("Clocks: count=" + current.size() + " wakeups=" + wakeups);
+        long now = System.currentTimeMillis();
+        for (Map.Entry<String, TimerStateSnapshot> entry : current.entrySet()) {
+            TimerStateSnapshot clock = entry.getValue();
+            writer.println("  " + entry.getKey() + ": level=" + clock.currentBlindLevel
+                    + " paused=" + clock.paused + " expired=" + clock.expired
+                    + " timeLeft=" + clock.getTimeLeft(now));
+        }
+    }
+
+    private void onTransition(Clock clock) {
+        int previousColor = clock.core.getStatusColor();
+        int changes = clock.core.update();
+        boolean alert = (changes & (TimerCore.EXPIRED | TimerCore.LEVEL_ADVANCED)) != 0;
+        if ((changes & TimerCore.LEVEL_ADVANCED) != 0) {
+            loadLevel(clock);
+        }
+        if (alert || (screenInteractive && clock.core.getStatusColor() != previousColor)) {
+            postClock(clock, alert);
+        }
+        reschedule(clock);
+    }
+
+    private void reschedule(Clock clock) {
+        long next = clock.core.isRunning() ? clock.core.nextTransitionTime() : -1;
+        if (next >= 0) {
+            queue.schedule(clock.slot, next);
+        } else {
+            queue.cancel(clock.slot);
+        }
+        arm();
+    }
+
+    // One Handler message and one alarm for the earliest transition of all clocks
+    private void arm() {
+        long head = queue.isEmpty() ? -1 : queue.peekTime();
+        if (dispatching || head == armedTime) return;
+
+        handler.removeCallbacks(wakeup);
+        armedTime = head;
+        if (head >= 0) {
+            long delay = Math.max(0, head - timeSource.elapsedRealtime());
+            handler.postDelayed(wakeup, delay);
+            alarm.arm(head);
+        } else {
+            alarm.cancel();
+        }
+    }
+
+    private void remove(Clock clock) {
+        clocks.remove(clock.id);
+        bySlot[clock.slot] = null;
+        freeSlots.push(clock.slot);
+        queue.cancel(clock.slot);
+        arm();
+        notificationManager.cancel(notificationId(clock));
+        postSummary();
+    }
+
+    private int allocateSlot() {
+        if (!freeSlots.isEmpty()) {
+            return freeSlots.pop();
+        }
+        int slot = nextSlot++;
+        if (slot >= bySlot.length) {
+            bySlot = Arrays.copyOf(bySlot, bySlot.length * 2);
+        }
+        return slot;
+    }
+
+    private void loadLevel(Clock clock) {
+        BlindSchedule schedule = clock.core.getSchedule();
+        int index = clock.core.getLevelIndex();
+        int next = index + 1;
+        boolean hasNext = schedule.hasLevel(next);
+
+        clock.currentBlindLevel = index + 1;
+        clock.currentSmallBlind = schedule.getSmallBlind(index);
+        clock.currentBigBlind = schedule.getBigBlind(index);
+        clock.nextSmallBlind = hasNext ? schedule.getSmallBlind(next) : 0;
+        clock.nextBigBlind = hasNext ? schedule.getBigBlind(next) : 0;
+        clock.formatter.setLevel(clock.currentBlindLevel, clock.currentSmallBlind,
+                clock.currentBigBlind, schedule.getAnte(index), schedule.isBreak(index),
+                clock.nextSmallBlind, clock.nextBigBlind,
+                hasNext ? schedule.getAnte(next) : 0, hasNext && schedule.isBreak(next));
+    }
+
+    private int notificationId(Clock clock) {
+        return FIRST_CLOCK_NOTIFICATION_ID + clock.slot;
+    }
+
+    /**
+     * Only on transitions, and skipped when no visible field changed. An alert
+     * posts on the alert channel so it sounds once; the channel counts as a
+     * visible field, so the next post moves it back to the quiet one.
+     */
+    private void postClock(Clock clock, boolean alert) {
+        TimerCore core = clock.core;
+        boolean paused = core.isPaused();
+        boolean expired = core.isExpired();
+        int timeLeft = core.getTimeLeft();
+        boolean chronometer = !paused && !expired && timeLeft > 0;
+        String title = clock.formatter.title(paused, expired);
+        CharSequence content = clock.formatter.content(paused, timeLeft, expired, chronometer);
+        int color = core.getStatusColor();
+        long chronometerBase = chronometer ? core.getEndTime() : 0;
+
+        if (!clock.posted.update(title, content, "", color, chronometerBase, alert ? 1 : 0)) {
+            return;
+        }
+
+        NotificationCompat.Builder builder = templates.getClockBuilder(alert, GROUP_KEY)
+                .setContentTitle(title)
+                .setContentText(content.toString())
+                .setColor(color)
+                .setSortKey(clock.id);
+        if (chronometer) {
+            builder.setUsesChronometer(true)
+                    .setChronometerCountDown(true)
+                    .setWhen(chronometerBase)
+                    .setShowWhen(true);
+        } else {
+            builder.setUsesChronometer(false)
+                    .setShowWhen(false);
+        }
+
+        notify(notificationId(clock), builder.build());
+        postSummary();
+    }
+
+    // Reposted only when a line changed, the lines hold no seconds
+    private void postSummary() {
+        if (clocks.isEmpty()) {
+            if (lastSummary != null) {
+                notificationManager.cancel(SUMMARY_NOTIFICATION_ID);
+                lastSummary = null;
+            }
+            return;
+        }
+
+        NotificationCompat.InboxStyle style = new NotificationCompat.InboxStyle();
+        StringBuilder summary = new StringBuilder();
+        for (Clock clock : clocks.values()) {
+            String line = clock.name + " • Level " + clock.currentBlindLevel + " • "
+                    + clock.formatter.getCurrentBlinds()
+                    + (clock.core.isExpired() ? " • Time's up"
+                    : clock.core.isPaused() ? " • Paused" : "");
+            style.addLine(line);
+            summary.append(line).append('\n');
+        }
+        String text = summary.toString();
+        if (text.equals(lastSummary)) return;
+        lastSummary = text;
+
+        String title = clocks.size() == 1 ? "1 tournament" : clocks.size() + " tournaments";
+        Notification notification = templates.getClockSummaryBuilder(GROUP_KEY)
+                .setContentTitle(title)
+                .setStyle(style.setBigContentTitle(title))
+                .build();
+        notify(SUMMARY_NOTIFICATION_ID, notification);
+    }
+
+    private void notify(int id, Notification notification) {
+        long start = System.nanoTime();
+        notificationManager.notify(id, notification);
+        TimerMetrics.NOTIFY_DURATION.recordNanos(System.nanoTime() - start);
+        TimerMetrics.recordRepost();
+    }
+
+    private void publish() {
+        Map<String, TimerStateSnapshot> result = new LinkedHashMap<>();
+        for (Clock clock : clocks.values()) {
+            TimerCore core = clock.core;
+            result.put(clock.id, new TimerStateSnapshot(clock.name, clock.currentBlindLevel,
+                    clock.currentSmallBlind, clock.currentBigBlind, clock.nextSmallBlind,
+                    clock.nextBigBlind, core.getLevelIndex(), core.getEndTime(),
+                    core.getTimeLeft(), core.getTimerDuration(), core.isPaused(),
+                    core.isExpired(), false, true));
+        }
+        snapshots = Collections.unmodifiableMap(result);
+    }
+}
@@ -0,0 +1,79 @@
+package com.toondeboer.pokerkit;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * One transition of TournamentClocks' shared scheduler: take the earliest
+ * clock, update it and queue its next transition. The cost should grow with
+ * log(clocks), not with the number of clocks, at 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class DeadlineQueueBenchmark {
+    private static final int LEVEL_SECONDS = 1200;
+
+    @Param({"1", "12", "48"})
+    public int clocks;
+
+    private static class FakeClock implements TimerCore.Clock {
+        long now = 1_000_000L;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return now;
+        }
+    }
+
+    private FakeClock clock;
+    private TimerCore[] cores;
+    private DeadlineQueue queue;
+
+    @Setup
+    public void setup() {
+        clock = new FakeClock();
+        cores = new TimerCore[clocks];
+        queue = new DeadlineQueue();
+        int[] packed = {1000, 2000, 0, 0};
+        for (int i = 0; i < clocks; i++) {
+            TimerCore core = new TimerCore(clock);
+            core.setBlindSchedule(BlindSchedule.fromPacked(packed), 0);
+            core.changeTimerDuration(LEVEL_SECONDS);
+            // Staggered starts, as tables are started one by one
+            clock.now += 7_000;
+            core.resume();
+            cores[i] = core;
+            queue.schedule(i, core.nextTransitionTime());
+        }
+    }
+
+    @Benchmark
+    public int transition() {
+        int slot = queue.poll();
+        TimerCore core = cores[slot];
+        clock.now = Math.max(clock.now, core.nextTransitionTime());
+        int changes = core.update();
+        long next = core.nextTransitionTime();
+        if (next < 0) {
+            // Expired, start the level again to keep the queue full
+            core.reset();
+            core.resume();
+            next = core.nextTransitionTime();
+        }
+        queue.schedule(slot, next);
+        return changes;
+    }
+}
@@ -0,0 +1,91 @@
+package com.toondeboer.pokerkit;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * Compares one notification text update (content + big text) through the
+ * previous String.format path against NotificationTextFormatter.
+ *
+ * Run with the gc profiler (enabled in build.gradle) and compare
+ * gc.alloc.rate.norm: the formatter path should report 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class NotificationTextBenchmark {
+    @Param({"en-US", "de-DE"})
+    public String locale;
+
+    private NotificationTextFormatter formatter;
+    private int timeLeft;
+
+    private final int currentBlindLevel = 12;
+    private final int currentSmallBlind = 1500;
+    private final int currentBigBlind = 3000;
+    private final int nextSmallBlind = 2000;
+    private final int nextBigBlind = 4000;
+
+    @Setup
+    public void setup() {
+        Locale.setDefault(Locale.forLanguageTag(locale));
+        formatter = new NotificationTextFormatter();
+        formatter.setLevel(currentBlindLevel, currentSmallBlind, currentBigBlind,
+                nextSmallBlind, nextBigBlind);
+        timeLeft = 1200;
+    }
+
+    private int nextTimeLeft() {
+        timeLeft = timeLeft > 1 ? timeLeft - 1 : 1200;
+        return timeLeft;
+    }
+
+    @Benchmark
+    public void stringFormat(Blackhole blackhole) {
+        int seconds = nextTimeLeft();
+        blackhole.consume(legacyContent(seconds));
+        blackhole.consume(legacyBigText(seconds));
+    }
+
+    @Benchmark
+    public void formatter(Blackhole blackhole) {
+        int seconds = nextTimeLeft();
+        blackhole.consume(formatter.content(false, seconds, false, false));
+        blackhole.consume(formatter.bigText(false, seconds, false, false));
+    }
+
+    // Copy of the running branch of PokerTimerService before the formatter was introduced
+    private String legacyContent(int seconds) {
+        StringBuilder content = new StringBuilder();
+        content.append("Level ").append(currentBlindLevel);
+        content.append(" • ").append(legacyBlinds(currentSmallBlind, currentBigBlind));
+        content.append(" • ").append(legacyTime(seconds)).append(" left");
+        return content.toString();
+    }
+
+    private String legacyBigText(int seconds) {
+        StringBuilder bigText = new StringBuilder();
+        bigText.append("📊 Current Level: ").append(currentBlindLevel).append("\n");
+        bigText.append("💰 Blinds: ").append(legacyBlinds(currentSmallBlind, currentBigBlind));
+        bigText.append("\n⏱️ Time Left: ").append(legacyTime(seconds));
+        bigText.append("\n⬆️ Next Level: ").append(legacyBlinds(nextSmallBlind, nextBigBlind));
+        return bigText.toString();
+    }
+
+    private static String legacyBlinds(int smallBlind, int bigBlind) {
+        return String.format("%,d/%,d", smallBlind, bigBlind);
+    }
+
+    private static String legacyTime(int seconds) {
+        return String.format("%d:%02d", seconds / 60, seconds % 60);
+    }
+}
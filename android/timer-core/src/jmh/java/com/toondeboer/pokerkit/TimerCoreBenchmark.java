@@ -0,0 +1,102 @@
+package com.toondeboer.pokerkit;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Cost of the TimerCore calls PokerTimerService makes per wakeup and per
+ * command, against a fake clock so every run sees the same timeline.
+ *
+ * With the gc profiler (enabled in build.gradle), gc.alloc.rate.norm is the
+ * allocation per tick: update() and the level advance should report 0 B/op.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class TimerCoreBenchmark {
+    private static final int LEVEL_SECONDS = 1200;
+
+    private static class FakeClock implements TimerCore.Clock {
+        long now = 1_000_000L;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return now;
+        }
+    }
+
+    private FakeClock clock;
+    private TimerCore core;
+
+    @Setup
+    public void setup() {
+        clock = new FakeClock();
+        core = new TimerCore(clock);
+
+        // 1000/2000 doubling every level, like a long tournament structure
+        int[] packed = new int[40 * BlindSchedule.STRIDE];
+        for (int i = 0; i < 40; i++) {
+            packed[i * BlindSchedule.STRIDE] = 1000 << (i % 16);
+            packed[i * BlindSchedule.STRIDE + 1] = 2000 << (i % 16);
+        }
+        core.setBlindSchedule(BlindSchedule.fromPacked(packed), 0);
+        core.changeTimerDuration(LEVEL_SECONDS);
+        core.resume();
+    }
+
+    // One per-second tick of the ticking notification mode
+    @Benchmark
+    public int tick() {
+        clock.now += 1000;
+        int changes = core.update();
+        if (core.getTimeLeft() == 0) {
+            core.reset();
+            core.resume();
+        }
+        return changes;
+    }
+
+    // A countdown-mode wakeup: jump to the next transition and update
+    @Benchmark
+    public int transition() {
+        long next = core.nextTransitionTime();
+        if (next < 0) {
+            core.reset();
+            core.resume();
+            next = core.nextTransitionTime();
+        }
+        clock.now = Math.max(clock.now, next);
+        return core.update() | core.getStatusColor();
+    }
+
+    // Background level advance, wrapping to the first level at the end of the schedule
+    @Benchmark
+    public int advanceLevel() {
+        clock.now += LEVEL_SECONDS * 1000L;
+        int changes = core.update();
+        if (core.isExpired()) {
+            core.setLevelIndex(0);
+            core.reset();
+            core.resume();
+        }
+        return changes;
+    }
+
+    // The pause/resume round trip of the app's play button
+    @Benchmark
+    public boolean pauseResume() {
+        clock.now += 250;
+        return core.pause() & core.resume();
+    }
+}
@@ -0,0 +1,58 @@
+package com.toondeboer.pokerkit;
+
+/**
+ * The tournament's blind structure as one packed int array, STRIDE ints per
+ * level: small blind, big blind, ante and flags. Pushed once from JS so the
+ * service can advance levels on its own.
+ */
+public final class BlindSchedule {
+    public static final int STRIDE = 4;
+    public static final int FLAG_BREAK = 1;
+
+    private static final int SMALL_BLIND = 0;
+    private static final int BIG_BLIND = 1;
+    private static final int ANTE = 2;
+    private static final int FLAGS = 3;
+
+    private final int[] levels;
+
+    private BlindSchedule(int[] levels) {
+        this.levels = levels;
+    }
+
+    public static BlindSchedule fromPacked(int[] packed) {
+        if (packed == null || packed.length == 0 || packed.length % STRIDE != 0) {
+            throw new IllegalArgumentException("Blind schedule must have " + STRIDE
+                    + " values per level, got " + (packed == null ? 0 : packed.length));
+        }
+        return new BlindSchedule(packed.clone());
+    }
+
+    public int size() {
+        return levels.length / STRIDE;
+    }
+
+    public boolean hasLevel(int index) {
+        return index >= 0 && index < size();
+    }
+
+    public int getSmallBlind(int index) {
+        return levels[index * STRIDE + SMALL_BLIND];
+    }
+
+    public int getBigBlind(int index) {
+        return levels[index * STRIDE + BIG_BLIND];
+    }
+
+    public int getAnte(int index) {
+        return levels[index * STRIDE + ANTE];
+    }
+
+    public boolean isBreak(int index) {
+        return (levels[index * STRIDE + FLAGS] & FLAG_BREAK) != 0;
+    }
+
+    public int[] toPacked() {
+        return levels.clone();
+    }
+}
@@ -0,0 +1,238 @@
+package com.toondeboer.pokerkit;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+
+/**
+ * Follower side of the LAN clock sync: receives ClockSyncHost's state frames
+ * and hands them over as snapshots on this device's own clocks.
+ *
+ * The offset between the host's and this device's monotonic clocks comes
+ * from NTP-style pings. For each one
+ *
+ *   offset = ((t1 - t0) + (t2 - t3)) / 2,   rtt = (t3 - t0) - (t2 - t1)
+ *
+ * with t0/t3 sent and received here and t1/t2 received and sent by the
+ * host. The error of a sample is at most rtt / 2, so of the last
+ * SAMPLE_COUNT samples the one with the lowest rtt is used; on a LAN that is
+ * a few milliseconds. Until the first pong the state frame's own send time
+ * stands in, which is off by the one-way delay.
+ *
+ * Pings start as a burst and then repeat every PING_INTERVAL_MS, which also
+ * keeps up with the drift between the two clocks. Pings carry the last seen
+ * sequence, so a lost state frame is resent by the host within one interval.
+ */
+public class ClockSyncFollower {
+    public interface Listener {
+        // On the receive thread, for new host states and better offset estimates
+        void onHostState(TimerStateSnapshot state);
+    }
+
+    public static final long PING_INTERVAL_MS = 10_000;
+    public static final long BURST_INTERVAL_MS = 100;
+    public static final int BURST_COUNT = 8;
+    public static final int SAMPLE_COUNT = 8;
+    // Without a frame or pong for this long the host is considered gone
+    public static final long HOST_TIMEOUT_MS = 3 * ClockSyncHost.HEARTBEAT_INTERVAL_MS;
+    // A better offset only moves the deadline when it changed at least this much
+    private static final long REDELIVER_THRESHOLD_MS = 2;
+
+    private final DatagramSocket socket;
+    private final TimerCore.Clock clock;
+    private final Listener listener;
+    private final byte[] sendBuffer = new byte[ClockSyncFrame.MAX_SIZE];
+    private Thread thread;
+    // Pings go to the group until the host's own address is known
+    private SocketAddress host;
+
+    // Confined to the receive thread, volatile for describe()
+    private volatile long session;
+    private volatile boolean hasSession = false;
+    private volatile int sequence = -1;
+    private volatile long offset;
+    private volatile long rtt = -1;
+    private volatile long lastHeard = -1;
+    private final long[] sampleOffsets = new long[SAMPLE_COUNT];
+    private final long[] sampleRtts = new long[SAMPLE_COUNT];
+    private int sampleCount = 0;
+    private int nextSample = 0;
+    private int burstLeft = BURST_COUNT;
+    private long nextPing;
+    private ClockSyncFrame lastState;
+    private long deliveredOffset;
+
+    public ClockSyncFollower(DatagramSocket socket, SocketAddress host, TimerCore.Clock clock,
+                             Listener listener) {
+        this.socket = socket;
+        this.host = host;
+        this.clock = clock;
+        this.listener = listener;
+    }
+
+    public void start() {
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                receiveLoop();
+            }
+        }, "ClockSyncFollower");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public void close() {
+        socket.close();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    // Host minus local monotonic time, in milliseconds
+    public long getOffset() {
+        return offset;
+    }
+
+    // Round trip time of the sample the offset comes from, -1 before the first pong
+    public long getRoundTripTime() {
+        return rtt;
+    }
+
+    public boolean isHostAlive() {
+        long heard = lastHeard;
+        return heard >= 0 && clock.elapsedRealtime() - heard < HOST_TIMEOUT_MS;
+    }
+
+    public String describe() {
+        return "follower session=" + (hasSession ? Long.toHexString(session) : "none")
+                + " sequence=" + sequence + " offset=" + offset + "ms rtt=" + rtt
+                + "ms hostAlive=" + isHostAlive();
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[ClockSyncFrame.MAX_SIZE];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        nextPing = clock.elapsedRealtime();
+        while (!socket.isClosed()) {
+            try {
+                long now = clock.elapsedRealtime();
+                if (now >= nextPing) {
+                    ping(now);
+                }
+                socket.setSoTimeout((int) Math.max(1, nextPing - clock.elapsedRealtime()));
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+                long receivedAt = clock.elapsedRealtime();
+                ClockSyncFrame frame = ClockSyncFrame.decode(packet.getData(), packet.getOffset(),
+                        packet.getLength());
+                if (frame == null) continue;
+
+                if (frame.type == ClockSyncFrame.TYPE_STATE) {
+                    host = packet.getSocketAddress();
+                    onState(frame, receivedAt);
+                } else if (frame.type == ClockSyncFrame.TYPE_PONG && hasSession
+                        && frame.session == session) {
+                    onPong(frame, receivedAt);
+                }
+            } catch (SocketTimeoutException e) {
+                // Time for the next ping
+            } catch (SocketException e) {
+                // Closed
+                return;
+            } catch (IOException e) {
+                // A dropped datagram, the next ping or heartbeat repeats it
+            }
+        }
+    }
+
+    private void ping(long now) {
+        ClockSyncFrame ping = new ClockSyncFrame();
+        ping.type = ClockSyncFrame.TYPE_PING;
+        ping.session = session;
+        ping.sequence = sequence;
+        ping.originate = now;
+        int length = ping.encode(sendBuffer);
+        try {
+            socket.send(new DatagramPacket(sendBuffer, length, host));
+        } catch (IOException e) {
+            // Retried at the next ping
+        }
+        if (burstLeft > 0) {
+            burstLeft--;
+        }
+        nextPing = now + (burstLeft > 0 ? BURST_INTERVAL_MS : PING_INTERVAL_MS);
+    }
+
+    private void onState(ClockSyncFrame frame, long receivedAt) {
+        lastHeard = receivedAt;
+        if (!hasSession || frame.session != session) {
+            // A new host, or the host restarted: its clock and sequences start over
+            session = frame.session;
+            hasSession = true;
+            sequence = -1;
+            sampleCount = 0;
+            nextSample = 0;
+            rtt = -1;
+            offset = frame.sentAt - receivedAt;
+            burstLeft = BURST_COUNT;
+            nextPing = receivedAt;
+        }
+        if (frame.sequence == sequence) {
+            // A heartbeat
+            return;
+        }
+        sequence = frame.sequence;
+        lastState = frame;
+        deliver();
+    }
+
+    private void onPong(ClockSyncFrame pong, long receivedAt) {
+        lastHeard = receivedAt;
+        long sampleRtt = (receivedAt - pong.originate) - (pong.transmit - pong.receive);
+        long sampleOffset = ((pong.receive - pong.originate) + (pong.transmit - receivedAt)) / 2;
+        if (sampleRtt < 0) return;
+
+        sampleOffsets[nextSample] = sampleOffset;
+        sampleRtts[nextSample] = sampleRtt;
+        nextSample = (nextSample + 1) % SAMPLE_COUNT;
+        sampleCount = Math.min(sampleCount + 1, SAMPLE_COUNT);
+
+        int best = 0;
+        for (int i = 1; i < sampleCount; i++) {
+            if (sampleRtts[i] < sampleRtts[best]) {
+                best = i;
+            }
+        }
+        offset = sampleOffsets[best];
+        rtt = sampleRtts[best];
+
+        if (lastState != null && lastState.deadline > 0
+                && Math.abs(offset - deliveredOffset) >= REDELIVER_THRESHOLD_MS) {
+            deliver();
+        }
+    }
+
+    private void deliver() {
+        ClockSyncFrame frame = lastState;
+        long currentOffset = offset;
+        deliveredOffset = currentOffset;
+
+        long endTime = 0;
+        int timeLeft = frame.timeLeft;
+        if (frame.deadline > 0) {
+            long now = clock.elapsedRealtime();
+            long localDeadline = frame.deadline - currentOffset;
+            endTime = localDeadline + clock.currentTimeMillis() - now;
+            timeLeft = Math.max(0, (int) ((localDeadline - now + 999) / 1000));
+        }
+        listener.onHostState(new TimerStateSnapshot(frame.tournamentName,
+                frame.currentBlindLevel, frame.currentSmallBlind, frame.currentBigBlind,
+                frame.nextSmallBlind, frame.nextBigBlind, frame.levelIndex, endTime, timeLeft,
+                frame.timerDuration, frame.hasFlag(ClockSyncFrame.FLAG_PAUSED),
+                frame.hasFlag(ClockSyncFrame.FLAG_EXPIRED),
+                frame.hasFlag(ClockSyncFrame.FLAG_ALERTING), true));
+    }
+}
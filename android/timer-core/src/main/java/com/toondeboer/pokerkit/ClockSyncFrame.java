@@ -0,0 +1,151 @@
+package com.toondeboer.pokerkit;
+
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * One UDP datagram of the LAN clock sync, see ClockSyncHost and
+ * ClockSyncFollower. Big-endian, a fixed header and then per type:
+ *
+ * STATE (host to group): the host's timer state, with its deadline on the
+ * host's monotonic clock so followers can map it onto their own.
+ * PING (follower to host) and PONG (host to follower): the NTP-style
+ * timestamps for the clock offset and round trip time.
+ *
+ * All times are monotonic milliseconds of the device that took them.
+ */
+public final class ClockSyncFrame {
+    public static final int MAGIC = 0x504B4353; // "PKCS"
+    public static final int VERSION = 1;
+    public static final int MAX_SIZE = 256;
+
+    public static final int TYPE_STATE = 1;
+    public static final int TYPE_PING = 2;
+    public static final int TYPE_PONG = 3;
+
+    public static final int FLAG_PAUSED = 1;
+    public static final int FLAG_EXPIRED = 1 << 1;
+    public static final int FLAG_ALERTING = 1 << 2;
+
+    // Keeps a STATE frame well under MAX_SIZE, even with 3-byte characters
+    private static final int MAX_NAME_LENGTH = 48;
+
+    public int type;
+    // Random per host run, sequences restart with it
+    public long session;
+    // STATE: bumped on every transition, heartbeats repeat it. PING: the
+    // follower's last seen sequence, so the host can resend a missed state.
+    public int sequence;
+
+    // STATE
+    public long sentAt;
+    public long deadline; // 0 while not running
+    public int timeLeft;
+    public int timerDuration;
+    public int levelIndex;
+    public int currentBlindLevel;
+    public int currentSmallBlind;
+    public int currentBigBlind;
+    public int nextSmallBlind;
+    public int nextBigBlind;
+    public int flags;
+    public String tournamentName;
+
+    // PING sets originate, PONG echoes it and adds receive and transmit
+    public long originate;
+    public long receive;
+    public long transmit;
+
+    public boolean hasFlag(int flag) {
+        return (flags & flag) != 0;
+    }
+
+    // Returns the encoded length
+    public int encode(byte[] buffer) {
+        ByteBuffer out = ByteBuffer.wrap(buffer);
+        out.putInt(MAGIC);
+        out.put((byte) VERSION);
+        out.put((byte) type);
+        out.putLong(session);
+        out.putInt(sequence);
+        switch (type) {
+            case TYPE_STATE:
+                out.putLong(sentAt);
+                out.putLong(deadline);
+                out.putInt(timeLeft);
+                out.putInt(timerDuration);
+                out.putInt(levelIndex);
+                out.putInt(currentBlindLevel);
+                out.putInt(currentSmallBlind);
+                out.putInt(currentBigBlind);
+                out.putInt(nextSmallBlind);
+                out.putInt(nextBigBlind);
+                out.put((byte) flags);
+                String name = tournamentName != null ? tournamentName : "";
+                if (name.length() > MAX_NAME_LENGTH) {
+                    name = name.substring(0, MAX_NAME_LENGTH);
+                }
+                byte[] nameBytes = name.getBytes(StandardCharsets.UTF_8);
+                out.put((byte) nameBytes.length);
+                out.put(nameBytes);
+                break;
+            case TYPE_PING:
+                out.putLong(originate);
+                break;
+            case TYPE_PONG:
+                out.putLong(originate);
+                out.putLong(receive);
+                out.putLong(transmit);
+                break;
+            default:
+                throw new IllegalStateException("Unknown frame type " + type);
+        }
+        return out.position();
+    }
+
+    // Null for datagrams that aren't ours, or from another protocol version
+    public static ClockSyncFrame decode(byte[] buffer, int offset, int length) {
+        ByteBuffer in = ByteBuffer.wrap(buffer, offset, length);
+        try {
+            if (in.getInt() != MAGIC || in.get() != VERSION) {
+                return null;
+            }
+            ClockSyncFrame frame = new ClockSyncFrame();
+            frame.type = in.get();
+            frame.session = in.getLong();
+            frame.sequence = in.getInt();
+            switch (frame.type) {
+                case TYPE_STATE:
+                    frame.sentAt = in.getLong();
+                    frame.deadline = in.getLong();
+                    frame.timeLeft = in.getInt();
+                    frame.timerDuration = in.getInt();
+                    frame.levelIndex = in.getInt();
+                    frame.currentBlindLevel = in.getInt();
+                    frame.currentSmallBlind = in.getInt();
+                    frame.currentBigBlind = in.getInt();
+                    frame.nextSmallBlind = in.getInt();
+                    frame.nextBigBlind = in.getInt();
+                    frame.flags = in.get();
+                    byte[] nameBytes = new byte[in.get() & 0xFF];
+                    in.get(nameBytes);
+                    frame.tournamentName = new String(nameBytes, StandardCharsets.UTF_8);
+                    break;
+                case TYPE_PING:
+                    frame.originate = in.getLong();
+                    break;
+                case TYPE_PONG:
+                    frame.originate = in.getLong();
+                    frame.receive = in.getLong();
+                    frame.transmit = in.getLong();
+                    break;
+                default:
+                    return null;
+            }
+            return frame;
+        } catch (BufferUnderflowException e) {
+            return null;
+        }
+    }
+}
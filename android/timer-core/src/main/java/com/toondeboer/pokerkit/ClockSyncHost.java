@@ -0,0 +1,214 @@
+package com.toondeboer.pokerkit;
+
+import java.io.IOException;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.SocketAddress;
+import java.net.SocketException;
+import java.net.SocketTimeoutException;
+import java.util.Objects;
+import java.util.Random;
+
+/**
+ * Host side of the LAN clock sync: sends the timer state to the followers
+ * (normally a multicast group) when it changes, repeats the last state as a
+ * heartbeat every HEARTBEAT_INTERVAL_MS, and answers the followers' pings.
+ *
+ * The deadline goes out on this device's monotonic clock, so a follower only
+ * needs the offset between the two monotonic clocks and a wall clock change
+ * on either side doesn't move anything.
+ *
+ * publish() may be called from any thread, the receive loop runs on its own.
+ */
+public class ClockSyncHost {
+    public static final long HEARTBEAT_INTERVAL_MS = 5_000;
+
+    private final DatagramSocket socket;
+    private final SocketAddress destination;
+    private final TimerCore.Clock clock;
+    private final long session = new Random().nextLong();
+    private final Object lock = new Object();
+    private final byte[] sendBuffer = new byte[ClockSyncFrame.MAX_SIZE];
+    private Thread thread;
+
+    // Guarded by lock
+    private TimerStateSnapshot last;
+    private ClockSyncFrame lastFrame;
+    private int sequence = 0;
+    private long lastSentAt;
+    private long framesSent = 0;
+    private long pongsSent = 0;
+
+    public ClockSyncHost(DatagramSocket socket, SocketAddress destination, TimerCore.Clock clock) {
+        this.socket = socket;
+        this.destination = destination;
+        this.clock = clock;
+    }
+
+    public void start() {
+        thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                receiveLoop();
+            }
+        }, "ClockSyncHost");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    // Stops the receive loop by closing the socket
+    public void close() {
+        socket.close();
+        if (thread != null) {
+            thread.interrupt();
+        }
+    }
+
+    /**
+     * Sends the state if a follower would show something different. Snapshots
+     * that only refresh timeLeft of a running timer are skipped, the deadline
+     * already carries it.
+     */
+    public void publish(TimerStateSnapshot snapshot) {
+        synchronized (lock) {
+            if (last != null && sameState(snapshot, last)) {
+                return;
+            }
+            last = snapshot;
+            lastFrame = toFrame(snapshot, ++sequence);
+            sendState(lastFrame, destination);
+        }
+    }
+
+    public int getSequence() {
+        synchronized (lock) {
+            return sequence;
+        }
+    }
+
+    public String describe() {
+        synchronized (lock) {
+            return "host session=" + Long.toHexString(session) + " sequence=" + sequence
+                    + " frames=" + framesSent + " pongs=" + pongsSent;
+        }
+    }
+
+    private void receiveLoop() {
+        byte[] buffer = new byte[ClockSyncFrame.MAX_SIZE];
+        DatagramPacket packet = new DatagramPacket(buffer, buffer.length);
+        while (!socket.isClosed()) {
+            try {
+                socket.setSoTimeout((int) Math.max(1, heartbeatDelay()));
+                packet.setLength(buffer.length);
+                socket.receive(packet);
+                long receivedAt = clock.elapsedRealtime();
+                ClockSyncFrame frame = ClockSyncFrame.decode(packet.getData(), packet.getOffset(),
+                        packet.getLength());
+                if (frame != null && frame.type == ClockSyncFrame.TYPE_PING) {
+                    onPing(frame, receivedAt, packet.getSocketAddress());
+                }
+            } catch (SocketTimeoutException e) {
+                heartbeat();
+            } catch (SocketException e) {
+                // Closed
+                return;
+            } catch (IOException e) {
+                // A dropped datagram, the followers ping again
+            }
+        }
+    }
+
+    private long heartbeatDelay() {
+        synchronized (lock) {
+            if (lastFrame == null) return HEARTBEAT_INTERVAL_MS;
+            return lastSentAt + HEARTBEAT_INTERVAL_MS - clock.elapsedRealtime();
+        }
+    }
+
+    private void heartbeat() {
+        synchronized (lock) {
+            if (lastFrame != null && heartbeatDelay() <= 0) {
+                sendState(lastFrame, destination);
+            }
+        }
+    }
+
+    private void onPing(ClockSyncFrame ping, long receivedAt, SocketAddress follower) {
+        ClockSyncFrame pong = new ClockSyncFrame();
+        pong.type = ClockSyncFrame.TYPE_PONG;
+        pong.session = session;
+        pong.originate = ping.originate;
+        pong.receive = receivedAt;
+        synchronized (lock) {
+            pong.sequence = sequence;
+            pong.transmit = clock.elapsedRealtime();
+            write(pong, follower);
+            pongsSent++;
+            // A follower that joined late or lost a frame gets the state directly
+            if (lastFrame != null && (ping.session != session || ping.sequence != sequence)) {
+                sendState(lastFrame, follower);
+            }
+        }
+    }
+
+    // Heartbeats and repeats are stamped again, sentAt seeds a follower's first offset
+    private void sendState(ClockSyncFrame state, SocketAddress to) {
+        state.sentAt = clock.elapsedRealtime();
+        write(state, to);
+        if (to == destination) {
+            lastSentAt = state.sentAt;
+        }
+        framesSent++;
+    }
+
+    private void write(ClockSyncFrame frame, SocketAddress to) {
+        int length = frame.encode(sendBuffer);
+        try {
+            socket.send(new DatagramPacket(sendBuffer, length, to));
+        } catch (IOException e) {
+            // Lost like any datagram, the heartbeat or a ping repeats it
+        }
+    }
+
+    private ClockSyncFrame toFrame(TimerStateSnapshot snapshot, int frameSequence) {
+        ClockSyncFrame frame = new ClockSyncFrame();
+        frame.type = ClockSyncFrame.TYPE_STATE;
+        frame.session = session;
+        frame.sequence = frameSequence;
+        boolean running = !snapshot.paused && !snapshot.expired && snapshot.endTime > 0;
+        if (running) {
+            // endTime is wall clock, the frame uses the monotonic clock
+            frame.deadline = snapshot.endTime - clock.currentTimeMillis() + clock.elapsedRealtime();
+        }
+        frame.timeLeft = snapshot.timeLeft;
+        frame.timerDuration = snapshot.timerDuration;
+        frame.levelIndex = snapshot.levelIndex;
+        frame.currentBlindLevel = snapshot.currentBlindLevel;
+        frame.currentSmallBlind = snapshot.currentSmallBlind;
+        frame.currentBigBlind = snapshot.currentBigBlind;
+        frame.nextSmallBlind = snapshot.nextSmallBlind;
+        frame.nextBigBlind = snapshot.nextBigBlind;
+        frame.flags = (snapshot.paused ? ClockSyncFrame.FLAG_PAUSED : 0)
+                | (snapshot.expired ? ClockSyncFrame.FLAG_EXPIRED : 0)
+                | (snapshot.alerting ? ClockSyncFrame.FLAG_ALERTING : 0);
+        frame.tournamentName = snapshot.tournamentName;
+        return frame;
+    }
+
+    private static boolean sameState(TimerStateSnapshot a, TimerStateSnapshot b) {
+        boolean running = !a.paused && !a.expired && a.endTime > 0;
+        return a.paused == b.paused
+                && a.expired == b.expired
+                && a.alerting == b.alerting
+                && a.endTime == b.endTime
+                && (running || a.timeLeft == b.timeLeft)
+                && a.timerDuration == b.timerDuration
+                && a.levelIndex == b.levelIndex
+                && a.currentBlindLevel == b.currentBlindLevel
+                && a.currentSmallBlind == b.currentSmallBlind
+                && a.currentBigBlind == b.currentBigBlind
+                && a.nextSmallBlind == b.nextSmallBlind
+                && a.nextBigBlind == b.nextBigBlind
+                && Objects.equals(a.tournamentName, b.tournamentName);
+    }
+}
@@ -0,0 +1,123 @@
+package com.toondeboer.pokerkit;
+
+import java.io.IOException;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+
+/**
+ * Runs a ClockSyncHost and a ClockSyncFollower against each other over the
+ * loopback interface, with the follower's clocks skewed, and prints how far
+ * the follower's endTime is from the host's for every state it receives.
+ * The same sockets and code paths as on a LAN, minus the Wi-Fi latency.
+ *
+ * Run from the command line with: ./gradlew :timer-core:syncLoopback
+ * Arguments: --args="[monotonic skew ms] [wall clock skew ms]"
+ */
+public class ClockSyncLoopback {
+    private static final long TARGET_MS = 50;
+
+    // TimerCore.SYSTEM_CLOCK, shifted as if on another device
+    private static class SkewedClock implements TimerCore.Clock {
+        final long monotonicSkew;
+        final long wallSkew;
+
+        SkewedClock(long monotonicSkew, long wallSkew) {
+            this.monotonicSkew = monotonicSkew;
+            this.wallSkew = wallSkew;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis() + wallSkew;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return TimerCore.SYSTEM_CLOCK.elapsedRealtime() + monotonicSkew;
+        }
+    }
+
+    private final SkewedClock followerClock;
+    private volatile TimerStateSnapshot published;
+    private volatile long publishedAt;
+    private long worstError = 0;
+    private long worstErrorAfterPong = -1;
+
+    private ClockSyncLoopback(SkewedClock followerClock) {
+        this.followerClock = followerClock;
+    }
+
+    private synchronized void onHostState(TimerStateSnapshot state, ClockSyncFollower follower) {
+        TimerStateSnapshot expected = published;
+        long latencyMicros = (System.nanoTime() - publishedAt) / 1000;
+        // The follower's endTime on the host's wall clock
+        long error = state.endTime > 0 ? state.endTime - followerClock.wallSkew - expected.endTime : 0;
+        worstError = Math.max(worstError, Math.abs(error));
+        if (follower.getRoundTripTime() >= 0) {
+            worstErrorAfterPong = Math.max(worstErrorAfterPong, Math.abs(error));
+        }
+        System.out.println(String.format(Locale.US,
+                "level %2d %-7s endTime error %4d ms  offset %d ms  rtt %d ms  since publish %d us",
+                state.currentBlindLevel, state.paused ? "paused" : "running", error,
+                follower.getOffset(), follower.getRoundTripTime(), latencyMicros));
+    }
+
+    private void publish(ClockSyncHost host, TimerStateSnapshot snapshot) {
+        published = snapshot;
+        publishedAt = System.nanoTime();
+        host.publish(snapshot);
+    }
+
+    private static TimerStateSnapshot state(int level, boolean paused, long endTime, int timeLeft) {
+        return new TimerStateSnapshot("Loopback", level, level * 25, level * 50, (level + 1) * 25,
+                (level + 1) * 50, level - 1, paused ? 0 : endTime, timeLeft, 600, paused, false,
+                false, true);
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        long monotonicSkew = args.length > 0 ? Long.parseLong(args[0]) : 123_456_789L;
+        long wallSkew = args.length > 1 ? Long.parseLong(args[1]) : -42_000L;
+
+        InetAddress loopback = InetAddress.getLoopbackAddress();
+        DatagramSocket hostSocket = new DatagramSocket(new InetSocketAddress(loopback, 0));
+        DatagramSocket followerSocket = new DatagramSocket(new InetSocketAddress(loopback, 0));
+
+        final ClockSyncLoopback run = new ClockSyncLoopback(new SkewedClock(monotonicSkew, wallSkew));
+        ClockSyncHost host = new ClockSyncHost(hostSocket,
+                followerSocket.getLocalSocketAddress(), TimerCore.SYSTEM_CLOCK);
+        final ClockSyncFollower[] follower = new ClockSyncFollower[1];
+        follower[0] = new ClockSyncFollower(followerSocket, hostSocket.getLocalSocketAddress(),
+                run.followerClock, new ClockSyncFollower.Listener() {
+            @Override
+            public void onHostState(TimerStateSnapshot state) {
+                run.onHostState(state, follower[0]);
+            }
+        });
+        host.start();
+
+        // Running before the follower starts, so it joins late and pings for the state
+        run.publish(host, state(1, false, System.currentTimeMillis() + 600_000, 600));
+        follower[0].start();
+        Thread.sleep(1_000);
+
+        run.publish(host, state(1, true, 0, 540));
+        Thread.sleep(500);
+        run.publish(host, state(1, false, System.currentTimeMillis() + 540_000, 540));
+        Thread.sleep(500);
+        run.publish(host, state(2, false, System.currentTimeMillis() + 600_000, 600));
+        Thread.sleep(500);
+
+        host.close();
+        follower[0].close();
+        synchronized (run) {
+            System.out.println(host.describe());
+            System.out.println(follower[0].describe() + " (true offset " + -monotonicSkew + "ms)");
+            System.out.println("worst endTime error " + run.worstError + " ms, after the first pong "
+                    + run.worstErrorAfterPong + " ms, target " + TARGET_MS + " ms: "
+                    + (run.worstErrorAfterPong >= 0 && run.worstErrorAfterPong <= TARGET_MS
+                    ? "met" : "missed"));
+        }
+    }
+}
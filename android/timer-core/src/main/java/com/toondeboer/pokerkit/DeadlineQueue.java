@@ -0,0 +1,144 @@
+package com.toondeboer.pokerkit;
+
+import java.util.Arrays;
+
+/**
+ * Min-heap of the next wakeup time per key, for driving many timers from a
+ * single scheduled wakeup. Keys are small non-negative ints (slots), each
+ * with at most one entry; scheduling a key again moves its entry. Every
+ * operation is O(log n) and nothing is allocated once the arrays have grown.
+ *
+ * Not thread-safe, the owner confines it to one thread.
+ */
+public class DeadlineQueue {
+    private long[] times = new long[8];
+    private int[] keys = new int[8];
+    // Heap position per key, -1 when the key has no entry
+    private int[] positions = new int[8];
+    private int size = 0;
+
+    public DeadlineQueue() {
+        Arrays.fill(positions, -1);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public boolean contains(int key) {
+        return key < positions.length && positions[key] >= 0;
+    }
+
+    // Earliest time in the queue, only valid when not empty
+    public long peekTime() {
+        return times[0];
+    }
+
+    public int peekKey() {
+        return keys[0];
+    }
+
+    public void schedule(int key, long time) {
+        ensureKey(key);
+        int position = positions[key];
+        if (position < 0) {
+            ensureCapacity(size + 1);
+            position = size++;
+            keys[position] = key;
+            positions[key] = position;
+        } else if (time > times[position]) {
+            times[position] = time;
+            siftDown(position);
+            return;
+        }
+        times[position] = time;
+        siftUp(position);
+    }
+
+    public void cancel(int key) {
+        if (!contains(key)) return;
+
+        int position = positions[key];
+        positions[key] = -1;
+        size--;
+        if (position == size) return;
+
+        // Fill the hole with the last entry and restore the heap from there
+        move(size, position);
+        siftDown(position);
+        siftUp(position);
+    }
+
+    // Removes the earliest entry and returns its key
+    public int poll() {
+        int key = keys[0];
+        cancel(key);
+        return key;
+    }
+
+    public void clear() {
+        for (int i = 0; i < size; i++) {
+            positions[keys[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void siftUp(int position) {
+        long time = times[position];
+        int key = keys[position];
+        while (position > 0) {
+            int parent = (position - 1) >>> 1;
+            if (times[parent] <= time) break;
+            move(parent, position);
+            position = parent;
+        }
+        times[position] = time;
+        keys[position] = key;
+        positions[key] = position;
+    }
+
+    private void siftDown(int position) {
+        long time = times[position];
+        int key = keys[position];
+        int half = size >>> 1;
+        while (position < half) {
+            int child = 2 * position + 1;
+            if (child + 1 < size && times[child + 1] < times[child]) {
+                child++;
+            }
+            if (time <= times[child]) break;
+            move(child, position);
+            position = child;
+        }
+        times[position] = time;
+        keys[position] = key;
+        positions[key] = position;
+    }
+
+    private void move(int from, int to) {
+        times[to] = times[from];
+        keys[to] = keys[from];
+        positions[keys[to]] = to;
+    }
+
+    private void ensureCapacity(int capacity) {
+        if (capacity > times.length) {
+            int length = Math.max(capacity, times.length * 2);
+            times = Arrays.copyOf(times, length);
+            keys = Arrays.copyOf(keys, length);
+        }
+    }
+
+    private void ensureKey(int key) {
+        if (key >= positions.length) {
+            int length = Math.max(key + 1, positions.length * 2);
+            int oldLength = positions.length;
+            positions = Arrays.copyOf(positions, length);
+            Arrays.fill(positions, oldLength, length, -1);
+        }
+    }
+}
@@ -0,0 +1,88 @@
+package com.toondeboer.pokerkit;
+
+import java.io.PrintWriter;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Fixed power-of-two histogram of durations in microseconds. Recording is a
+ * bucket increment under a lock, cheap enough to stay on in release builds;
+ * percentiles are reported as the upper bound of their bucket.
+ */
+public class LatencyHistogram {
+    // Bucket i holds values below 2^i microseconds, the last one everything above
+    private static final int BUCKET_COUNT = 28;
+
+    private final String name;
+    private final long[] buckets = new long[BUCKET_COUNT];
+    private long count = 0;
+    private long totalMicros = 0;
+    private long maxMicros = 0;
+
+    public LatencyHistogram(String name) {
+        this.name = name;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public void recordNanos(long nanos) {
+        recordMicros(nanos / 1000);
+    }
+
+    public void recordMillis(long millis) {
+        recordMicros(millis * 1000);
+    }
+
+    public synchronized void recordMicros(long micros) {
+        if (micros < 0) micros = 0;
+        int bucket = Math.min(BUCKET_COUNT - 1, 64 - Long.numberOfLeadingZeros(micros));
+        buckets[bucket]++;
+        count++;
+        totalMicros += micros;
+        maxMicros = Math.max(maxMicros, micros);
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getMeanMillis() {
+        return count > 0 ? totalMicros / 1000.0 / count : 0;
+    }
+
+    public synchronized double getMaxMillis() {
+        return maxMicros / 1000.0;
+    }
+
+    // fraction in (0, 1], e.g. 0.95 for p95
+    public synchronized double getPercentileMillis(double fraction) {
+        if (count == 0) return 0;
+
+        long target = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            seen += buckets[i];
+            if (seen >= target) {
+                // Never above the largest recorded value
+                return Math.min(1L << i, maxMicros) / 1000.0;
+            }
+        }
+        return getMaxMillis();
+    }
+
+    public synchronized void reset() {
+        Arrays.fill(buckets, 0);
+        count = 0;
+        totalMicros = 0;
+        maxMicros = 0;
+    }
+
+    public void dump(PrintWriter writer) {
+        writer.println(String.format(Locale.US,
+                "  %s: count=%d mean=%.2fms p50=%.2fms p95=%.2fms p99=%.2fms max=%.2fms",
+                name, getCount(), getMeanMillis(), getPercentileMillis(0.5),
+                getPercentileMillis(0.95), getPercentileMillis(0.99), getMaxMillis()));
+    }
+}
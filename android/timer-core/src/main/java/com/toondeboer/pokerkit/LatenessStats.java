@@ -0,0 +1,69 @@
+package com.toondeboer.pokerkit;
+
+/**
+ * How late the service reacts to the timer's endTime: when the expiry alarm
+ * is delivered, when expiry is handled (alert or level advance) by whichever
+ * wakeup got there first, and when the alarm sound is first heard.
+ */
+public class LatenessStats {
+    public static final LatenessStats ALARM_DELIVERY = new LatenessStats("alarmDelivery", 500);
+    public static final LatenessStats EXPIRY = new LatenessStats("expiry", 500);
+    public static final LatenessStats ALARM_AUDIO = new LatenessStats("alarmAudio", 50);
+
+    private final String name;
+    // Lateness we still count as on time
+    private final long onTimeMillis;
+    private long count = 0;
+    private long totalMillis = 0;
+    private long maxMillis = 0;
+    private long lastMillis = 0;
+    private long lateCount = 0;
+
+    private LatenessStats(String name, long onTimeMillis) {
+        this.name = name;
+        this.onTimeMillis = onTimeMillis;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized void record(long latenessMillis) {
+        count++;
+        totalMillis += latenessMillis;
+        maxMillis = Math.max(maxMillis, latenessMillis);
+        lastMillis = latenessMillis;
+        if (latenessMillis > onTimeMillis) {
+            lateCount++;
+        }
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public synchronized double getMeanMillis() {
+        return count > 0 ? (double) totalMillis / count : 0;
+    }
+
+    public synchronized long getMaxMillis() {
+        return maxMillis;
+    }
+
+    public synchronized long getLastMillis() {
+        return lastMillis;
+    }
+
+    // Recorded later than this stat's on-time threshold
+    public synchronized long getLateCount() {
+        return lateCount;
+    }
+
+    public synchronized void reset() {
+        count = 0;
+        totalMillis = 0;
+        maxMillis = 0;
+        lastMillis = 0;
+        lateCount = 0;
+    }
+}
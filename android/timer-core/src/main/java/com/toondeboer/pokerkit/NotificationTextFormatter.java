@@ -0,0 +1,213 @@
+package com.toondeboer.pokerkit;
+
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.text.NumberFormat;
+import java.util.Locale;
+
+/**
+ * Builds the timer notification texts without String.format. Everything that
+ * only depends on the blind level is precomputed in setLevel(), so a per-second
+ * update just writes the remaining time into reusable buffers.
+ *
+ * The output matches the previous String.format("%,d/%,d") and "%d:%02d"
+ * patterns for the formatter's locale, including its grouping separator and
+ * digits. Returned CharSequences are reused by the next call; copy them with
+ * toString() before keeping them around.
+ *
+ * Not thread-safe, owned by the service.
+ */
+public class NotificationTextFormatter {
+    private final char groupingSeparator;
+    private final int groupingSize;
+    private final char zeroDigit;
+
+    private final StringBuilder contentBuffer = new StringBuilder(128);
+    private final StringBuilder bigTextBuffer = new StringBuilder(256);
+    private final char[] digits = new char[32];
+
+    // Precomputed per tournament
+    private String activeTitle = "";
+    private String pausedTitle = "";
+    private String expiredTitle = "";
+
+    // Precomputed per level
+    private String currentBlinds = "";
+    private String nextBlinds = "";
+    private String contentPrefix = "";
+    private String bigTextPrefix = "";
+    private String nextLevelLine = "";
+
+    public NotificationTextFormatter() {
+        this(Locale.getDefault(Locale.Category.FORMAT));
+    }
+
+    public NotificationTextFormatter(Locale locale) {
+        DecimalFormatSymbols symbols = DecimalFormatSymbols.getInstance(locale);
+        zeroDigit = symbols.getZeroDigit();
+
+        // Same source java.util.Formatter uses for the ',' flag
+        NumberFormat numberFormat = NumberFormat.getIntegerInstance(locale);
+        if (numberFormat instanceof DecimalFormat) {
+            DecimalFormat decimalFormat = (DecimalFormat) numberFormat;
+            groupingSize = decimalFormat.getGroupingSize();
+            groupingSeparator = decimalFormat.getDecimalFormatSymbols().getGroupingSeparator();
+        } else {
+            groupingSize = 3;
+            groupingSeparator = symbols.getGroupingSeparator();
+        }
+
+        setTournamentName("Poker Tournament");
+        setLevel(1, 0, 0, 0, 0);
+    }
+
+    public void setTournamentName(String tournamentName) {
+        activeTitle = "🎯 " + tournamentName + " • Active";
+        pausedTitle = "⏸️ " + tournamentName + " • Paused";
+        expiredTitle = "⏰ " + tournamentName + " • TIME'S UP!";
+    }
+
+    public void setLevel(int level, int smallBlind, int bigBlind, int nextSmallBlind, int nextBigBlind) {
+        setLevel(level, smallBlind, bigBlind, 0, false, nextSmallBlind, nextBigBlind, 0, false);
+    }
+
+    // Antes are shown as "small/big (ante)", break levels as "Break"
+    public void setLevel(int level, int smallBlind, int bigBlind, int ante, boolean isBreak,
+                         int nextSmallBlind, int nextBigBlind, int nextAnte, boolean nextIsBreak) {
+        currentBlinds = isBreak ? "Break" : formatBlinds(smallBlind, bigBlind, ante);
+        nextBlinds = nextIsBreak ? "Break" : formatBlinds(nextSmallBlind, nextBigBlind, nextAnte);
+        contentPrefix = "Level " + level + " • " + currentBlinds;
+        bigTextPrefix = "📊 Current Level: " + level + "\n💰 Blinds: " + currentBlinds;
+        nextLevelLine = nextIsBreak || nextSmallBlind > 0 || nextBigBlind > 0
+                ? "\n⬆️ Next Level: " + nextBlinds
+                : "";
+    }
+
+    public String getCurrentBlinds() {
+        return currentBlinds;
+    }
+
+    public String getNextBlinds() {
+        return nextBlinds;
+    }
+
+    public String title(boolean paused, boolean expired) {
+        if (expired) {
+            return expiredTitle;
+        } else if (paused) {
+            return pausedTitle;
+        } else {
+            return activeTitle;
+        }
+    }
+
+    public CharSequence content(boolean paused, int timeLeft, boolean expired, boolean chronometer) {
+        StringBuilder content = contentBuffer;
+        content.setLength(0);
+        content.append(contentPrefix);
+
+        if (paused) {
+            if (timeLeft > 0) {
+                content.append(" • ");
+                appendTime(content, timeLeft);
+                content.append(" remaining");
+            }
+        } else if (timeLeft > 0) {
+            if (!chronometer) {
+                content.append(" • ");
+                appendTime(content, timeLeft);
+                content.append(" left");
+            }
+        } else if (expired) {
+            content.append(" • Advance to next level");
+        }
+
+        return content;
+    }
+
+    public CharSequence bigText(boolean paused, int timeLeft, boolean expired, boolean chronometer) {
+        StringBuilder bigText = bigTextBuffer;
+        bigText.setLength(0);
+        bigText.append(bigTextPrefix);
+
+        if (paused) {
+            bigText.append("\n⏸️ Status: Paused");
+            if (timeLeft > 0) {
+                bigText.append("\n⏱️ Time Remaining: ");
+                appendTime(bigText, timeLeft);
+            }
+        } else if (timeLeft > 0) {
+            if (!chronometer) {
+                bigText.append("\n⏱️ Time Left: ");
+                appendTime(bigText, timeLeft);
+            }
+        } else if (expired) {
+            bigText.append("\n🚨 TIME'S UP! Level completed");
+        }
+
+        bigText.append(nextLevelLine);
+        return bigText;
+    }
+
+    public String formatBlinds(int smallBlind, int bigBlind) {
+        StringBuilder sb = new StringBuilder(16);
+        appendGrouped(sb, smallBlind);
+        sb.append('/');
+        appendGrouped(sb, bigBlind);
+        return sb.toString();
+    }
+
+    public String formatBlinds(int smallBlind, int bigBlind, int ante) {
+        if (ante <= 0) {
+            return formatBlinds(smallBlind, bigBlind);
+        }
+        StringBuilder sb = new StringBuilder(24);
+        appendGrouped(sb, smallBlind);
+        sb.append('/');
+        appendGrouped(sb, bigBlind);
+        sb.append(" (");
+        appendGrouped(sb, ante);
+        sb.append(')');
+        return sb.toString();
+    }
+
+    public String formatTime(int seconds) {
+        StringBuilder sb = new StringBuilder(8);
+        appendTime(sb, seconds);
+        return sb.toString();
+    }
+
+    // Equivalent of "%d:%02d" for minutes and seconds
+    public void appendTime(StringBuilder sb, int seconds) {
+        appendDigits(sb, seconds / 60, 1, false);
+        sb.append(':');
+        appendDigits(sb, seconds % 60, 2, false);
+    }
+
+    // Equivalent of "%,d"
+    public void appendGrouped(StringBuilder sb, int value) {
+        appendDigits(sb, value, 1, true);
+    }
+
+    private void appendDigits(StringBuilder sb, int number, int minDigits, boolean grouped) {
+        // Widen first so Integer.MIN_VALUE can be negated
+        long value = number;
+        if (value < 0) {
+            sb.append('-');
+            value = -value;
+        }
+
+        int pos = digits.length;
+        int count = 0;
+        do {
+            if (grouped && groupingSize > 0 && count > 0 && count % groupingSize == 0) {
+                digits[--pos] = groupingSeparator;
+            }
+            digits[--pos] = (char) (zeroDigit + (int) (value % 10));
+            value /= 10;
+            count++;
+        } while (value > 0 || count < minDigits);
+
+        sb.append(digits, pos, digits.length - pos);
+    }
+}
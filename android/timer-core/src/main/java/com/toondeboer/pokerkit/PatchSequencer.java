@@ -0,0 +1,62 @@
+package com.toondeboer.pokerkit;
+
+import java.util.Arrays;
+
+/**
+ * Ordering of PokerTimerService's sequenced patches. Each JS runtime sends
+ * under its own session; a newer session replaces the older one and resets
+ * the per-field sequences, patches from an older session are dropped. Within
+ * a session each field keeps the sequence that last wrote it, so a late patch
+ * can't overwrite a newer value.
+ *
+ * Sessions are issued natively from the monotonic clock with newSession(),
+ * never from the wall clock: a runtime that reloads after the clock was set
+ * back must still get a newer session. Not thread-safe, the service confines
+ * it to its worker thread.
+ */
+public final class PatchSequencer {
+    private static long lastIssued = 0;
+
+    private final int[] fieldSequence;
+    private long session = 0;
+
+    public PatchSequencer(int fieldCount) {
+        fieldSequence = new int[fieldCount];
+        Arrays.fill(fieldSequence, -1);
+    }
+
+    /**
+     * A session newer than any issued before in this process, from
+     * elapsedRealtime(). Strictly increasing, so two runtimes started within
+     * the same millisecond still differ.
+     */
+    public static synchronized long newSession(long elapsedRealtime) {
+        lastIssued = Math.max(elapsedRealtime, lastIssued + 1);
+        return lastIssued;
+    }
+
+    public long getSession() {
+        return session;
+    }
+
+    // False for a patch from a runtime that has since been replaced
+    public boolean acceptSession(long patchSession) {
+        if (patchSession < session) {
+            return false;
+        }
+        if (patchSession > session) {
+            session = patchSession;
+            Arrays.fill(fieldSequence, -1);
+        }
+        return true;
+    }
+
+    // Whether the field takes the value of the patch with this sequence
+    public boolean accepts(int field, int sequence) {
+        if (sequence <= fieldSequence[field]) {
+            return false;
+        }
+        fieldSequence[field] = sequence;
+        return true;
+    }
+}
@@ -0,0 +1,322 @@
+package com.toondeboer.pokerkit;
+
+/**
+ * The timer's state machine without any Android dependency: the countdown,
+ * pause/resume/reset, expiry and advancing through the blind schedule.
+ * PokerTimerService drives it from its wakeups and renders the result; the
+ * time comes from an injectable Clock so it runs on a plain JVM.
+ *
+ * The countdown runs against a deadline on the clock's monotonic timeline, so
+ * NTP corrections and manual clock changes don't move it. endTime, the wall
+ * clock time the app and the saved state use, is derived from the deadline
+ * through a calibrated offset. All other times in this class (now(), wakeup
+ * and due times) are on the monotonic timeline.
+ *
+ * Not thread-safe, the owner confines it to one thread.
+ */
+public class TimerCore {
+    public interface Clock {
+        long currentTimeMillis();
+
+        // Monotonic milliseconds, including time spent in deep sleep
+        long elapsedRealtime();
+    }
+
+    // For the JVM. On Android nanoTime() stops in deep sleep, the service uses elapsedRealtime()
+    public static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long currentTimeMillis() {
+            return System.currentTimeMillis();
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return System.nanoTime() / 1_000_000L;
+        }
+    };
+
+    public static final int DEFAULT_TIMER_DURATION_SECONDS = 600;
+    public static final int LOW_TIME_THRESHOLD_SECONDS = 60;
+
+    // Status colors, shown in the notification
+    public static final int COLOR_EXPIRED = 0xFFDC2626; // Red
+    public static final int COLOR_PAUSED = 0xFF6B7280; // Gray
+    public static final int COLOR_LOW_TIME = 0xFFEA580C; // Orange
+    public static final int COLOR_RUNNING = 0xFF059669; // Green
+
+    // update() result flags
+    public static final int TIME_LEFT_CHANGED = 1;
+    public static final int EXPIRED = 1 << 1;
+    public static final int LEVEL_ADVANCED = 1 << 2;
+
+    private final Clock clock;
+
+    // Monotonic time the timer reaches 0, 0 while not running
+    private long deadline = 0;
+    // currentTimeMillis() - elapsedRealtime(), see calibrateWallClock()
+    private long wallOffset;
+    private int timeLeft = 0;
+    private int timerDuration = DEFAULT_TIMER_DURATION_SECONDS;
+    private boolean paused = true;
+    private boolean expired = false;
+    private boolean alertOnExpiry = true;
+    private BlindSchedule schedule;
+    private int levelIndex = -1;
+    // Deadline of the level that ended at the last expiry or advance
+    private long lastDueTime = 0;
+
+    public TimerCore(Clock clock) {
+        this.clock = clock;
+        calibrateWallClock();
+    }
+
+    // Monotonic, comparable with the deadline, wakeup and due times
+    public long now() {
+        return clock.elapsedRealtime();
+    }
+
+    /**
+     * Re-reads the offset between the wall clock and the monotonic clock,
+     * after the wall clock was set. The deadline stays put, so only endTime
+     * moves. Returns by how much it moved.
+     */
+    public long calibrateWallClock() {
+        // Both reads can't be atomic, bracket the wall clock read instead
+        long before = clock.elapsedRealtime();
+        long wall = clock.currentTimeMillis();
+        long after = clock.elapsedRealtime();
+        long previous = wallOffset;
+        wallOffset = wall - (before + after) / 2;
+        return wallOffset - previous;
+    }
+
+    // Wall clock time the timer reaches 0, 0 while not running
+    public long getEndTime() {
+        return deadline > 0 ? deadline + wallOffset : 0;
+    }
+
+    public void setEndTime(long endTime) {
+        this.deadline = endTime > 0 ? Math.max(1, endTime - wallOffset) : 0;
+    }
+
+    public long getDeadline() {
+        return deadline;
+    }
+
+    public int getTimeLeft() {
+        return timeLeft;
+    }
+
+    public void setTimeLeft(int timeLeft) {
+        this.timeLeft = timeLeft;
+    }
+
+    public int getTimerDuration() {
+        return timerDuration;
+    }
+
+    public void setTimerDuration(int timerDuration) {
+        this.timerDuration = timerDuration;
+    }
+
+    public boolean isPaused() {
+        return paused;
+    }
+
+    public void setPaused(boolean paused) {
+        this.paused = paused;
+    }
+
+    public boolean isExpired() {
+        return expired;
+    }
+
+    public void setExpired(boolean expired) {
+        this.expired = expired;
+    }
+
+    // Set while the app is in the background: alert at expiry and advance levels
+    public boolean isAlertOnExpiry() {
+        return alertOnExpiry;
+    }
+
+    public void setAlertOnExpiry(boolean alertOnExpiry) {
+        this.alertOnExpiry = alertOnExpiry;
+    }
+
+    public BlindSchedule getSchedule() {
+        return schedule;
+    }
+
+    public int getLevelIndex() {
+        return levelIndex;
+    }
+
+    public long getLastDueTime() {
+        return lastDueTime;
+    }
+
+    public boolean isRunning() {
+        return !paused && deadline > 0;
+    }
+
+    // Rounded up, so the timer shows 0 and expires exactly at the deadline
+    public int computeTimeLeft(long currentTime) {
+        return Math.max(0, (int) ((deadline - currentTime + 999) / 1000));
+    }
+
+    // Earliest time at which computeTimeLeft() reports the given seconds
+    public long wakeupTimeFor(int secondsLeft) {
+        return deadline - secondsLeft * 1000L;
+    }
+
+    public void refreshTimeLeft() {
+        if (isRunning()) {
+            timeLeft = computeTimeLeft(now());
+        }
+    }
+
+    public boolean pause() {
+        if (paused) return false;
+
+        timeLeft = computeTimeLeft(now());
+        deadline = 0;
+        paused = true;
+        return true;
+    }
+
+    public boolean resume() {
+        if (!paused || timeLeft <= 0) return false;
+
+        deadline = now() + timeLeft * 1000L;
+        paused = false;
+        expired = false;
+        return true;
+    }
+
+    public void reset() {
+        deadline = 0;
+        timeLeft = timerDuration;
+        paused = true;
+        expired = false;
+    }
+
+    public void changeTimerDuration(int seconds) {
+        timerDuration = seconds;
+        // A paused timer shows the new duration, a running one keeps its deadline
+        if (paused) {
+            timeLeft = seconds;
+        }
+    }
+
+    /**
+     * Brings the state up to the current time, for a timer wakeup. Returns
+     * TIME_LEFT_CHANGED, EXPIRED (the timer reached 0 just now) and
+     * LEVEL_ADVANCED (the schedule moved on, possibly expiring on its last
+     * level) flags.
+     */
+    public int update() {
+        long currentTime = now();
+        int newTimeLeft = computeTimeLeft(currentTime);
+        if (newTimeLeft == 0 && advanceEndedLevels(currentTime)) {
+            return LEVEL_ADVANCED | TIME_LEFT_CHANGED | (expired ? EXPIRED : 0);
+        }
+
+        int result = 0;
+        if (newTimeLeft != timeLeft) {
+            timeLeft = newTimeLeft;
+            result |= TIME_LEFT_CHANGED;
+        }
+        if (timeLeft == 0 && !expired) {
+            expired = true;
+            lastDueTime = deadline;
+            result |= EXPIRED;
+        }
+        return result;
+    }
+
+    /**
+     * Moves past every level of the schedule that has ended by now. Each level
+     * ends exactly timerDuration after the previous one, so the schedule stays
+     * correct however late this runs. Only while alertOnExpiry is set; in the
+     * foreground the app asks what to do next.
+     */
+    private boolean advanceEndedLevels(long currentTime) {
+        if (schedule == null || !alertOnExpiry || paused || deadline <= 0
+                || timerDuration <= 0) {
+            return false;
+        }
+
+        long endedAt = deadline;
+        int index = levelIndex;
+        while (deadline <= currentTime && schedule.hasLevel(index + 1)) {
+            index++;
+            deadline += timerDuration * 1000L;
+        }
+        if (index == levelIndex) {
+            return false;
+        }
+
+        lastDueTime = endedAt;
+        levelIndex = index;
+        timeLeft = computeTimeLeft(currentTime);
+        // The last level may have ended as well
+        expired = timeLeft == 0;
+        return true;
+    }
+
+    /**
+     * The next time the countdown has something to draw: entering
+     * the low-time color, or expiry. -1 when there's nothing left to wait for.
+     */
+    public long nextTransitionTime() {
+        if (timeLeft > LOW_TIME_THRESHOLD_SECONDS) {
+            return wakeupTimeFor(LOW_TIME_THRESHOLD_SECONDS);
+        } else if (timeLeft > 0 || !expired) {
+            // Also right away for a level that ended while nothing was scheduled
+            return wakeupTimeFor(0);
+        }
+        return -1;
+    }
+
+    public int getStatusColor() {
+        if (expired) {
+            return COLOR_EXPIRED;
+        } else if (paused) {
+            return COLOR_PAUSED;
+        } else if (timeLeft <= LOW_TIME_THRESHOLD_SECONDS) {
+            return COLOR_LOW_TIME;
+        } else {
+            return COLOR_RUNNING;
+        }
+    }
+
+    // index only applies without a schedule yet, otherwise the current level
+    // is kept (it may have advanced while JS wasn't running)
+    public void setBlindSchedule(BlindSchedule newSchedule, int index) {
+        int startIndex = schedule != null ? levelIndex : index;
+        schedule = newSchedule;
+        levelIndex = clampLevel(startIndex);
+    }
+
+    // Returns whether the level changed
+    public boolean setLevelIndex(int index) {
+        if (schedule == null) return false;
+
+        int clamped = clampLevel(index);
+        if (clamped == levelIndex) return false;
+
+        levelIndex = clamped;
+        return true;
+    }
+
+    // As saved, without clamping or keeping the current level
+    public void restoreSchedule(BlindSchedule savedSchedule, int savedLevelIndex) {
+        schedule = savedSchedule;
+        levelIndex = savedLevelIndex;
+    }
+
+    private int clampLevel(int index) {
+        return Math.max(0, Math.min(index, schedule.size() - 1));
+    }
+}
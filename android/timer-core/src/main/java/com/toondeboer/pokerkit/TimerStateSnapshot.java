@@ -0,0 +1,54 @@
+package com.toondeboer.pokerkit;
+
+/**
+ * Immutable copy of PokerTimerService's timer state. The service publishes a
+ * new one on every change so bound modules can read it from any thread.
+ */
+public final class TimerStateSnapshot {
+    public static final TimerStateSnapshot STOPPED = new TimerStateSnapshot(
+            "Poker Tournament", 1, 0, 0, 0, 0, -1, 0, 0, 600, true, false, false, false);
+
+    public final String tournamentName;
+    public final int currentBlindLevel;
+    public final int currentSmallBlind;
+    public final int currentBigBlind;
+    public final int nextSmallBlind;
+    public final int nextBigBlind;
+    // Index into the blind schedule, -1 without one
+    public final int levelIndex;
+    public final long endTime;
+    public final int timeLeft;
+    public final int timerDuration;
+    public final boolean paused;
+    public final boolean expired;
+    public final boolean alerting;
+    public final boolean foreground;
+
+    public TimerStateSnapshot(String tournamentName, int currentBlindLevel, int currentSmallBlind,
+                              int currentBigBlind, int nextSmallBlind, int nextBigBlind,
+                              int levelIndex, long endTime, int timeLeft, int timerDuration, boolean paused,
+                              boolean expired, boolean alerting, boolean foreground) {
+        this.tournamentName = tournamentName;
+        this.currentBlindLevel = currentBlindLevel;
+        this.currentSmallBlind = currentSmallBlind;
+        this.currentBigBlind = currentBigBlind;
+        this.nextSmallBlind = nextSmallBlind;
+        this.nextBigBlind = nextBigBlind;
+        this.levelIndex = levelIndex;
+        this.endTime = endTime;
+        this.timeLeft = timeLeft;
+        this.timerDuration = timerDuration;
+        this.paused = paused;
+        this.expired = expired;
+        this.alerting = alerting;
+        this.foreground = foreground;
+    }
+
+    // timeLeft is only refreshed on transitions while running, endTime is exact
+    public int getTimeLeft(long currentTime) {
+        if (paused || endTime <= 0) {
+            return timeLeft;
+        }
+        return Math.max(0, (int) ((endTime - currentTime + 999) / 1000));
+    }
+}
@@ -0,0 +1,376 @@
+package com.toondeboer.pokerkit;
+
+import java.io.PrintWriter;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+/**
+ * Replays a whole tournament against a virtual clock in the time it takes to
+ * compute it. The wakeup and notification policy mirrors PokerTimerService:
+ * once-a-second wakeups in tick mode, only the low-time and expiry
+ * transitions in countdown mode, and a repost only when the visible
+ * notification changed. The report shows what a blind structure and update
+ * mode cost per hour on a device, before running it live.
+ *
+ * Run from the command line with: ./gradlew :timer-core:simulate
+ */
+public class TournamentSimulator {
+    private static final long START_TIME = 1_700_000_000_000L;
+    private static final double MILLIS_PER_HOUR = 3_600_000.0;
+
+    private static final int PAUSE = 0;
+    private static final int RESUME = 1;
+    private static final int SET_LEVEL = 2;
+
+    private static class VirtualClock implements TimerCore.Clock {
+        long now = START_TIME;
+
+        @Override
+        public long currentTimeMillis() {
+            return now;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return now;
+        }
+    }
+
+    // A command from the app at a fixed offset into the tournament
+    private static class Command {
+        final long at;
+        final int type;
+        final int value;
+
+        Command(long at, int type, int value) {
+            this.at = at;
+            this.type = type;
+            this.value = value;
+        }
+    }
+
+    /** Totals of one run, with per-simulated-hour rates. */
+    public static class Report {
+        public final boolean countdownMode;
+        public final long simulatedMillis;
+        public final long wakeups;
+        public final long notificationPosts;
+        public final long alerts;
+        public final int levelsPlayed;
+        // -1 when the JVM can't measure per-thread allocation
+        public final long allocatedBytes;
+        public final LatencyHistogram alertLatency;
+
+        Report(boolean countdownMode, long simulatedMillis, long wakeups, long notificationPosts,
+               long alerts, int levelsPlayed, long allocatedBytes, LatencyHistogram alertLatency) {
+            this.countdownMode = countdownMode;
+            this.simulatedMillis = simulatedMillis;
+            this.wakeups = wakeups;
+            this.notificationPosts = notificationPosts;
+            this.alerts = alerts;
+            this.levelsPlayed = levelsPlayed;
+            this.allocatedBytes = allocatedBytes;
+            this.alertLatency = alertLatency;
+        }
+
+        public double perHour(long count) {
+            return simulatedMillis > 0 ? count * MILLIS_PER_HOUR / simulatedMillis : 0;
+        }
+
+        public void print(PrintWriter writer) {
+            writer.println(String.format(Locale.US,
+                    "%s mode: %d levels in %.2fh simulated",
+                    countdownMode ? "countdown" : "tick", levelsPlayed,
+                    simulatedMillis / MILLIS_PER_HOUR));
+            writer.println(String.format(Locale.US, "  wakeups=%d (%.1f/h)",
+                    wakeups, perHour(wakeups)));
+            writer.println(String.format(Locale.US, "  notificationPosts=%d (%.1f/h)",
+                    notificationPosts, perHour(notificationPosts)));
+            writer.println(String.format(Locale.US, "  alerts=%d (%.1f/h)",
+                    alerts, perHour(alerts)));
+            if (allocatedBytes >= 0) {
+                writer.println(String.format(Locale.US, "  allocated=%dB (%.0fB/h)",
+                        allocatedBytes, perHour(allocatedBytes)));
+            }
+            alertLatency.dump(writer);
+            writer.flush();
+        }
+    }
+
+    private final BlindSchedule schedule;
+    private final int levelSeconds;
+    private final boolean countdownMode;
+    private final List<Command> commands = new ArrayList<>();
+    private long maxWakeupDelayMillis = 0;
+    private long seed = 0;
+
+    private VirtualClock clock;
+    private TimerCore core;
+    private NotificationTextFormatter formatter;
+    private Random random;
+    private long nextWakeup;
+    private long wakeups;
+    private long notificationPosts;
+    private long alerts;
+    private LatencyHistogram alertLatency;
+
+    // Visible fields of the last posted notification, as in NotificationTemplateCache
+    private final StringBuilder lastContent = new StringBuilder();
+    private final StringBuilder lastBigText = new StringBuilder();
+    private String lastTitle;
+    private int lastColor;
+    private long lastChronometerBase;
+    private boolean hasPosted;
+
+    public TournamentSimulator(BlindSchedule schedule, int levelSeconds, boolean countdownMode) {
+        this.schedule = schedule;
+        this.levelSeconds = levelSeconds;
+        this.countdownMode = countdownMode;
+    }
+
+    /** The app pauses the timer at the given offset into the tournament. */
+    public TournamentSimulator pause(long atMillis) {
+        commands.add(new Command(atMillis, PAUSE, 0));
+        return this;
+    }
+
+    public TournamentSimulator resume(long atMillis) {
+        commands.add(new Command(atMillis, RESUME, 0));
+        return this;
+    }
+
+    /** The app jumps to a level, as BlindsContext does on a manual change. */
+    public TournamentSimulator setLevelIndex(long atMillis, int levelIndex) {
+        commands.add(new Command(atMillis, SET_LEVEL, levelIndex));
+        return this;
+    }
+
+    /**
+     * Delivers every wakeup up to maxMillis late, uniformly at random, to model
+     * a busy Looper or Doze. Zero (the default) delivers them on time.
+     */
+    public TournamentSimulator setWakeupDelay(long maxMillis, long seed) {
+        this.maxWakeupDelayMillis = maxMillis;
+        this.seed = seed;
+        return this;
+    }
+
+    /** Runs until the last level expires, a few seconds of real time for a full tournament. */
+    public Report run() {
+        clock = new VirtualClock();
+        core = new TimerCore(clock);
+        formatter = new NotificationTextFormatter(Locale.US);
+        random = new Random(seed);
+        wakeups = 0;
+        notificationPosts = 0;
+        alerts = 0;
+        alertLatency = new LatencyHistogram("alertLatency");
+        hasPosted = false;
+
+        List<Command> pending = new ArrayList<>(commands);
+        pending.sort(new Comparator<Command>() {
+            @Override
+            public int compare(Command a, Command b) {
+                return Long.compare(a.at, b.at);
+            }
+        });
+
+        long allocatedBefore = allocatedBytes();
+        core.setBlindSchedule(schedule, 0);
+        core.changeTimerDuration(levelSeconds);
+        loadLevel();
+        core.resume();
+        onTimingChanged();
+
+        int next = 0;
+        while (nextWakeup >= 0 || next < pending.size()) {
+            Command command = next < pending.size() ? pending.get(next) : null;
+            if (command != null && (nextWakeup < 0 || START_TIME + command.at <= nextWakeup)) {
+                clock.now = Math.max(clock.now, START_TIME + command.at);
+                apply(command);
+                next++;
+            } else {
+                clock.now = nextWakeup;
+                onWakeup();
+            }
+        }
+        long allocated = allocatedBefore >= 0 ? allocatedBytes() - allocatedBefore : -1;
+
+        return new Report(countdownMode, clock.now - START_TIME, wakeups, notificationPosts,
+                alerts, core.getLevelIndex() + 1, allocated, alertLatency);
+    }
+
+    private void apply(Command command) {
+        if (command.type == PAUSE) {
+            if (core.pause()) onTimingChanged();
+        } else if (command.type == RESUME) {
+            if (core.resume()) onTimingChanged();
+        } else if (core.setLevelIndex(command.value)) {
+            loadLevel();
+            updateNotification();
+        }
+    }
+
+    // PokerTimerService.onTimingChanged() followed by startTimer()
+    private void onTimingChanged() {
+        updateNotification();
+        nextWakeup = -1;
+        if (!core.isRunning()) return;
+
+        if (countdownMode) {
+            scheduleNextTransition();
+        } else {
+            schedule(0);
+        }
+    }
+
+    // The tick and countdown Runnables of PokerTimerService
+    private void onWakeup() {
+        wakeups++;
+        nextWakeup = -1;
+        int previousColor = core.getStatusColor();
+        int changes = core.update();
+
+        if ((changes & TimerCore.LEVEL_ADVANCED) != 0) {
+            loadLevel();
+            updateNotification();
+            alert();
+            onTimingChanged();
+            return;
+        }
+
+        if (countdownMode) {
+            if ((changes & TimerCore.EXPIRED) != 0 || core.getStatusColor() != previousColor) {
+                updateNotification();
+            }
+        } else if ((changes & TimerCore.TIME_LEFT_CHANGED) != 0) {
+            updateNotification();
+        }
+        if ((changes & TimerCore.EXPIRED) != 0 && core.isAlertOnExpiry()) {
+            alert();
+        }
+
+        if (countdownMode) {
+            scheduleNextTransition();
+        } else if (core.getTimeLeft() > 0) {
+            schedule(Math.max(0, core.wakeupTimeFor(core.getTimeLeft() - 1) - clock.now));
+        }
+    }
+
+    private void scheduleNextTransition() {
+        long wakeupTime = core.nextTransitionTime();
+        if (wakeupTime >= 0) {
+            schedule(Math.max(0, wakeupTime - clock.now));
+        }
+    }
+
+    private void schedule(long delay) {
+        long lateness = maxWakeupDelayMillis > 0
+                ? (long) (random.nextDouble() * maxWakeupDelayMillis) : 0;
+        nextWakeup = clock.now + delay + lateness;
+    }
+
+    // The alert notification is a post of its own
+    private void alert() {
+        alerts++;
+        notificationPosts++;
+        alertLatency.recordMillis(clock.now - core.getLastDueTime());
+    }
+
+    private void loadLevel() {
+        int index = core.getLevelIndex();
+        int nextIndex = index + 1;
+        boolean hasNext = schedule.hasLevel(nextIndex);
+        formatter.setLevel(index + 1, schedule.getSmallBlind(index), schedule.getBigBlind(index),
+                schedule.getAnte(index), schedule.isBreak(index),
+                hasNext ? schedule.getSmallBlind(nextIndex) : 0,
+                hasNext ? schedule.getBigBlind(nextIndex) : 0,
+                hasNext ? schedule.getAnte(nextIndex) : 0, hasNext && schedule.isBreak(nextIndex));
+    }
+
+    private void updateNotification() {
+        boolean paused = core.isPaused();
+        boolean expired = core.isExpired();
+        int timeLeft = core.getTimeLeft();
+        boolean chronometer = countdownMode && !paused && !expired && timeLeft > 0;
+        String title = formatter.title(paused, expired);
+        CharSequence content = formatter.content(paused, timeLeft, expired, chronometer);
+        CharSequence bigText = formatter.bigText(paused, timeLeft, expired, chronometer);
+        int color = core.getStatusColor();
+        long chronometerBase = chronometer ? core.getEndTime() : 0;
+
+        if (hasPosted && color == lastColor && chronometerBase == lastChronometerBase
+                && title.equals(lastTitle) && contentEquals(lastContent, content)
+                && contentEquals(lastBigText, bigText)) {
+            return;
+        }
+
+        lastTitle = title;
+        lastContent.setLength(0);
+        lastContent.append(content);
+        lastBigText.setLength(0);
+        lastBigText.append(bigText);
+        lastColor = color;
+        lastChronometerBase = chronometerBase;
+        hasPosted = true;
+        notificationPosts++;
+    }
+
+    private static boolean contentEquals(StringBuilder last, CharSequence current) {
+        int length = last.length();
+        if (length != current.length()) return false;
+        for (int i = 0; i < length; i++) {
+            if (last.charAt(i) != current.charAt(i)) return false;
+        }
+        return true;
+    }
+
+    // Bytes allocated by this thread so far, -1 where the JVM doesn't track it
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+            if (threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled()) {
+                return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Compares both update modes for one structure.
+     * Arguments: [levels] [level minutes] [max wakeup delay ms]
+     */
+    public static void main(String[] args) {
+        int levels = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+        int levelMinutes = args.length > 1 ? Integer.parseInt(args[1]) : 20;
+        long maxDelay = args.length > 2 ? Long.parseLong(args[2]) : 0;
+
+        // Blinds going up by half each level, from 25/50, with a break every 6 levels
+        int[] packed = new int[levels * BlindSchedule.STRIDE];
+        int bigBlind = 50;
+        for (int i = 0; i < levels; i++) {
+            packed[i * BlindSchedule.STRIDE] = bigBlind / 2;
+            packed[i * BlindSchedule.STRIDE + 1] = bigBlind;
+            packed[i * BlindSchedule.STRIDE + 3] = i % 6 == 5 ? BlindSchedule.FLAG_BREAK : 0;
+            bigBlind += Math.max(50, bigBlind / 2 / 50 * 50);
+        }
+        BlindSchedule schedule = BlindSchedule.fromPacked(packed);
+
+        PrintWriter writer = new PrintWriter(System.out);
+        for (boolean countdown : new boolean[]{false, true}) {
+            // A five minute pause, as for a rebuy period, two levels in
+            long pauseAt = 2L * levelMinutes * 60_000 + 60_000;
+            new TournamentSimulator(schedule, levelMinutes * 60, countdown)
+                    .pause(pauseAt)
+                    .resume(pauseAt + 5 * 60_000)
+                    .setWakeupDelay(maxDelay, 42)
+                    .run()
+                    .print(writer);
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.toondeboer.pokerkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PatchSequencerTest {
+    private static final int END_TIME = 0;
+    private static final int PAUSED = 1;
+
+    @Test
+    public void dropsLatePatchesPerField() {
+        PatchSequencer sequencer = new PatchSequencer(2);
+        assertTrue(sequencer.acceptSession(100));
+
+        assertTrue(sequencer.accepts(END_TIME, 2));
+        // Sequence 1 arrived after 2 on another path
+        assertFalse(sequencer.accepts(END_TIME, 1));
+        assertFalse(sequencer.accepts(END_TIME, 2));
+        // Other fields keep their own sequence
+        assertTrue(sequencer.accepts(PAUSED, 1));
+    }
+
+    @Test
+    public void newerSessionResetsSequences() {
+        PatchSequencer sequencer = new PatchSequencer(2);
+        sequencer.acceptSession(100);
+        sequencer.accepts(END_TIME, 500);
+
+        // A reloaded runtime starts counting from 1 again
+        assertTrue(sequencer.acceptSession(200));
+        assertEquals(200, sequencer.getSession());
+        assertTrue(sequencer.accepts(END_TIME, 1));
+    }
+
+    @Test
+    public void olderSessionIsDropped() {
+        PatchSequencer sequencer = new PatchSequencer(2);
+        sequencer.acceptSession(200);
+
+        assertFalse(sequencer.acceptSession(100));
+        assertEquals(200, sequencer.getSession());
+    }
+
+    @Test
+    public void reloadAfterWallClockSetBackGetsANewerSession() {
+        PatchSequencer sequencer = new PatchSequencer(2);
+        long elapsedRealtime = 50_000_000;
+
+        long first = PatchSequencer.newSession(elapsedRealtime);
+        assertTrue(sequencer.acceptSession(first));
+        sequencer.accepts(PAUSED, 40);
+
+        // The wall clock is set back an hour, then the JS runtime reloads. A
+        // Date.now() session would now be older and every patch dropped; the
+        // monotonic clock only moved forward.
+        elapsedRealtime += 10_000;
+        long second = PatchSequencer.newSession(elapsedRealtime);
+
+        assertTrue(second > first);
+        assertTrue(sequencer.acceptSession(second));
+        assertTrue(sequencer.accepts(PAUSED, 1));
+    }
+
+    @Test
+    public void sessionsIssuedInTheSameMillisecondDiffer() {
+        long first = PatchSequencer.newSession(90_000_000);
+        long second = PatchSequencer.newSession(90_000_000);
+        assertTrue(second > first);
+    }
+}
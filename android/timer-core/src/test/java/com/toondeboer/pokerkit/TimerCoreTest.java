@@ -0,0 +1,200 @@
+package com.toondeboer.pokerkit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Before;
+import org.junit.Test;
+
+public class TimerCoreTest {
+    private static final long WALL_START = 1_700_000_000_000L;
+    private static final long MONOTONIC_START = 5_000_000L;
+
+    // Both clocks advance together unless the wall clock is set
+    private static class FakeClock implements TimerCore.Clock {
+        long monotonic = MONOTONIC_START;
+        long wallOffset = WALL_START - MONOTONIC_START;
+
+        void advance(long millis) {
+            monotonic += millis;
+        }
+
+        @Override
+        public long currentTimeMillis() {
+            return monotonic + wallOffset;
+        }
+
+        @Override
+        public long elapsedRealtime() {
+            return monotonic;
+        }
+    }
+
+    private FakeClock clock;
+    private TimerCore core;
+
+    @Before
+    public void setUp() {
+        clock = new FakeClock();
+        core = new TimerCore(clock);
+        core.setTimerDuration(120);
+        core.reset();
+    }
+
+    // Three levels of 25/50, 50/100 and 100/200
+    private static BlindSchedule threeLevels() {
+        return BlindSchedule.fromPacked(new int[]{
+                25, 50, 0, 0,
+                50, 100, 0, 0,
+                100, 200, 0, 0,
+        });
+    }
+
+    @Test
+    public void timeLeftRoundsUp() {
+        core.resume();
+        long deadline = core.getDeadline();
+
+        assertEquals(120, core.computeTimeLeft(deadline - 119_001));
+        assertEquals(1, core.computeTimeLeft(deadline - 1));
+        assertEquals(0, core.computeTimeLeft(deadline));
+        assertEquals(0, core.computeTimeLeft(deadline + 5_000));
+    }
+
+    @Test
+    public void expiresExactlyAtTheDeadline() {
+        core.resume();
+
+        clock.advance(119_999);
+        assertEquals(TimerCore.TIME_LEFT_CHANGED, core.update());
+        assertEquals(1, core.getTimeLeft());
+        assertFalse(core.isExpired());
+
+        clock.advance(1);
+        assertEquals(TimerCore.TIME_LEFT_CHANGED | TimerCore.EXPIRED, core.update());
+        assertTrue(core.isExpired());
+        assertEquals(core.getDeadline(), core.getLastDueTime());
+        assertEquals(0, core.update());
+    }
+
+    @Test
+    public void pauseKeepsTheRemainingTime() {
+        assertTrue(core.resume());
+        assertFalse(core.resume());
+        clock.advance(30_500);
+
+        assertTrue(core.pause());
+        assertFalse(core.pause());
+        assertEquals(90, core.getTimeLeft());
+        assertEquals(0, core.getDeadline());
+        assertEquals(0, core.getEndTime());
+        assertFalse(core.isRunning());
+
+        // Paused time doesn't count
+        clock.advance(60_000);
+        assertTrue(core.resume());
+        assertEquals(clock.monotonic + 90_000, core.getDeadline());
+    }
+
+    @Test
+    public void resetRestoresTheDuration() {
+        core.resume();
+        clock.advance(120_000);
+        core.update();
+        assertTrue(core.isExpired());
+        assertFalse(core.resume());
+
+        core.reset();
+        assertTrue(core.isPaused());
+        assertFalse(core.isExpired());
+        assertEquals(120, core.getTimeLeft());
+        assertEquals(0, core.getDeadline());
+    }
+
+    @Test
+    public void advancesSeveralEndedLevelsWithoutDrift() {
+        core.setBlindSchedule(threeLevels(), 0);
+        core.resume();
+        long firstDeadline = core.getDeadline();
+
+        // Woken up late, halfway into the second level
+        clock.advance(180_000);
+        int changes = core.update();
+
+        assertEquals(TimerCore.LEVEL_ADVANCED | TimerCore.TIME_LEFT_CHANGED, changes);
+        assertEquals(1, core.getLevelIndex());
+        assertEquals(firstDeadline, core.getLastDueTime());
+        // Exactly one level later than the first deadline, however late the wakeup
+        assertEquals(firstDeadline + 120_000, core.getDeadline());
+        assertEquals(60, core.getTimeLeft());
+        assertFalse(core.isExpired());
+    }
+
+    @Test
+    public void expiresOnTheLastLevel() {
+        core.setBlindSchedule(threeLevels(), 0);
+        core.resume();
+        long firstDeadline = core.getDeadline();
+
+        // Past the end of all three levels
+        clock.advance(400_000);
+        int changes = core.update();
+
+        assertEquals(TimerCore.LEVEL_ADVANCED | TimerCore.TIME_LEFT_CHANGED | TimerCore.EXPIRED,
+                changes);
+        assertEquals(2, core.getLevelIndex());
+        assertEquals(firstDeadline + 240_000, core.getDeadline());
+        assertEquals(0, core.getTimeLeft());
+        assertTrue(core.isExpired());
+
+        // Nothing left to advance to
+        clock.advance(120_000);
+        assertEquals(0, core.update());
+        assertEquals(2, core.getLevelIndex());
+    }
+
+    @Test
+    public void doesNotAdvanceWithoutAlertOnExpiry() {
+        core.setBlindSchedule(threeLevels(), 0);
+        core.setAlertOnExpiry(false);
+        core.resume();
+
+        clock.advance(180_000);
+        assertEquals(TimerCore.TIME_LEFT_CHANGED | TimerCore.EXPIRED, core.update());
+        assertEquals(0, core.getLevelIndex());
+    }
+
+    @Test
+    public void nextTransitionIsLowTimeThenExpiry() {
+        core.resume();
+        long deadline = core.getDeadline();
+        assertEquals(deadline - TimerCore.LOW_TIME_THRESHOLD_SECONDS * 1000L,
+                core.nextTransitionTime());
+
+        clock.advance(60_000);
+        core.update();
+        assertEquals(TimerCore.LOW_TIME_THRESHOLD_SECONDS, core.getTimeLeft());
+        assertEquals(deadline, core.nextTransitionTime());
+
+        clock.advance(60_000);
+        core.update();
+        assertEquals(-1, core.nextTransitionTime());
+    }
+
+    @Test
+    public void calibrationMovesEndTimeButNotTheDeadline() {
+        core.resume();
+        long deadline = core.getDeadline();
+        long endTime = core.getEndTime();
+        assertEquals(WALL_START + 120_000, endTime);
+
+        // The wall clock is set 30 seconds ahead
+        clock.wallOffset += 30_000;
+        assertEquals(30_000, core.calibrateWallClock());
+
+        assertEquals(deadline, core.getDeadline());
+        assertEquals(endTime + 30_000, core.getEndTime());
+        assertEquals(0, core.calibrateWallClock());
+    }
+}
@@ -8,7 +8,9 @@ import {
 } from "react";
 import { BlindLevel } from "@/src/types/BlindLevel";
 import { generateBlindLevels } from "@/src/util/generateBlinds";
-import { BlindsStorage } from "@/src/services/BlindsStorage";
+import { BlindsState, BlindsStorage } from "@/src/services/BlindsStorage";
+import { liveActivityService } from "@/src/services/LiveActivityService";
+import { getStartupState } from "@/src/services/StartupState";
 
 type BlindsContextType = {
   blindLevels: BlindLevel[];
@@ -16,6 +18,7 @@ type BlindsContextType = {
   currentBlindIndex: number;
   increaseBlinds: () => void;
   decreaseBlinds: () => void;
+  syncBlindIndex: (index: number) => void;
   addBlindLevel: () => void;
   removeBlindLevel: (index: number) => void;
   updateBlindLevel: (
@@ -30,22 +33,52 @@ type BlindsContextType = {
 
 const BlindsContext = createContext<BlindsContextType | null>(null);
 
+// The saved structures and the level a running service reached, when they
+// can be read synchronously; undefined leaves it to the async load
+const initialBlindsState = (): BlindsState | undefined => {
+  const startup = getStartupState();
+  if (!startup?.blinds) {
+    return undefined;
+  }
+
+  const state = BlindsStorage.fromNative(startup.blinds);
+  if (startup.service.running && startup.service.levelIndex >= 0) {
+    state.currentBlindIndex = startup.service.levelIndex;
+  }
+  return state;
+};
+
 export function BlindsProvider({
   children,
 }: Readonly<{ children: ReactNode }>) {
-  const [currentBlindIndex, setCurrentBlindIndex] = useState(0);
-  const [blindLevels, setBlindLevels] = useState(generateBlindLevels());
+  const [initialState] = useState(initialBlindsState);
+  const [currentBlindIndex, setCurrentBlindIndex] = useState(
+    initialState?.currentBlindIndex ?? 0,
+  );
+  const [blindLevels, setBlindLevels] = useState(
+    () => initialState?.blindLevels ?? generateBlindLevels(),
+  );
   const [customBlindLevels, setCustomBlindLevels] = useState<BlindLevel[]>(
-    generateBlindLevels(),
+    () => initialState?.customBlindLevels ?? generateBlindLevels(),
   );
-  const [isLoading, setIsLoading] = useState(true);
+  const [isLoading, setIsLoading] = useState(!initialState);
 
-  // Load blinds state on mount
+  // Load blinds state on mount, unless the first render already had it
   useEffect(() => {
+    if (initialState) {
+      return;
+    }
+
     const loadBlindsState = async () => {
       try {
         const savedState = await BlindsStorage.loadBlindsState();
-        setCurrentBlindIndex(savedState.currentBlindIndex);
+        // A running Android service may have advanced levels while JS was gone
+        const serviceState = await liveActivityService.getAndroidServiceState();
+        setCurrentBlindIndex(
+          serviceState?.running && serviceState.levelIndex >= 0
+            ? serviceState.levelIndex
+            : savedState.currentBlindIndex,
+        );
         setBlindLevels(savedState.blindLevels);
         setCustomBlindLevels(savedState.customBlindLevels);
       } catch (error) {
@@ -58,37 +91,34 @@ export function BlindsProvider({
     loadBlindsState();
   }, []);
 
-  // Save state whenever it changes
+  // Save the index on its own, level changes don't rewrite the structures
   useEffect(() => {
     if (!isLoading) {
-      const saveState = async () => {
-        try {
-          await BlindsStorage.saveBlindsState({
-            currentBlindIndex,
-            blindLevels,
-            customBlindLevels,
-          });
-        } catch (error) {
-          console.error("Failed to save blinds state:", error);
-        }
-      };
-
-      saveState();
+      BlindsStorage.saveCurrentBlindIndex(currentBlindIndex);
     }
-  }, [currentBlindIndex, blindLevels, customBlindLevels, isLoading]);
+  }, [currentBlindIndex, isLoading]);
+
+  useEffect(() => {
+    if (!isLoading) {
+      BlindsStorage.saveBlindLevels(blindLevels, customBlindLevels);
+    }
+  }, [blindLevels, customBlindLevels, isLoading]);
 
   const increaseBlinds = () => {
     const newIndex = Math.min(currentBlindIndex + 1, blindLevels.length - 1);
     setCurrentBlindIndex(newIndex);
-    // Save index immediately
-    BlindsStorage.saveCurrentBlindIndex(newIndex);
+    liveActivityService.setAndroidLevelIndex(newIndex);
   };
 
   const decreaseBlinds = () => {
     const newIndex = Math.max(currentBlindIndex - 1, 0);
     setCurrentBlindIndex(newIndex);
-    // Save index immediately
-    BlindsStorage.saveCurrentBlindIndex(newIndex);
+    liveActivityService.setAndroidLevelIndex(newIndex);
+  };
+
+  // Level reached by the Android service, it already knows about it
+  const syncBlindIndex = (index: number) => {
+    setCurrentBlindIndex(index);
   };
 
   const addBlindLevel = () => {
@@ -127,6 +157,7 @@ export function BlindsProvider({
   const applyCustomBlindLevels = () => {
     setBlindLevels([...customBlindLevels]);
     setCurrentBlindIndex(0);
+    liveActivityService.setAndroidLevelIndex(0);
   };
 
   const resetToDefaultBlinds = () => {
@@ -134,6 +165,7 @@ export function BlindsProvider({
     setCustomBlindLevels(defaultLevels);
     setBlindLevels(defaultLevels);
     setCurrentBlindIndex(0);
+    liveActivityService.setAndroidLevelIndex(0);
   };
 
   return (
@@ -144,6 +176,7 @@ export function BlindsProvider({
         customBlindLevels,
         increaseBlinds,
         decreaseBlinds,
+        syncBlindIndex,
         addBlindLevel,
         removeBlindLevel,
         updateBlindLevel,
@@ -11,9 +11,12 @@ import { Sound, useSounds } from "@/src/hooks/useSounds";
 import { useBlinds } from "@/src/contexts/BlindsContext";
 import { useTimerNotification } from "@/src/hooks/useTimerNotification";
 import { useTimerEngine } from "@/src/hooks/useTimerEngine";
+import { useNativeTimerEngine } from "@/src/hooks/useNativeTimerEngine";
 import { useNotificationPermission } from "@/src/hooks/useNotificationPermission";
 import { liveActivityService } from "@/src/services/LiveActivityService";
 import { useAppState } from "./AppStateContext";
+import { getStartupState } from "@/src/services/StartupState";
+import { reportStartup } from "@/src/util/startupTrace";
 
 type TimerContextType = {
   endTime?: number;
@@ -38,9 +41,19 @@ type TimerContextType = {
 
 const TimerContext = createContext<TimerContextType | null>(null);
 
+// On Android the foreground service owns the clock, JS only subscribes to it
+const useEngine =
+  Platform.OS === "android" ? useNativeTimerEngine : useTimerEngine;
+
 export function TimerProvider({ children }: Readonly<{ children: ReactNode }>) {
   const { playSound, stopSound, isLoaded } = useSounds(Sound.ALARM);
-  const { increaseBlinds, currentBlindIndex, blindLevels } = useBlinds();
+  const {
+    increaseBlinds,
+    syncBlindIndex,
+    currentBlindIndex,
+    blindLevels,
+    isLoading: blindsLoading,
+  } = useBlinds();
   const { scheduleNotification, cancelNotification } = useTimerNotification();
   const { isActive, isBackground, isInactive } = useAppState();
 
@@ -112,8 +125,9 @@ export function TimerProvider({ children }: Readonly<{ children: ReactNode }>) {
     resetTimer: engineResetTimer,
     isLoading,
     loadTimerState,
-  } = useTimerEngine(currentBlindIndex, blindLevels, {
+  } = useEngine(currentBlindIndex, blindLevels, {
     onTimerComplete: handleTimerComplete,
+    onLevelIndexChange: syncBlindIndex,
   });
 
   // Enhanced toggle pause with notification handling
@@ -215,6 +229,13 @@ export function TimerProvider({ children }: Readonly<{ children: ReactNode }>) {
     loadTimerState();
   }, []);
 
+  // The first commit with both timer and blinds loaded is the first correct frame
+  useEffect(() => {
+    if (!isLoading && !blindsLoading) {
+      reportStartup(getStartupState()?.service.running ? "snapshot" : "async");
+    }
+  }, [isLoading, blindsLoading]);
+
   // Cleanup on unmount
   useEffect(() => {
     return () => {
@@ -0,0 +1,263 @@
+// src/hooks/useNativeTimerEngine.ts
+import { useEffect, useRef, useState } from "react";
+import { DeviceEventEmitter } from "react-native";
+import { TimerStorage } from "@/src/services/TimerStorage";
+import { BlindLevel } from "@/src/types/BlindLevel";
+import {
+  AndroidTimerCommand,
+  liveActivityService,
+} from "@/src/services/LiveActivityService";
+import { ForegroundServiceState } from "@/src/modules/LiveActivityModule";
+import { useAppState } from "@/src/contexts/AppStateContext";
+import { TimerEngineCallbacks } from "@/src/hooks/useTimerEngine";
+import { getStartupState } from "@/src/services/StartupState";
+
+const DEFAULT_TIMER_DURATION = 600;
+
+// The running service's timing for the first render, read synchronously.
+// Without a running service loadTimerState() decides as before
+const initialTiming = () => {
+  const service = getStartupState()?.service;
+  if (!service?.running) {
+    return undefined;
+  }
+
+  const running = !service.paused && service.endTime > 0;
+  return {
+    timerDuration: service.timerDuration,
+    endTime: running ? service.endTime : undefined,
+    // Only refreshed on transitions while running, endTime is exact
+    timeLeft: running
+      ? Math.max(0, Math.ceil((service.endTime - Date.now()) / 1000))
+      : service.timeLeft,
+    paused: service.paused,
+  };
+};
+
+// Android version of useTimerEngine. PokerTimerService owns the countdown,
+// pause/resume, reset and expiry; this hook sends commands and renders the
+// state and tick events it pushes. Ticks are only requested while the app is
+// visible, and storage is only written on state changes, never per second.
+// The blind schedule is pushed once so the service can advance levels in the
+// background; the level it reaches comes back through onLevelIndexChange.
+export function useNativeTimerEngine(
+  currentBlindLevel: number,
+  blindLevels: BlindLevel[],
+  callbacks: TimerEngineCallbacks,
+) {
+  const [initial] = useState(initialTiming);
+  const [timerDuration, setTimerDuration] = useState(
+    initial?.timerDuration ?? DEFAULT_TIMER_DURATION,
+  );
+  const [endTime, setEndTime] = useState<number | undefined>(initial?.endTime);
+  const [timeLeft, setTimeLeft] = useState(
+    initial?.timeLeft ?? DEFAULT_TIMER_DURATION,
+  );
+  const [paused, setPaused] = useState(initial?.paused ?? true);
+  const [isLoading, setIsLoading] = useState(!initial);
+
+  const { isActive } = useAppState();
+
+  const callbacksRef = useRef(callbacks);
+  callbacksRef.current = callbacks;
+  const hasHandledTimerCompleteRef = useRef(false);
+
+  // Latest values for the start path, which sends the full state
+  const timingRef = useRef({ endTime, timeLeft, paused, timerDuration });
+  timingRef.current = { endTime, timeLeft, paused, timerDuration };
+
+  const startService = async (
+    timing: typeof timingRef.current,
+    shouldAlertOnExpiry: boolean,
+  ) => {
+    await liveActivityService.startOrUpdateActivity(
+      {
+        ...timing,
+        currentBlindLevel: currentBlindLevel + 1, // Display as 1-based index
+        currentSmallBlind: blindLevels[currentBlindLevel]?.small || 0,
+        currentBigBlind: blindLevels[currentBlindLevel]?.big || 0,
+        nextSmallBlind: blindLevels[currentBlindLevel + 1]?.small || 0,
+        nextBigBlind: blindLevels[currentBlindLevel + 1]?.big || 0,
+      },
+      shouldAlertOnExpiry,
+    );
+    // No-op while the running service already has this schedule
+    await liveActivityService.setAndroidBlindSchedule(
+      blindLevels,
+      currentBlindLevel,
+    );
+  };
+
+  const applyServiceState = (state: ForegroundServiceState) => {
+    const running = !state.paused && state.endTime > 0;
+    setTimerDuration(state.timerDuration);
+    setEndTime(running ? state.endTime : undefined);
+    setTimeLeft(state.timeLeft);
+    setPaused(state.paused);
+    if (state.levelIndex >= 0) {
+      callbacksRef.current.onLevelIndexChange?.(state.levelIndex);
+    }
+
+    // Transitions only, so this is the one place the state is persisted
+    TimerStorage.saveTimerState({
+      endTime: running ? state.endTime : undefined,
+      timerDuration: state.timerDuration,
+      paused: state.paused,
+      timeLeft: state.timeLeft,
+    });
+
+    if (state.expired && !hasHandledTimerCompleteRef.current) {
+      hasHandledTimerCompleteRef.current = true;
+      callbacksRef.current.onTimerComplete();
+      liveActivityService.sendAndroidTimerCommand("reset");
+    } else if (!state.expired) {
+      hasHandledTimerCompleteRef.current = false;
+    }
+  };
+
+  // Runs a command on the service, or starts the service with the result
+  // when it isn't running (first start, after a reset or process death)
+  const runCommand = async (
+    command: AndroidTimerCommand,
+    fallback: typeof timingRef.current,
+  ) => {
+    if (await liveActivityService.sendAndroidTimerCommand(command)) {
+      return;
+    }
+    setEndTime(fallback.endTime);
+    setTimeLeft(fallback.timeLeft);
+    setPaused(fallback.paused);
+    await startService(fallback, !isActive);
+  };
+
+  // Adopt the service's state if it is running, otherwise the saved state
+  const loadTimerState = async (): Promise<void> => {
+    try {
+      const serviceState = await liveActivityService.getAndroidServiceState();
+      if (serviceState?.running) {
+        applyServiceState(serviceState);
+        return;
+      }
+
+      const savedState = await TimerStorage.loadTimerState();
+      let timing = {
+        endTime: savedState.endTime,
+        timeLeft: savedState.timeLeft,
+        paused: savedState.paused,
+        timerDuration: savedState.timerDuration,
+      };
+
+      if (savedState.endTime && !savedState.paused) {
+        const remaining = Math.ceil((savedState.endTime - Date.now()) / 1000);
+        if (remaining <= 0) {
+          // Timer expired while app and service were gone
+          callbacksRef.current.onTimerComplete();
+          timing = {
+            endTime: undefined,
+            timeLeft: savedState.timerDuration,
+            paused: true,
+            timerDuration: savedState.timerDuration,
+          };
+        } else {
+          timing.timeLeft = remaining;
+        }
+      }
+
+      setTimerDuration(timing.timerDuration);
+      setEndTime(timing.endTime);
+      setTimeLeft(timing.timeLeft);
+      setPaused(timing.paused);
+      await startService(timing, !isActive);
+    } catch (error) {
+      console.error("Failed to load timer state:", error);
+    } finally {
+      setIsLoading(false);
+    }
+  };
+
+  const togglePause = async (): Promise<void> => {
+    const current = timingRef.current;
+    if (current.paused) {
+      hasHandledTimerCompleteRef.current = false;
+      await runCommand("resume", {
+        ...current,
+        endTime: Date.now() + current.timeLeft * 1000,
+        paused: false,
+      });
+    } else {
+      const remaining = current.endTime
+        ? Math.max(0, Math.ceil((current.endTime - Date.now()) / 1000))
+        : current.timeLeft;
+      await runCommand("pause", {
+        ...current,
+        endTime: undefined,
+        timeLeft: remaining,
+        paused: true,
+      });
+    }
+  };
+
+  const resetTimer = async (): Promise<void> => {
+    const current = timingRef.current;
+    hasHandledTimerCompleteRef.current = false;
+    await runCommand("reset", {
+      ...current,
+      endTime: undefined,
+      timeLeft: current.timerDuration,
+      paused: true,
+    });
+  };
+
+  const handleSetTimerDuration = async (duration: number): Promise<void> => {
+    setTimerDuration(duration);
+    if (timingRef.current.paused) {
+      setTimeLeft(duration);
+    }
+    await liveActivityService.setAndroidTimerDuration(duration);
+  };
+
+  // The service owns the timing and level fields from here on
+  useEffect(() => {
+    liveActivityService.setAndroidServiceOwnsTimer(true);
+    return () => liveActivityService.setAndroidServiceOwnsTimer(false);
+  }, []);
+
+  // Subscribe to the service, with per-second ticks only while visible
+  useEffect(() => {
+    const stateSubscription = DeviceEventEmitter.addListener(
+      "PokerTimerState",
+      applyServiceState,
+    );
+    const tickSubscription = DeviceEventEmitter.addListener(
+      "PokerTimerTick",
+      (event: { timeLeft: number }) => setTimeLeft(event.timeLeft),
+    );
+    liveActivityService.setAndroidTimerEventsEnabled(true, isActive);
+
+    return () => {
+      stateSubscription.remove();
+      tickSubscription.remove();
+      liveActivityService.setAndroidTimerEventsEnabled(false, false);
+    };
+  }, [isActive]);
+
+  // Push schedule and alert changes; timing goes through the commands above
+  // and level changes through BlindsContext
+  useEffect(() => {
+    if (!isLoading) {
+      startService(timingRef.current, !isActive);
+    }
+  }, [blindLevels, isLoading, isActive]);
+
+  return {
+    timerDuration,
+    setTimerDuration: handleSetTimerDuration,
+    endTime,
+    timeLeft,
+    paused,
+    togglePause,
+    resetTimer,
+    isLoading,
+    loadTimerState,
+  };
+}
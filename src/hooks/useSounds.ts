@@ -1,12 +1,20 @@
 // src/hooks/useSounds.ts
 import { useCallback, useEffect, useState } from "react";
+import { Platform } from "react-native";
 import { Audio } from "expo-av";
+import { ForegroundServiceTurbo } from "@/src/modules/LiveActivityModule";
 
 export enum Sound {
   ALARM = require("../assets/sounds/alarm.mp3"),
 }
 
+// On Android the alarm is played by the service's native audio engine, so
+// the in-app alert starts without delay and the clip is only decoded once.
+// With the service in its :timer process the calls are forwarded to it.
+const nativeAlarm = Platform.OS === "android" ? ForegroundServiceTurbo : null;
+
 export const useSounds = (soundType: Sound) => {
+  const native = soundType === Sound.ALARM ? nativeAlarm : null;
   const [sound, setSound] = useState<Audio.Sound | null>(null);
   const [isLoaded, setIsLoaded] = useState(false);
   const [isPlaying, setIsPlaying] = useState(false);
@@ -30,6 +38,12 @@ export const useSounds = (soundType: Sound) => {
 
   // Load sounds on component mount
   useEffect(() => {
+    if (native) {
+      native.prepareAlarm();
+      setIsLoaded(true);
+      return;
+    }
+
     const loadSounds = async () => {
       try {
         // Configure audio first
@@ -69,10 +83,16 @@ export const useSounds = (soundType: Sound) => {
         sound.unloadAsync().catch(console.error);
       }
     };
-  }, [soundType, configureAudio]);
+  }, [soundType, configureAudio, native]);
 
   // Function to play the sound (foreground only)
   const playSound = useCallback(async () => {
+    if (native) {
+      native.playAlarm();
+      setIsPlaying(true);
+      return;
+    }
+
     if (!sound || !isLoaded) {
       console.warn("Sound not loaded, cannot play");
       return;
@@ -89,10 +109,16 @@ export const useSounds = (soundType: Sound) => {
     } catch (error) {
       console.error("Failed to play sound:", error);
     }
-  }, [sound, isLoaded, configureAudio]);
+  }, [sound, isLoaded, configureAudio, native]);
 
   // Function to stop the sound
   const stopSound = useCallback(async () => {
+    if (native) {
+      native.stopAlarm();
+      setIsPlaying(false);
+      return;
+    }
+
     if (!sound || !isLoaded) {
       console.warn("Sound not loaded, cannot stop");
       return;
@@ -104,10 +130,17 @@ export const useSounds = (soundType: Sound) => {
     } catch (error) {
       console.error("Failed to stop sound:", error);
     }
-  }, [sound, isLoaded]);
+  }, [sound, isLoaded, native]);
 
   // Function to pause the sound
   const pauseSound = useCallback(async () => {
+    if (native) {
+      // The native alarm restarts from the beginning, pausing stops it
+      native.stopAlarm();
+      setIsPlaying(false);
+      return;
+    }
+
     if (!sound || !isLoaded) {
       console.warn("Sound not loaded, cannot pause");
       return;
@@ -119,7 +152,7 @@ export const useSounds = (soundType: Sound) => {
     } catch (error) {
       console.error("Failed to pause sound:", error);
     }
-  }, [sound, isLoaded]);
+  }, [sound, isLoaded, native]);
 
   return {
     playSound,
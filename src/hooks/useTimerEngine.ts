@@ -4,12 +4,15 @@ import { TimerState, TimerStorage } from "@/src/services/TimerStorage";
 import { BlindLevel } from "@/src/types/BlindLevel";
 import { liveActivityService } from "@/src/services/LiveActivityService";
 import { useAppState } from "@/src/contexts/AppStateContext";
+import { WallClockJumpDetector } from "@/src/util/wallClockJumpDetector";
 
 const DEFAULT_TIMER_DURATION = 600;
 
 export interface TimerEngineCallbacks {
   onTimerComplete: () => void;
   onTimeUpdate?: (timeLeft: number) => void;
+  // The native engine reports levels it advanced on its own
+  onLevelIndexChange?: (levelIndex: number) => void;
 }
 
 export function useTimerEngine(
@@ -25,7 +28,8 @@ export function useTimerEngine(
 
   const { isActive } = useAppState();
 
-  const intervalRef = useRef<number | null>(null);
+  const timeoutRef = useRef<ReturnType<typeof setTimeout> | null>(null);
+  const clockJumpRef = useRef(new WallClockJumpDetector());
   const hasHandledTimerCompleteRef = useRef(false); // Track if we've already handled timer completion
 
   // Calculate current time left based on end time
@@ -150,37 +154,49 @@ export function useTimerEngine(
     }
   };
 
-  // Timer countdown effect
+  // Timer countdown effect. Each tick is aimed at the moment the shown second
+  // flips, so late timers don't add up, and a wall clock jump moves endTime
+  // along with it so the remaining time stays the same
   useEffect(() => {
-    if (intervalRef.current) {
-      clearInterval(intervalRef.current);
+    if (timeoutRef.current) {
+      clearTimeout(timeoutRef.current);
     }
 
     if (!paused && endTime && timeLeft > 0) {
-      intervalRef.current = setInterval(() => {
+      const scheduleTick = (secondsLeft: number) => {
+        const nextFlip = endTime - (secondsLeft - 1) * 1000;
+        timeoutRef.current = setTimeout(
+          tick,
+          Math.max(0, nextFlip - Date.now()),
+        );
+      };
+
+      const tick = () => {
+        const jump = clockJumpRef.current.check();
+        if (jump !== 0) {
+          // Runs this effect again for the shifted endTime
+          setEndTime(endTime + jump);
+          return;
+        }
+
         const newTimeLeft = calculateTimeLeft(endTime);
         setTimeLeft(newTimeLeft);
 
         // Call optional time update callback
         callbacks.onTimeUpdate?.(newTimeLeft);
 
-        // Save updated time left periodically
-        TimerStorage.saveTimerState({
-          endTime,
-          timerDuration,
-          paused: false,
-          timeLeft: newTimeLeft,
-        });
-
-        if (newTimeLeft === 0) {
-          clearInterval(intervalRef.current!);
+        if (newTimeLeft > 0) {
+          scheduleTick(newTimeLeft);
         }
-      }, 1000);
+      };
+
+      clockJumpRef.current.check();
+      scheduleTick(calculateTimeLeft(endTime));
     }
 
     return () => {
-      if (intervalRef.current) {
-        clearInterval(intervalRef.current);
+      if (timeoutRef.current) {
+        clearTimeout(timeoutRef.current);
       }
     };
   }, [paused, endTime, timerDuration, callbacks]);
@@ -199,12 +215,14 @@ export function useTimerEngine(
     }
   }, [timeLeft, paused, endTime]);
 
-  // Save state whenever it changes
+  // Save state on transitions. A running timer is restored from endTime, so
+  // its per-second timeLeft changes aren't written
+  const pausedTimeLeft = paused ? timeLeft : undefined;
   useEffect(() => {
     if (!isLoading) {
       saveCurrentState();
     }
-  }, [endTime, timerDuration, paused, timeLeft, isLoading]);
+  }, [endTime, timerDuration, paused, pausedTimeLeft, isLoading]);
 
   // Update Live Activity when state changes
   useEffect(() => {
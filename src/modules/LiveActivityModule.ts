@@ -1,5 +1,16 @@
 // src/modules/LiveActivityModule.ts
 import { NativeModules } from "react-native";
+import NativeForegroundService, {
+  ForegroundServiceClockState,
+  ForegroundServiceState,
+  StartupState,
+} from "../specs/NativeForegroundService";
+
+export type {
+  ForegroundServiceClockState,
+  ForegroundServiceState,
+  StartupState,
+};
 
 export interface LiveActivityData {
   tournamentName?: string;
@@ -15,6 +26,83 @@ export interface LiveActivityData {
 
 export interface LiveActivityDataAndroid extends LiveActivityData {
   shouldAlertOnExpiry: boolean;
+  updateMode?: "countdown" | "tick"; // Defaults to countdown (system chronometer)
+  session?: number; // Issued natively per JS runtime, see getSession()
+  sequence?: number; // Increments per update within a session
+  timerDuration?: number; // Seconds the timer resets to
+}
+
+// Only the changed fields plus session/sequence, fields left out keep their value
+export type ForegroundServicePatch = Partial<LiveActivityDataAndroid> & {
+  session: number;
+  sequence: number;
+};
+
+// Packed blind schedule layout, must match BlindSchedule
+export const BLIND_SCHEDULE_STRIDE = 4; // small, big, ante, flags
+export const BLIND_FLAG_BREAK = 1;
+
+// Field indices for patch bitmasks, must match PokerTimerService.FIELD_*
+export const ForegroundServiceField = {
+  tournamentName: 0,
+  currentBlindLevel: 1,
+  currentSmallBlind: 2,
+  currentBigBlind: 3,
+  nextSmallBlind: 4,
+  nextBigBlind: 5,
+  endTime: 6,
+  timeLeft: 7,
+  paused: 8,
+  shouldAlertOnExpiry: 9,
+  updateMode: 10,
+  timerDuration: 11,
+} as const;
+
+export interface NotificationModeStats {
+  notificationPosts: number;
+  wakeups: number;
+  activeMillis: number;
+  postsPerHour: number;
+  wakeupsPerHour: number;
+}
+
+export interface NotificationStats {
+  tick: NotificationModeStats;
+  countdown: NotificationModeStats;
+}
+
+// Milliseconds after endTime, lateCount counts those over 500ms
+export interface LatenessStats {
+  count: number;
+  meanMs: number;
+  maxMs: number;
+  lastMs: number;
+  lateCount: number;
+}
+
+export interface ExpiryLatenessStats {
+  alarmDelivery: LatenessStats; // Exact alarm delivery
+  expiry: LatenessStats; // Expiry handled (alert or level advance)
+  alarmAudio: LatenessStats; // First audible alarm frame
+}
+
+export interface HistogramStats {
+  count: number;
+  meanMs: number;
+  p50Ms: number;
+  p95Ms: number;
+  p99Ms: number;
+  maxMs: number;
+}
+
+// Always-on service metrics, also printed by `adb shell dumpsys activity service`
+export interface TimerMetrics {
+  tickJitter: HistogramStats;
+  notifyDuration: HistogramStats;
+  intentDelivery: HistogramStats;
+  alertStart: HistogramStats;
+  alertVisible: HistogramStats;
+  notificationReposts: number;
 }
 
 interface LiveActivityModule {
@@ -26,16 +114,43 @@ interface LiveActivityModule {
 }
 
 interface ForegroundServiceModule {
+  session: number; // Constant, see the spec's getSession()
   startService(data: LiveActivityDataAndroid): Promise<string>;
-  updateService(data: LiveActivityDataAndroid): Promise<string>;
+  updateService(
+    data: LiveActivityDataAndroid | ForegroundServicePatch,
+  ): Promise<string>;
   stopService(): Promise<string>;
   dismissAlert(): Promise<void>;
   isServiceSupported(): Promise<boolean>;
   hasNotificationPermission(): Promise<boolean>;
   isServiceRunning(): Promise<boolean>;
+  getNotificationStats(): Promise<NotificationStats>;
+  getExpiryLatenessStats(): Promise<ExpiryLatenessStats>;
+  getMetrics(): Promise<TimerMetrics>;
+  resetMetrics(): Promise<void>;
+  getServiceState(): Promise<ForegroundServiceState>;
+  pauseTimer(): Promise<boolean>;
+  resumeTimer(): Promise<boolean>;
+  resetTimer(): Promise<boolean>;
+  setTimerDuration(duration: number): Promise<boolean>;
+  setBlindSchedule(levels: number[], levelIndex: number): Promise<boolean>;
+  setLevelIndex(levelIndex: number): Promise<boolean>;
+  setClock(
+    clockId: string,
+    name: string,
+    levels: number[],
+    levelIndex: number,
+    levelSeconds: number,
+  ): Promise<boolean>;
+  clockCommand(clockId: string, command: string): Promise<boolean>;
+  getClocks(): Promise<ForegroundServiceClockState[]>;
+  setSyncMode(mode: string): Promise<boolean>;
+  setTimerEventsEnabled(enabled: boolean, ticks: boolean): void;
 }
 
 // Platform-specific exports
 export const LiveActivity: LiveActivityModule = NativeModules.RNLiveActivity;
 export const ForegroundService: ForegroundServiceModule =
   NativeModules.RNForegroundService;
+// Synchronous TurboModule, null when the New Architecture is disabled
+export const ForegroundServiceTurbo = NativeForegroundService;
@@ -1,7 +1,16 @@
 // src/services/BlindsStorage.ts
 import AsyncStorage from "@react-native-async-storage/async-storage";
+import { Platform } from "react-native";
 import { BlindLevel } from "@/src/types/BlindLevel";
 import { generateBlindLevels } from "@/src/util/generateBlinds";
+import {
+  ForegroundServiceTurbo,
+  StartupState,
+} from "@/src/modules/LiveActivityModule";
+import {
+  packBlindLevels,
+  unpackBlindLevels,
+} from "@/src/util/packBlindLevels";
 
 const STORAGE_KEYS = {
   CURRENT_BLIND_INDEX: "current_blind_index",
@@ -9,6 +18,10 @@ const STORAGE_KEYS = {
   CUSTOM_BLIND_LEVELS: "custom_blind_levels",
 } as const;
 
+// Android stores the structures as packed records in the native write-behind
+// store; AsyncStorage is still read once for state saved before it
+const nativeStore = Platform.OS === "android" ? ForegroundServiceTurbo : null;
+
 export interface BlindsState {
   currentBlindIndex: number;
   blindLevels: BlindLevel[];
@@ -18,6 +31,15 @@ export interface BlindsState {
 export class BlindsStorage {
   static async saveBlindsState(state: BlindsState): Promise<void> {
     try {
+      if (nativeStore) {
+        nativeStore.saveBlindIndex(state.currentBlindIndex);
+        nativeStore.saveBlindLevels(
+          packBlindLevels(state.blindLevels),
+          packBlindLevels(state.customBlindLevels),
+        );
+        return;
+      }
+
       await AsyncStorage.multiSet([
         [STORAGE_KEYS.CURRENT_BLIND_INDEX, state.currentBlindIndex.toString()],
         [STORAGE_KEYS.BLIND_LEVELS, JSON.stringify(state.blindLevels)],
@@ -32,8 +54,51 @@ export class BlindsStorage {
     }
   }
 
+  // Structure edits come in bursts, natively they are written behind
+  static async saveBlindLevels(
+    blindLevels: BlindLevel[],
+    customBlindLevels: BlindLevel[],
+  ): Promise<void> {
+    try {
+      if (nativeStore) {
+        nativeStore.saveBlindLevels(
+          packBlindLevels(blindLevels),
+          packBlindLevels(customBlindLevels),
+        );
+        return;
+      }
+
+      await AsyncStorage.multiSet([
+        [STORAGE_KEYS.BLIND_LEVELS, JSON.stringify(blindLevels)],
+        [STORAGE_KEYS.CUSTOM_BLIND_LEVELS, JSON.stringify(customBlindLevels)],
+      ]);
+    } catch (error) {
+      console.error("Failed to save blind levels:", error);
+    }
+  }
+
+  // Also used with the synchronous startup state, see StartupState.ts
+  static fromNative(
+    nativeState: NonNullable<StartupState["blinds"]>,
+  ): BlindsState {
+    const blindLevels = unpackBlindLevels(nativeState.blindLevels);
+    const customBlindLevels = unpackBlindLevels(nativeState.customBlindLevels);
+    return {
+      currentBlindIndex: nativeState.currentBlindIndex,
+      blindLevels: blindLevels.length ? blindLevels : generateBlindLevels(),
+      customBlindLevels: customBlindLevels.length
+        ? customBlindLevels
+        : generateBlindLevels(),
+    };
+  }
+
   static async loadBlindsState(): Promise<BlindsState> {
     try {
+      const nativeState = nativeStore?.loadBlindsState();
+      if (nativeState) {
+        return BlindsStorage.fromNative(nativeState);
+      }
+
       const values = await AsyncStorage.multiGet([
         STORAGE_KEYS.CURRENT_BLIND_INDEX,
         STORAGE_KEYS.BLIND_LEVELS,
@@ -71,6 +136,12 @@ export class BlindsStorage {
 
   static async saveCurrentBlindIndex(index: number): Promise<void> {
     try {
+      if (nativeStore) {
+        nativeStore.saveBlindIndex(index);
+        nativeStore.flushState();
+        return;
+      }
+
       await AsyncStorage.setItem(
         STORAGE_KEYS.CURRENT_BLIND_INDEX,
         index.toString(),
@@ -82,6 +153,8 @@ export class BlindsStorage {
 
   static async clearBlindsState(): Promise<void> {
     try {
+      nativeStore?.clearBlindsState();
+      nativeStore?.flushState();
       await AsyncStorage.multiRemove(Object.values(STORAGE_KEYS));
     } catch (error) {
       console.error("Failed to clear blinds state:", error);
@@ -3,15 +3,79 @@ import { Platform } from "react-native";
 import {
   LiveActivity,
   ForegroundService,
+  ForegroundServiceTurbo,
   LiveActivityData,
   LiveActivityDataAndroid,
+  ForegroundServicePatch,
+  ForegroundServiceField,
+  ForegroundServiceState,
+  ForegroundServiceClockState,
 } from "../modules/LiveActivityModule";
+import { BlindLevel } from "@/src/types/BlindLevel";
 import { PokerTimerState } from "@/src/types/PokerTimerState";
+import { LatencyStats, LatencyTracker } from "@/src/util/latencyTracker";
+import { packBlindLevels } from "@/src/util/packBlindLevels";
+
+// Foreground service fields, indexed by ForegroundServiceField
+type AndroidServiceFields = [
+  string,
+  number,
+  number,
+  number,
+  number,
+  number,
+  number,
+  number,
+  boolean,
+  boolean,
+  "countdown" | "tick",
+  number,
+];
+
+const ANDROID_FIELD_KEYS = Object.keys(
+  ForegroundServiceField,
+) as (keyof typeof ForegroundServiceField)[];
+const ALL_ANDROID_FIELDS = (1 << ANDROID_FIELD_KEYS.length) - 1;
+// Owned by the service's timer engine and blind schedule once it runs, see
+// useNativeTimerEngine
+const ANDROID_SERVICE_OWNED_FIELDS =
+  (1 << ForegroundServiceField.currentBlindLevel) |
+  (1 << ForegroundServiceField.currentSmallBlind) |
+  (1 << ForegroundServiceField.currentBigBlind) |
+  (1 << ForegroundServiceField.nextSmallBlind) |
+  (1 << ForegroundServiceField.nextBigBlind) |
+  (1 << ForegroundServiceField.endTime) |
+  (1 << ForegroundServiceField.timeLeft) |
+  (1 << ForegroundServiceField.paused) |
+  (1 << ForegroundServiceField.timerDuration);
+const DEFAULT_TIMER_DURATION = 600;
+
+export type AndroidTimerCommand = "pause" | "resume" | "reset";
+export type AndroidClockCommand = AndroidTimerCommand | "remove";
+// LAN clock sync between the devices of a room, see LanClockSync
+export type AndroidSyncMode = "host" | "follow" | "off";
 
 class LiveActivityService {
   private activityId: string | null = null;
   private isIOSSupported: boolean;
   private isAndroidSupported: boolean = true; // Android foreground services are widely supported
+  private updateLatency = {
+    turbo: new LatencyTracker(),
+    legacy: new LatencyTracker(),
+  };
+  // Patch sequencing: a new session tells the service to forget old sequences.
+  // Issued natively from the monotonic clock: a Date.now() session would be
+  // older than the last one after the wall clock was set back, and the
+  // service would drop every patch of this runtime.
+  private androidSession: number =
+    Platform.OS === "android"
+      ? (ForegroundServiceTurbo?.getSession() ?? ForegroundService.session)
+      : 0;
+  private androidSequence: number = 0;
+  private lastAndroidFields: AndroidServiceFields | null = null;
+  private androidServiceOwnsTimer: boolean = false;
+  // Schedule the running service has, so it is only pushed when it changes
+  private sentBlindLevels: BlindLevel[] | null = null;
 
   constructor() {
     // Live Activities require iOS 16.1+
@@ -135,43 +199,44 @@ class LiveActivityService {
     state: PokerTimerState,
     shouldAlertOnExpiry: boolean,
   ): Promise<string | null> {
-    try {
-      const enabled = await this.isEnabled();
-      if (!enabled) {
-        console.warn("Foreground Service not available or permission denied");
-        return null;
-      }
-
-      // Convert to the format expected by Android
-      const serviceData: LiveActivityDataAndroid = {
-        tournamentName: state.tournamentName || "Poker Tournament",
-        currentBlindLevel: state.currentBlindLevel,
-        currentSmallBlind: state.currentSmallBlind,
-        currentBigBlind: state.currentBigBlind,
-        nextSmallBlind: state.nextSmallBlind,
-        nextBigBlind: state.nextBigBlind,
-        paused: state.paused,
+    if (ForegroundServiceTurbo) {
+      return this.handleAndroidTurboForegroundService(
+        state,
         shouldAlertOnExpiry,
-      };
+      );
+    }
 
-      // Handle timing - Android expects milliseconds for endTime
-      if (state.endTime && !state.paused) {
-        serviceData.endTime = state.endTime;
-      } else if (state.timeLeft) {
-        serviceData.timeLeft = state.timeLeft;
-      }
+    try {
+      const fields = this.toAndroidFields(state, shouldAlertOnExpiry);
 
       // Check if service is already running
       const isRunning = await ForegroundService.isServiceRunning();
 
       if (isRunning) {
-        // Update existing service
-        await ForegroundService.updateService(serviceData);
+        // Update existing service with only the fields that changed
+        const changed = this.changedAndroidFields(fields);
+        if (changed === 0) {
+          return "android_service"; // Return a consistent ID for Android
+        }
+
+        const patch = this.toAndroidPatch(fields, changed);
+        const start = performance.now();
+        await ForegroundService.updateService(patch);
+        this.updateLatency.legacy.record(performance.now() - start);
+        this.lastAndroidFields = fields;
         console.log("Foreground Service updated successfully");
-        return "android_service"; // Return a consistent ID for Android
+        return "android_service";
       } else {
-        // Start new service
-        await ForegroundService.startService(serviceData);
+        // Start new service with the full state
+        this.sentBlindLevels = null;
+        const data = this.toAndroidPatch(
+          fields,
+          ALL_ANDROID_FIELDS,
+        ) as LiveActivityDataAndroid;
+        const start = performance.now();
+        await ForegroundService.startService(data);
+        this.updateLatency.legacy.record(performance.now() - start);
+        this.lastAndroidFields = fields;
         console.log("Foreground Service started successfully");
         return "android_service";
       }
@@ -181,6 +246,284 @@ class LiveActivityService {
     }
   }
 
+  // Synchronous New Architecture path: no maps and no Promises per update
+  private handleAndroidTurboForegroundService(
+    state: PokerTimerState,
+    shouldAlertOnExpiry: boolean,
+  ): string | null {
+    const turbo = ForegroundServiceTurbo!;
+
+    try {
+      const fields = this.toAndroidFields(state, shouldAlertOnExpiry);
+      const isRunning = turbo.isServiceRunning();
+      const changed = isRunning
+        ? this.changedAndroidFields(fields)
+        : ALL_ANDROID_FIELDS;
+      if (changed === 0) {
+        return "android_service";
+      }
+
+      if (!isRunning) {
+        this.sentBlindLevels = null;
+      }
+
+      const sequence = ++this.androidSequence;
+      const start = performance.now();
+      const ok = isRunning
+        ? turbo.patchService(this.androidSession, sequence, changed, ...fields)
+        : turbo.startService(this.androidSession, sequence, ...fields);
+      this.updateLatency.turbo.record(performance.now() - start);
+
+      if (!ok) {
+        return null;
+      }
+      this.lastAndroidFields = fields;
+      return "android_service";
+    } catch (error) {
+      console.error("Failed to start/update Foreground Service:", error);
+      return null;
+    }
+  }
+
+  private toAndroidFields(
+    state: PokerTimerState,
+    shouldAlertOnExpiry: boolean,
+  ): AndroidServiceFields {
+    // endTime only while running, timeLeft only while paused, so a tick of
+    // the JS timer alone never produces a patch
+    const running = !!state.endTime && !state.paused;
+
+    return [
+      state.tournamentName || "Poker Tournament",
+      state.currentBlindLevel,
+      state.currentSmallBlind,
+      state.currentBigBlind,
+      state.nextSmallBlind,
+      state.nextBigBlind,
+      running ? state.endTime! : 0,
+      running ? 0 : state.timeLeft || 0,
+      state.paused,
+      shouldAlertOnExpiry,
+      "countdown",
+      state.timerDuration ?? DEFAULT_TIMER_DURATION,
+    ];
+  }
+
+  // Bitmask of the fields that differ from what was last sent
+  private changedAndroidFields(fields: AndroidServiceFields): number {
+    const last = this.lastAndroidFields;
+    if (!last) {
+      return this.androidPatchableFields();
+    }
+
+    let changed = 0;
+    for (let i = 0; i < fields.length; i++) {
+      if (fields[i] !== last[i]) {
+        changed |= 1 << i;
+      }
+    }
+    return changed & this.androidPatchableFields();
+  }
+
+  // A running service only takes timing and levels from JS when it doesn't own them
+  private androidPatchableFields(): number {
+    return this.androidServiceOwnsTimer
+      ? ALL_ANDROID_FIELDS & ~ANDROID_SERVICE_OWNED_FIELDS
+      : ALL_ANDROID_FIELDS;
+  }
+
+  private toAndroidPatch(
+    fields: AndroidServiceFields,
+    changed: number,
+  ): ForegroundServicePatch {
+    const patch: ForegroundServicePatch = {
+      session: this.androidSession,
+      sequence: ++this.androidSequence,
+    };
+    ANDROID_FIELD_KEYS.forEach((key, i) => {
+      if (changed & (1 << i)) {
+        (patch as Record<string, unknown>)[key] = fields[i];
+      }
+    });
+    return patch;
+  }
+
+  // The service's timer engine: JS sends commands and renders its events
+  setAndroidServiceOwnsTimer(ownsTimer: boolean): void {
+    this.androidServiceOwnsTimer = ownsTimer;
+  }
+
+  // Pushes the whole structure once, the service advances levels from it
+  async setAndroidBlindSchedule(
+    levels: BlindLevel[],
+    levelIndex: number,
+  ): Promise<boolean> {
+    if (Platform.OS !== "android" || levels === this.sentBlindLevels) {
+      return true;
+    }
+
+    try {
+      const module = ForegroundServiceTurbo ?? ForegroundService;
+      const ok = await module.setBlindSchedule(
+        packBlindLevels(levels),
+        levelIndex,
+      );
+      if (ok) {
+        this.sentBlindLevels = levels;
+      }
+      return ok;
+    } catch (error) {
+      console.error("Failed to set blind schedule:", error);
+      return false;
+    }
+  }
+
+  async setAndroidLevelIndex(levelIndex: number): Promise<boolean> {
+    if (Platform.OS !== "android") {
+      return true;
+    }
+
+    try {
+      const module = ForegroundServiceTurbo ?? ForegroundService;
+      return await module.setLevelIndex(levelIndex);
+    } catch (error) {
+      console.error("Failed to set level index:", error);
+      return false;
+    }
+  }
+
+  // Resolves false when no service is running to own the timer
+  async sendAndroidTimerCommand(command: AndroidTimerCommand): Promise<boolean> {
+    try {
+      const module = ForegroundServiceTurbo ?? ForegroundService;
+      switch (command) {
+        case "pause":
+          return await module.pauseTimer();
+        case "resume":
+          return await module.resumeTimer();
+        case "reset":
+          return await module.resetTimer();
+      }
+    } catch (error) {
+      console.error(`Failed to send timer command ${command}:`, error);
+      return false;
+    }
+  }
+
+  async setAndroidTimerDuration(duration: number): Promise<boolean> {
+    try {
+      const module = ForegroundServiceTurbo ?? ForegroundService;
+      return await module.setTimerDuration(duration);
+    } catch (error) {
+      console.error("Failed to set timer duration:", error);
+      return false;
+    }
+  }
+
+  // Additional tournament clocks run by the service next to the main timer.
+  // Resolves false when the service isn't running.
+  async setAndroidClock(
+    clockId: string,
+    name: string,
+    levels: BlindLevel[],
+    levelIndex: number,
+    levelSeconds: number,
+  ): Promise<boolean> {
+    if (Platform.OS !== "android") {
+      return false;
+    }
+
+    try {
+      const module = ForegroundServiceTurbo ?? ForegroundService;
+      return await module.setClock(
+        clockId,
+        name,
+        packBlindLevels(levels),
+        levelIndex,
+        levelSeconds,
+      );
+    } catch (error) {
+      console.error(`Failed to set clock ${clockId}:`, error);
+      return false;
+    }
+  }
+
+  async sendAndroidClockCommand(
+    clockId: string,
+    command: AndroidClockCommand,
+  ): Promise<boolean> {
+    if (Platform.OS !== "android") {
+      return false;
+    }
+
+    try {
+      const module = ForegroundServiceTurbo ?? ForegroundService;
+      return await module.clockCommand(clockId, command);
+    } catch (error) {
+      console.error(`Failed to send clock command ${command}:`, error);
+      return false;
+    }
+  }
+
+  async getAndroidClocks(): Promise<ForegroundServiceClockState[]> {
+    if (Platform.OS !== "android") {
+      return [];
+    }
+
+    try {
+      return ForegroundServiceTurbo
+        ? [...ForegroundServiceTurbo.getClocks()]
+        : await ForegroundService.getClocks();
+    } catch (error) {
+      console.warn("Error reading clocks:", error);
+      return [];
+    }
+  }
+
+  // A follower shows the host's timer and ignores its own timer commands until
+  // set back to "off". Resolves false when the service isn't running.
+  async setAndroidSyncMode(mode: AndroidSyncMode): Promise<boolean> {
+    if (Platform.OS !== "android") {
+      return false;
+    }
+
+    try {
+      const module = ForegroundServiceTurbo ?? ForegroundService;
+      return await module.setSyncMode(mode);
+    } catch (error) {
+      console.error(`Failed to set sync mode ${mode}:`, error);
+      return false;
+    }
+  }
+
+  setAndroidTimerEventsEnabled(enabled: boolean, ticks: boolean): void {
+    const module = ForegroundServiceTurbo ?? ForegroundService;
+    module.setTimerEventsEnabled(enabled, ticks);
+  }
+
+  async getAndroidServiceState(): Promise<ForegroundServiceState | null> {
+    if (Platform.OS !== "android") {
+      return null;
+    }
+
+    try {
+      return ForegroundServiceTurbo
+        ? ForegroundServiceTurbo.getServiceState()
+        : await ForegroundService.getServiceState();
+    } catch (error) {
+      console.warn("Error reading service state:", error);
+      return null;
+    }
+  }
+
+  // JS -> native latency of a start/update call for each Android path
+  getUpdateLatencyStats(): { turbo: LatencyStats; legacy: LatencyStats } {
+    return {
+      turbo: this.updateLatency.turbo.getStats(),
+      legacy: this.updateLatency.legacy.getStats(),
+    };
+  }
+
   async endActivity(): Promise<void> {
     if (Platform.OS === "ios") {
       if (!this.isIOSSupported || !this.activityId) {
@@ -197,7 +540,13 @@ class LiveActivityService {
       }
     } else if (Platform.OS === "android") {
       try {
-        await ForegroundService.stopService();
+        if (ForegroundServiceTurbo) {
+          ForegroundServiceTurbo.stopService();
+        } else {
+          await ForegroundService.stopService();
+        }
+        this.lastAndroidFields = null;
+        this.sentBlindLevels = null;
         console.log("Foreground Service stopped");
       } catch (error) {
         console.error("Failed to stop Foreground Service:", error);
@@ -265,6 +614,8 @@ class LiveActivityService {
       // For Android, we can try to stop the service to ensure cleanup
       try {
         await ForegroundService.stopService();
+        this.lastAndroidFields = null;
+        this.sentBlindLevels = null;
       } catch (error) {
         console.warn("Error during Android service cleanup:", error);
       }
@@ -298,10 +649,17 @@ class LiveActivityService {
         console.warn("Error syncing activity state:", error);
       }
     } else if (Platform.OS === "android") {
-      // For Android, sync is simpler - just check if service is running
+      // For Android, sync is simpler - read the state of the bound service
       try {
-        const isRunning = await ForegroundService.isServiceRunning();
-        console.log("Android service running state:", isRunning);
+        const state = ForegroundServiceTurbo
+          ? ForegroundServiceTurbo.getServiceState()
+          : await ForegroundService.getServiceState();
+        if (!state.running) {
+          // The service is gone (e.g. process death), resend everything next time
+          this.lastAndroidFields = null;
+          this.sentBlindLevels = null;
+        }
+        console.log("Android service running state:", state.running);
       } catch (error) {
         console.warn("Error syncing Android service state:", error);
       }
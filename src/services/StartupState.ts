@@ -0,0 +1,29 @@
+// src/services/StartupState.ts
+import { Platform } from "react-native";
+import {
+  ForegroundServiceTurbo,
+  StartupState,
+} from "@/src/modules/LiveActivityModule";
+import { markStartup } from "@/src/util/startupTrace";
+
+let startupState: StartupState | null | undefined;
+
+// Read synchronously once per JS start, so the providers' initial state is
+// the service's level and countdown instead of the defaults. Only the Android
+// TurboModule can answer synchronously; null means the async loads are needed
+export function getStartupState(): StartupState | null {
+  if (startupState !== undefined) {
+    return startupState;
+  }
+
+  startupState = null;
+  if (Platform.OS === "android" && ForegroundServiceTurbo) {
+    try {
+      startupState = ForegroundServiceTurbo.getStartupState();
+      markStartup("snapshotRead");
+    } catch (error) {
+      console.warn("Error reading startup state:", error);
+    }
+  }
+  return startupState;
+}
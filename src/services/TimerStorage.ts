@@ -1,5 +1,7 @@
 // src/services/TimerStorage.ts
 import AsyncStorage from "@react-native-async-storage/async-storage";
+import { Platform } from "react-native";
+import { ForegroundServiceTurbo } from "@/src/modules/LiveActivityModule";
 
 const DEFAULT_TIMER_DURATION = 600;
 
@@ -11,6 +13,10 @@ const STORAGE_KEYS = {
   TIMER_COMPLETED: "timer_completed", // New flag to track if timer completed
 } as const;
 
+// Android keeps the state in the native write-behind store instead of
+// AsyncStorage; AsyncStorage is still read once for state saved before it
+const nativeStore = Platform.OS === "android" ? ForegroundServiceTurbo : null;
+
 export interface TimerState {
   endTime?: number;
   timerDuration: number;
@@ -20,8 +26,21 @@ export interface TimerState {
 }
 
 export class TimerStorage {
+  // Callers save on transitions only, so native saves are flushed right away
   static async saveTimerState(state: TimerState): Promise<void> {
     try {
+      if (nativeStore) {
+        nativeStore.saveTimerState(
+          state.endTime ?? 0,
+          state.timerDuration,
+          state.paused,
+          state.timeLeft,
+          state.completed || false,
+        );
+        nativeStore.flushState();
+        return;
+      }
+
       await AsyncStorage.multiSet([
         [STORAGE_KEYS.TIMER_END_TIME, state.endTime?.toString() || ""],
         [STORAGE_KEYS.TIMER_DURATION, state.timerDuration.toString()],
@@ -37,6 +56,17 @@ export class TimerStorage {
 
   static async loadTimerState(): Promise<TimerState> {
     try {
+      const nativeState = nativeStore?.loadTimerState();
+      if (nativeState) {
+        return {
+          endTime: nativeState.endTime || undefined,
+          timerDuration: nativeState.timerDuration,
+          paused: nativeState.paused,
+          timeLeft: nativeState.timeLeft,
+          completed: nativeState.completed,
+        };
+      }
+
       const values = await AsyncStorage.multiGet([
         STORAGE_KEYS.TIMER_END_TIME,
         STORAGE_KEYS.TIMER_DURATION,
@@ -83,6 +113,11 @@ export class TimerStorage {
 
   static async markTimerCompleted(): Promise<void> {
     try {
+      if (nativeStore) {
+        nativeStore.setTimerCompleted(true);
+        nativeStore.flushState();
+        return;
+      }
       await AsyncStorage.setItem(STORAGE_KEYS.TIMER_COMPLETED, "true");
     } catch (error) {
       console.error("Failed to mark timer completed:", error);
@@ -91,6 +126,11 @@ export class TimerStorage {
 
   static async clearTimerCompleted(): Promise<void> {
     try {
+      if (nativeStore) {
+        nativeStore.setTimerCompleted(false);
+        nativeStore.flushState();
+        return;
+      }
       await AsyncStorage.setItem(STORAGE_KEYS.TIMER_COMPLETED, "false");
     } catch (error) {
       console.error("Failed to clear timer completed flag:", error);
@@ -99,6 +139,8 @@ export class TimerStorage {
 
   static async clearTimerState(): Promise<void> {
     try {
+      nativeStore?.clearTimerState();
+      nativeStore?.flushState();
       await AsyncStorage.multiRemove(Object.values(STORAGE_KEYS));
     } catch (error) {
       console.error("Failed to clear timer state:", error);
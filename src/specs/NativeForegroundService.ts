@@ -0,0 +1,175 @@
+// src/specs/NativeForegroundService.ts
+import type { TurboModule } from "react-native";
+import { TurboModuleRegistry } from "react-native";
+import type {
+  Double,
+  Int32,
+} from "react-native/Libraries/Types/CodegenTypes";
+
+// State read back from the running service over its bound Binder
+export type ForegroundServiceState = {
+  tournamentName: string;
+  currentBlindLevel: Int32;
+  currentSmallBlind: Int32;
+  currentBigBlind: Int32;
+  nextSmallBlind: Int32;
+  nextBigBlind: Int32;
+  levelIndex: Int32; // -1 without a blind schedule
+  endTime: Double;
+  timeLeft: Int32;
+  timerDuration: Int32;
+  paused: boolean;
+  expired: boolean;
+  alerting: boolean;
+  running: boolean;
+};
+
+// One of the additional tournament clocks, see setClock()
+export type ForegroundServiceClockState = {
+  clockId: string;
+  tournamentName: string;
+  currentBlindLevel: Int32;
+  currentSmallBlind: Int32;
+  currentBigBlind: Int32;
+  nextSmallBlind: Int32;
+  nextBigBlind: Int32;
+  levelIndex: Int32;
+  endTime: Double;
+  timeLeft: Int32;
+  timerDuration: Int32;
+  paused: boolean;
+  expired: boolean;
+  alerting: boolean;
+  running: boolean;
+};
+
+// App state kept by the native write-behind store, see PersistentStateStore
+export type PersistedTimerState = {
+  endTime: Double; // 0 when not running
+  timerDuration: Int32;
+  paused: boolean;
+  timeLeft: Int32;
+  completed: boolean;
+};
+
+export type PersistedBlindsState = {
+  currentBlindIndex: Int32;
+  blindLevels: ReadonlyArray<Int32>; // Packed like setBlindSchedule
+  customBlindLevels: ReadonlyArray<Int32>;
+};
+
+// Everything the first render needs, read in one synchronous call
+export type StartupState = {
+  service: ForegroundServiceState;
+  timer: PersistedTimerState | null;
+  blinds: PersistedBlindsState | null;
+};
+
+// New Architecture version of RNForegroundService. All calls are synchronous
+// and take positional, typed arguments, so an update allocates neither a map
+// nor a Promise. The legacy module stays available as a fallback.
+//
+// Updates are delta patches: changedFields is a bitmask of field indices
+// (see ForegroundServiceField) and only those values are applied. session and
+// sequence let the service drop patches that arrive out of order.
+export interface Spec extends TurboModule {
+  // Session to send patches under, issued natively from the monotonic clock
+  // so a reloaded runtime always gets a newer one
+  getSession(): Double;
+  startService(
+    session: Double,
+    sequence: Int32,
+    tournamentName: string,
+    currentBlindLevel: Int32,
+    currentSmallBlind: Int32,
+    currentBigBlind: Int32,
+    nextSmallBlind: Int32,
+    nextBigBlind: Int32,
+    endTime: Double,
+    timeLeft: Int32,
+    paused: boolean,
+    shouldAlertOnExpiry: boolean,
+    updateMode: string,
+    timerDuration: Int32,
+  ): boolean;
+  patchService(
+    session: Double,
+    sequence: Int32,
+    changedFields: Int32,
+    tournamentName: string,
+    currentBlindLevel: Int32,
+    currentSmallBlind: Int32,
+    currentBigBlind: Int32,
+    nextSmallBlind: Int32,
+    nextBigBlind: Int32,
+    endTime: Double,
+    timeLeft: Int32,
+    paused: boolean,
+    shouldAlertOnExpiry: boolean,
+    updateMode: string,
+    timerDuration: Int32,
+  ): boolean;
+  stopService(): boolean;
+  dismissAlert(): boolean;
+  // Timer commands for the countdown the service owns, false when not running
+  pauseTimer(): boolean;
+  resumeTimer(): boolean;
+  resetTimer(): boolean;
+  setTimerDuration(duration: Int32): boolean;
+  // Packed blind schedule, BLIND_SCHEDULE_STRIDE values per level (small,
+  // big, ante, flags). levelIndex only applies when the service had none yet.
+  setBlindSchedule(levels: ReadonlyArray<Int32>, levelIndex: Int32): boolean;
+  setLevelIndex(levelIndex: Int32): boolean;
+  // Additional tournament clocks by ID, next to the timer above. setClock adds
+  // a paused clock or updates one (keeping its level); commands are "pause",
+  // "resume", "reset" and "remove". False when the service isn't running.
+  setClock(
+    clockId: string,
+    name: string,
+    levels: ReadonlyArray<Int32>,
+    levelIndex: Int32,
+    levelSeconds: Int32,
+  ): boolean;
+  clockCommand(clockId: string, command: string): boolean;
+  // Throws when the service runs in the :timer process
+  getClocks(): ReadonlyArray<ForegroundServiceClockState>;
+  // LAN clock sync: "host" sends this timer to the other devices on the
+  // network, "follow" shows the host's timer instead, "off" stops both.
+  // False when the service isn't running.
+  setSyncMode(mode: string): boolean;
+  // PokerTimerState / PokerTimerTick device events, ticks only while visible
+  setTimerEventsEnabled(enabled: boolean, ticks: boolean): void;
+  isServiceSupported(): boolean;
+  hasNotificationPermission(): boolean;
+  isServiceRunning(): boolean;
+  getServiceState(): ForegroundServiceState;
+  getStartupState(): StartupState;
+  // Persistence: saves only update memory and are written to disk in the
+  // background after a short delay, on flushState() or when the app pauses
+  saveTimerState(
+    endTime: Double,
+    timerDuration: Int32,
+    paused: boolean,
+    timeLeft: Int32,
+    completed: boolean,
+  ): void;
+  setTimerCompleted(completed: boolean): void;
+  loadTimerState(): PersistedTimerState | null;
+  clearTimerState(): void;
+  saveBlindIndex(index: Int32): void;
+  saveBlindLevels(
+    levels: ReadonlyArray<Int32>,
+    customLevels: ReadonlyArray<Int32>,
+  ): void;
+  loadBlindsState(): PersistedBlindsState | null;
+  clearBlindsState(): void;
+  flushState(): void;
+  // The service's looping alarm, decoded once and shared with the in-app alert.
+  // In the :timer process these are forwarded to the service's engine.
+  prepareAlarm(): void;
+  playAlarm(): void;
+  stopAlarm(): void;
+  isAlarmPlaying(): boolean;
+}
+
+export default TurboModuleRegistry.get<Spec>("RNForegroundServiceTurbo");
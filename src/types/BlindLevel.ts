@@ -2,4 +2,6 @@
 export type BlindLevel = {
   small: number;
   big: number;
+  ante?: number;
+  isBreak?: boolean;
 };
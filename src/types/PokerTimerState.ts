@@ -8,5 +8,6 @@ export interface PokerTimerState {
   nextBigBlind: number;
   endTime?: number; // Unix timestamp in milliseconds (JS format)
   timeLeft?: number; // How many seconds the timer should run
+  timerDuration?: number; // Seconds the timer resets to (Android service)
   paused: boolean;
 }
@@ -0,0 +1,45 @@
+// src/util/latencyTracker.ts
+const MAX_SAMPLES = 256;
+
+export interface LatencyStats {
+  count: number;
+  meanMs: number;
+  p50Ms: number;
+  p95Ms: number;
+  maxMs: number;
+}
+
+// Keeps the most recent samples in a fixed ring buffer
+export class LatencyTracker {
+  private samples = new Float64Array(MAX_SAMPLES);
+  private count = 0;
+
+  record(durationMs: number): void {
+    this.samples[this.count % MAX_SAMPLES] = durationMs;
+    this.count++;
+  }
+
+  getStats(): LatencyStats {
+    const size = Math.min(this.count, MAX_SAMPLES);
+    if (size === 0) {
+      return { count: 0, meanMs: 0, p50Ms: 0, p95Ms: 0, maxMs: 0 };
+    }
+
+    const sorted = Array.from(this.samples.subarray(0, size)).sort(
+      (a, b) => a - b,
+    );
+    const total = sorted.reduce((sum, value) => sum + value, 0);
+
+    return {
+      count: this.count,
+      meanMs: total / size,
+      p50Ms: sorted[Math.floor((size - 1) * 0.5)],
+      p95Ms: sorted[Math.floor((size - 1) * 0.95)],
+      maxMs: sorted[size - 1],
+    };
+  }
+
+  reset(): void {
+    this.count = 0;
+  }
+}
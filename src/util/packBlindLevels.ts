@@ -0,0 +1,35 @@
+// src/util/packBlindLevels.ts
+import { BlindLevel } from "@/src/types/BlindLevel";
+import {
+  BLIND_FLAG_BREAK,
+  BLIND_SCHEDULE_STRIDE,
+} from "@/src/modules/LiveActivityModule";
+
+// Flattens levels into the native BlindSchedule layout: small, big, ante, flags
+export const packBlindLevels = (levels: BlindLevel[]): number[] => {
+  const packed: number[] = [];
+  for (const level of levels) {
+    packed.push(
+      level.small,
+      level.big,
+      level.ante || 0,
+      level.isBreak ? BLIND_FLAG_BREAK : 0,
+    );
+  }
+  return packed;
+};
+
+export const unpackBlindLevels = (
+  packed: ReadonlyArray<number>,
+): BlindLevel[] => {
+  const levels: BlindLevel[] = [];
+  const count = Math.floor(packed.length / BLIND_SCHEDULE_STRIDE);
+  for (let index = 0; index < count; index++) {
+    const i = index * BLIND_SCHEDULE_STRIDE;
+    const level: BlindLevel = { small: packed[i], big: packed[i + 1] };
+    if (packed[i + 2]) level.ante = packed[i + 2];
+    if (packed[i + 3] & BLIND_FLAG_BREAK) level.isBreak = true;
+    levels.push(level);
+  }
+  return levels;
+};
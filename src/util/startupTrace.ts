@@ -0,0 +1,22 @@
+// src/util/startupTrace.ts
+// Milliseconds since this module was evaluated, which happens while the
+// providers are imported, so close to the start of the bundle
+const origin = performance.now();
+const marks: string[] = [];
+let reported = false;
+
+export function markStartup(name: string): void {
+  if (!reported) {
+    marks.push(`${name}=${(performance.now() - origin).toFixed(1)}ms`);
+  }
+}
+
+// Logs the timeline once, when the first frame with the loaded state is shown.
+// path tells whether it came from the synchronous snapshot or the async loads,
+// so the two can be compared across launches
+export function reportStartup(path: "snapshot" | "async"): void {
+  if (reported) return;
+  markStartup("correctFrame");
+  reported = true;
+  console.log(`Startup trace (${path}): ${marks.join(" ")}`);
+}
@@ -0,0 +1,28 @@
+// src/util/wallClockJumpDetector.ts
+// A gap longer than this may include device sleep, which performance.now()
+// doesn't count on every platform, so only shorter gaps are compared
+const MAX_COMPARED_GAP_MS = 5000;
+// Below this the difference is timer and scheduling noise, not a jump
+const JUMP_THRESHOLD_MS = 100;
+
+// Notices the wall clock (Date.now()) being set, by NTP or by hand, by
+// comparing it against the monotonic performance.now() between checks
+export class WallClockJumpDetector {
+  private lastWall = Date.now();
+  private lastMonotonic = performance.now();
+
+  // How far the wall clock jumped since the last check, 0 if it didn't
+  check(): number {
+    const wall = Date.now();
+    const monotonic = performance.now();
+    const gap = monotonic - this.lastMonotonic;
+    const jump = wall - this.lastWall - gap;
+    this.lastWall = wall;
+    this.lastMonotonic = monotonic;
+
+    if (gap > MAX_COMPARED_GAP_MS || Math.abs(jump) < JUMP_THRESHOLD_MS) {
+      return 0;
+    }
+    return Math.round(jump);
+  }
+}